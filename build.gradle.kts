@@ -10,6 +10,7 @@ plugins {
     application
     id("xyz.srnyx.gradle-galaxy") version "1.3.3"
     id("com.gradleup.shadow") version "8.3.8"
+    id("me.champeau.jmh") version "0.7.3" // Benchmarks (src/jmh)
 }
 
 setupJda("5.6.1", "xyz.srnyx", "3.2.0", "A simple library for JDA Discord bots", JavaVersion.VERSION_22)
@@ -23,8 +24,12 @@ dependencies {
     implementation("com.zaxxer", "HikariCP", "7.0.0") // Database
     implementation("ch.qos.logback", "logback-classic", "1.5.18") // Logging
     implementation("dev.freya02", "jda-emojis", "3.0.0") // Emojis
+    testImplementation("org.junit.jupiter", "junit-jupiter", "5.11.4") // Testing
+    testRuntimeOnly("org.junit.platform", "junit-platform-launcher", "1.11.4") // Testing
 }
 
+jmh { jmhVersion = "1.37" }
+
 setupPublishing(
     artifactId = "lazy-library",
     url = "https://lazy-library.srnyx.com",
@@ -33,6 +38,7 @@ setupPublishing(
 
 // Fix some tasks
 tasks {
+    test { useJUnitPlatform() }
     startScripts { dependsOn("shadowJar") }
     startShadowScripts { dependsOn("jar") }
 }
@@ -0,0 +1,84 @@
+package xyz.srnyx.lazylibrary;
+
+import org.openjdk.jmh.annotations.*;
+
+import xyz.srnyx.lazylibrary.utility.LazyUtilities;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Compares how many events per second listeners that block (like {@link net.dv8tion.jda.api.requests.RestAction#complete() complete()} or JDBC calls) can handle on the event pools of {@link xyz.srnyx.lazylibrary.settings.LazySettings#virtualThreads LazySettings}
+ * <br>{@code sequential} is JDA's default (one event at a time), {@code platform} is the fixed pool of {@link LazyShards}, and {@code virtual} is {@link LazyUtilities#newVirtualThreadExecutor(String)}
+ * <br>Run with {@code ./gradlew jmh}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventPoolBenchmark {
+    /**
+     * The amount of events dispatched per invocation
+     */
+    private static final int EVENTS = 200;
+
+    /**
+     * The pool the events are handled on
+     */
+    @Param({"sequential", "platform", "virtual"})
+    public String pool;
+    /**
+     * How long each listener blocks in microseconds
+     */
+    @Param({"0", "1000"})
+    public long blockMicros;
+
+    /**
+     * The {@link ExecutorService} of {@link #pool}
+     */
+    private ExecutorService executor;
+
+    /**
+     * Creates the pool
+     */
+    @Setup
+    public void setup() {
+        executor = switch (pool) {
+            case "sequential" -> Executors.newSingleThreadExecutor();
+            case "platform" -> Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+            case "virtual" -> LazyUtilities.newVirtualThreadExecutor("benchmark-event");
+            default -> throw new IllegalArgumentException("Unknown pool: " + pool);
+        };
+    }
+
+    /**
+     * Shuts down the pool
+     */
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Dispatches {@value #EVENTS} events and waits for all of them to be handled
+     *
+     * @throws  InterruptedException    if interrupted while waiting
+     */
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void dispatch() throws InterruptedException {
+        final CountDownLatch handled = new CountDownLatch(EVENTS);
+        final long blockNanos = TimeUnit.MICROSECONDS.toNanos(blockMicros);
+        for (int i = 0; i < EVENTS; i++) executor.execute(() -> {
+            if (blockNanos > 0) LockSupport.parkNanos(blockNanos);
+            handled.countDown();
+        });
+        handled.await();
+    }
+}
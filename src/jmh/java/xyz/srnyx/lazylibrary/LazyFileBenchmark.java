@@ -0,0 +1,91 @@
+package xyz.srnyx.lazylibrary;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.spongepowered.configurate.ConfigurationNode;
+import org.spongepowered.configurate.yaml.NodeStyle;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+
+/**
+ * Compares {@link LazyFile#tryLoad() loading} a large file by parsing its YAML and by reading its {@link LazyFile#snapshots(boolean) snapshot}
+ * <br>Run with {@code ./gradlew jmh}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyFileBenchmark {
+    /**
+     * The number of entries in the file (each one a section with a few values)
+     */
+    @Param({"1000", "20000"})
+    public int entries;
+
+    /**
+     * The directory of the file
+     */
+    private Path directory;
+    /**
+     * The file, loaded by parsing its YAML
+     */
+    private LazyFile parsed;
+    /**
+     * The same file, loaded from its snapshot
+     */
+    private LazyFile snapshot;
+
+    /**
+     * Writes the file and its snapshot
+     *
+     * @throws  IOException if the file couldn't be written
+     */
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("lazyfile-benchmark");
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < entries; i++) builder
+                .append("user").append(i).append(":\n")
+                .append("  name: User number ").append(i).append('\n')
+                .append("  balance: ").append(i * 7 % 10000).append('\n')
+                .append("  verified: ").append(i % 3 == 0).append('\n')
+                .append("  roles: [member, \"role ").append(i % 10).append("\"]\n");
+        Files.writeString(directory.resolve("data.yml"), builder);
+        final String pathString = directory.resolve("data").toString();
+        parsed = new LazyFile(pathString, NodeStyle.BLOCK, false);
+        snapshot = new LazyFile(pathString, NodeStyle.BLOCK, false).snapshots(true);
+        snapshot.tryLoad();
+    }
+
+    /**
+     * Deletes the file and its snapshot
+     *
+     * @throws  IOException if they couldn't be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        try (final Stream<Path> stream = Files.walk(directory)) {
+            for (final Path path : stream.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public ConfigurationNode loadParsed() throws IOException {
+        parsed.tryLoad();
+        return parsed.yaml;
+    }
+
+    @Benchmark
+    public ConfigurationNode loadSnapshot() throws IOException {
+        snapshot.tryLoad();
+        return snapshot.yaml;
+    }
+}
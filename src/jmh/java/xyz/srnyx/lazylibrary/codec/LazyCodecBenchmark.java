@@ -0,0 +1,131 @@
+package xyz.srnyx.lazylibrary.codec;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.spongepowered.configurate.ConfigurateException;
+import org.spongepowered.configurate.ConfigurationNode;
+import org.spongepowered.configurate.yaml.NodeStyle;
+import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
+
+import xyz.srnyx.lazylibrary.LazyEmbed;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares encoding and decoding a {@link LazyEmbed} with {@link LazyBinary}, {@link LazyJson} (both {@link LazyJson.Format formats}), and the {@link LazyEmbed#toMap() map form} written as YAML
+ * <br>Run with {@code ./gradlew jmh}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyCodecBenchmark {
+    /**
+     * The number of fields in the embed
+     */
+    @Param({"0", "10"})
+    public int fields;
+
+    /**
+     * The embed to encode
+     */
+    private LazyEmbed embed;
+    /**
+     * {@link #embed} encoded with {@link LazyBinary}
+     */
+    private ByteBuffer binary;
+    /**
+     * {@link #embed} encoded with {@link LazyJson} in the {@link LazyJson.Format#MAP map format}
+     */
+    private ByteBuffer json;
+    /**
+     * {@link #embed} encoded with {@link LazyJson} in the {@link LazyJson.Format#DATA Discord format}
+     */
+    private ByteBuffer data;
+    /**
+     * {@link #embed} written as YAML
+     */
+    private String yaml;
+
+    /**
+     * Creates and encodes the embed
+     *
+     * @throws  ConfigurateException    if the YAML can't be written
+     */
+    @Setup
+    public void setup() throws ConfigurateException {
+        embed = new LazyEmbed()
+                .setColor(0x123456)
+                .setAuthor("author", "https://example.com/author", "https://example.com/author.png")
+                .setTitle("title", "https://example.com/title")
+                .setDescription("A description that is a bit longer than the other values, like most descriptions are")
+                .setThumbnail("https://example.com/thumbnail.png")
+                .setFooter("footer", "https://example.com/footer.png")
+                .setTimestamp(Instant.ofEpochSecond(1700000000));
+        for (int i = 0; i < fields; i++) embed.addField("name " + i, "value " + i, i % 2 == 0);
+        binary = LazyBinary.encodeEmbed(embed);
+        json = LazyJson.encodeEmbed(embed, LazyJson.Format.MAP);
+        data = LazyJson.encodeEmbed(embed, LazyJson.Format.DATA);
+        yaml = yamlLoader().buildAndSaveString(yamlLoader().build().createNode().set(embed.toMap()));
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinary() {
+        return LazyBinary.encodeEmbed(embed);
+    }
+
+    @Benchmark
+    public LazyEmbed decodeBinary() {
+        return LazyBinary.readEmbed(binary.duplicate());
+    }
+
+    @Benchmark
+    public ByteBuffer encodeJson() {
+        return LazyJson.encodeEmbed(embed, LazyJson.Format.MAP);
+    }
+
+    @Benchmark
+    public LazyEmbed decodeJson() throws IOException {
+        return LazyJson.decodeEmbed(json.duplicate());
+    }
+
+    @Benchmark
+    public ByteBuffer encodeData() {
+        return LazyJson.encodeEmbed(embed, LazyJson.Format.DATA);
+    }
+
+    @Benchmark
+    public LazyEmbed decodeData() throws IOException {
+        return LazyJson.decodeEmbed(data.duplicate());
+    }
+
+    @Benchmark
+    public String encodeYaml() throws ConfigurateException {
+        final YamlConfigurationLoader.Builder loader = yamlLoader();
+        return loader.buildAndSaveString(loader.build().createNode().set(embed.toMap()));
+    }
+
+    @Benchmark
+    public LazyEmbed decodeYaml() throws ConfigurateException {
+        final ConfigurationNode node = yamlLoader().buildAndLoadString(yaml);
+        return new LazyEmbed(node);
+    }
+
+    /**
+     * Creates a YAML loader builder like {@link xyz.srnyx.lazylibrary.LazyFile LazyFile's}
+     *
+     * @return  the builder
+     */
+    @NotNull
+    private static YamlConfigurationLoader.Builder yamlLoader() {
+        return YamlConfigurationLoader.builder().nodeStyle(NodeStyle.BLOCK);
+    }
+}
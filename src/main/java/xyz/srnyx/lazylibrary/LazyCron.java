@@ -0,0 +1,242 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * A cron expression with 5 fields ({@code minute hour day-of-month month day-of-week}), used for {@link LazyScheduler#scheduleCron(String, Runnable, LazyCron, java.time.ZoneId) cron jobs}
+ * <br>Each field can be {@code *}, a value, a range ({@code 1-5}), a step ({@code *}{@code /15}, {@code 0-30/10}, or {@code 5/10}), or a comma-separated list of those
+ * <br>Months and days of the week can also be written as 3-letter names ({@code JAN}, {@code MON}), and Sunday is both {@code 0} and {@code 7}
+ * <br>Like in standard cron, if both the day of the month and the day of the week are restricted, a day matches if either of them matches
+ * <br>The macros {@code @yearly}, {@code @monthly}, {@code @weekly}, {@code @daily}, and {@code @hourly} are also supported
+ */
+public class LazyCron extends Stringable {
+    /**
+     * The names of the months (index {@code 0} is January)
+     */
+    @NotNull private static final List<String> MONTHS = List.of("JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC");
+    /**
+     * The names of the days of the week (index {@code 0} is Sunday)
+     */
+    @NotNull private static final List<String> DAYS_OF_WEEK = List.of("SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT");
+    /**
+     * How many years to search for the next time before giving up (for expressions that never match, like {@code 0 0 30 2 *})
+     */
+    private static final int MAX_YEARS = 5;
+
+    /**
+     * The expression
+     */
+    @NotNull public final String expression;
+    /**
+     * The matching minutes (bit {@code 0} to {@code 59})
+     */
+    private final long minutes;
+    /**
+     * The matching hours (bit {@code 0} to {@code 23})
+     */
+    private final long hours;
+    /**
+     * The matching days of the month (bit {@code 1} to {@code 31})
+     */
+    private final long daysOfMonth;
+    /**
+     * The matching months (bit {@code 1} to {@code 12})
+     */
+    private final long months;
+    /**
+     * The matching days of the week (bit {@code 0} to {@code 6}, {@code 0} is Sunday)
+     */
+    private final long daysOfWeek;
+    /**
+     * Whether the day of the month is restricted (doesn't start with {@code *})
+     */
+    private final boolean daysOfMonthRestricted;
+    /**
+     * Whether the day of the week is restricted (doesn't start with {@code *})
+     */
+    private final boolean daysOfWeekRestricted;
+
+    /**
+     * Parses a cron expression
+     *
+     * @param   expression                  the expression
+     *
+     * @throws  IllegalArgumentException    if the expression is invalid
+     */
+    public LazyCron(@NotNull String expression) {
+        this.expression = expression;
+        final String[] fields = expandMacro(expression.trim()).split("\\s+");
+        if (fields.length != 5) throw new IllegalArgumentException("Cron expression must have 5 fields: " + expression);
+        minutes = parseField(fields[0], 0, 59, null);
+        hours = parseField(fields[1], 0, 23, null);
+        daysOfMonth = parseField(fields[2], 1, 31, null);
+        months = parseField(fields[3], 1, 12, MONTHS);
+        final long parsedDaysOfWeek = parseField(fields[4], 0, 7, DAYS_OF_WEEK);
+        // 7 is also Sunday
+        daysOfWeek = (parsedDaysOfWeek | (parsedDaysOfWeek >>> 7)) & 0x7F;
+        daysOfMonthRestricted = !fields[2].startsWith("*");
+        daysOfWeekRestricted = !fields[4].startsWith("*");
+    }
+
+    /**
+     * Gets the next time that matches the expression
+     *
+     * @param   after                       the time to start from (not included)
+     *
+     * @return                              the next matching time (at the start of the minute, in the zone of {@code after})
+     *
+     * @throws  IllegalArgumentException    if the expression doesn't match within {@value #MAX_YEARS} years
+     */
+    @NotNull
+    public ZonedDateTime next(@NotNull ZonedDateTime after) {
+        ZonedDateTime time = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        final int maxYear = time.getYear() + MAX_YEARS;
+        while (time.getYear() <= maxYear) {
+            if (!has(months, time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+                continue;
+            }
+            if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            if (!has(hours, time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            if (!has(minutes, time.getMinute())) {
+                time = time.plusMinutes(1);
+                continue;
+            }
+            return time;
+        }
+        throw new IllegalArgumentException("Cron expression never matches: " + expression);
+    }
+
+    /**
+     * Checks if the day of a time matches
+     *
+     * @param   time    the time
+     *
+     * @return          {@code true} if the day matches
+     */
+    private boolean matchesDay(@NotNull ZonedDateTime time) {
+        final boolean dayOfMonth = has(daysOfMonth, time.getDayOfMonth());
+        final boolean dayOfWeek = has(daysOfWeek, time.getDayOfWeek().getValue() % 7);
+        if (daysOfMonthRestricted && daysOfWeekRestricted) return dayOfMonth || dayOfWeek;
+        return dayOfMonth && dayOfWeek;
+    }
+
+    /**
+     * Checks if a bit is set
+     *
+     * @param   bits    the bits
+     * @param   value   the bit to check
+     *
+     * @return          {@code true} if the bit is set
+     */
+    private static boolean has(long bits, int value) {
+        return (bits & (1L << value)) != 0;
+    }
+
+    /**
+     * Expands a macro (like {@code @daily}) into its expression
+     *
+     * @param   expression                  the expression
+     *
+     * @return                              the expanded expression, or the expression if it isn't a macro
+     *
+     * @throws  IllegalArgumentException    if the macro is unknown
+     */
+    @NotNull
+    private static String expandMacro(@NotNull String expression) {
+        if (!expression.startsWith("@")) return expression;
+        return switch (expression.toLowerCase(Locale.ROOT)) {
+            case "@yearly", "@annually" -> "0 0 1 1 *";
+            case "@monthly" -> "0 0 1 * *";
+            case "@weekly" -> "0 0 * * 0";
+            case "@daily", "@midnight" -> "0 0 * * *";
+            case "@hourly" -> "0 * * * *";
+            default -> throw new IllegalArgumentException("Unknown cron macro: " + expression);
+        };
+    }
+
+    /**
+     * Parses a field into bits
+     *
+     * @param   field                       the field
+     * @param   min                         the minimum value
+     * @param   max                         the maximum value
+     * @param   names                       the names of the values (index {@code 0} is {@code min}), or {@code null} if there are none
+     *
+     * @return                              the bits of the matching values
+     *
+     * @throws  IllegalArgumentException    if the field is invalid
+     */
+    private static long parseField(@NotNull String field, int min, int max, @Nullable List<String> names) {
+        long bits = 0;
+        for (final String part : field.split(",")) {
+            // Step
+            final int slash = part.indexOf('/');
+            final String range = slash == -1 ? part : part.substring(0, slash);
+            final int step = slash == -1 ? 1 : parseValue(part.substring(slash + 1), 1, max, null, field);
+
+            // Range
+            final int start;
+            final int end;
+            if (range.equals("*")) {
+                start = min;
+                end = max;
+            } else {
+                final int dash = range.indexOf('-');
+                if (dash == -1) {
+                    start = parseValue(range, min, max, names, field);
+                    end = slash == -1 ? start : max;
+                } else {
+                    start = parseValue(range.substring(0, dash), min, max, names, field);
+                    end = parseValue(range.substring(dash + 1), min, max, names, field);
+                }
+            }
+            if (start > end) throw new IllegalArgumentException("Invalid cron range: " + field);
+            for (int value = start; value <= end; value += step) bits |= 1L << value;
+        }
+        return bits;
+    }
+
+    /**
+     * Parses a value of a field
+     *
+     * @param   value                       the value (a number or a name)
+     * @param   min                         the minimum value
+     * @param   max                         the maximum value
+     * @param   names                       the names of the values (index {@code 0} is {@code min}), or {@code null} if there are none
+     * @param   field                       the whole field (for the error message)
+     *
+     * @return                              the value
+     *
+     * @throws  IllegalArgumentException    if the value is invalid or out of range
+     */
+    private static int parseValue(@NotNull String value, int min, int max, @Nullable List<String> names, @NotNull String field) {
+        if (names != null) {
+            final int index = names.indexOf(value.toUpperCase(Locale.ROOT));
+            if (index != -1) return min + index;
+        }
+        final int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron value: " + field, e);
+        }
+        if (parsed < min || parsed > max) throw new IllegalArgumentException("Cron value out of range (" + min + "-" + max + "): " + field);
+        return parsed;
+    }
+}
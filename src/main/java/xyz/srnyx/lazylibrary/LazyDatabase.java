@@ -0,0 +1,365 @@
+package xyz.srnyx.lazylibrary;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import xyz.srnyx.lazylibrary.settings.DatabasePoolSettings;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+
+/**
+ * The database connection pool of the bot (used for BotCommands components), with pool {@link #getMetrics() metrics} and backoff after connection failures
+ * <br>After a connection fails (other than the pool being busy), {@link #getConnection()} fails right away until the backoff is over, which starts at {@value #MIN_BACKOFF_MILLIS}ms and doubles with each failure in a row (up to {@value #MAX_BACKOFF_MILLIS}ms)
+ * <br>The metrics are also recorded as a periodic {@link PoolEvent JFR event} ({@code xyz.srnyx.lazylibrary.DatabasePool})
+ */
+public class LazyDatabase extends Stringable implements Closeable {
+    /**
+     * The backoff after the first failure in a row
+     */
+    private static final long MIN_BACKOFF_MILLIS = 250;
+    /**
+     * The maximum backoff
+     */
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    /**
+     * The {@link HikariDataSource}
+     */
+    @NotNull public final HikariDataSource dataSource;
+    /**
+     * How long it took to get connections from the pool in nanoseconds
+     */
+    @NotNull private final Histogram acquireNanos = new Histogram();
+    /**
+     * How long connections were borrowed in milliseconds
+     */
+    @NotNull private final Histogram usageMillis = new Histogram();
+    /**
+     * How long it took to open new connections in milliseconds
+     */
+    @NotNull private final Histogram creationMillis = new Histogram();
+    /**
+     * The amount of times getting a connection timed out
+     */
+    @NotNull private final LongAdder timeouts = new LongAdder();
+    /**
+     * The amount of times {@link #getConnection()} failed (including while backing off)
+     */
+    @NotNull private final LongAdder failures = new LongAdder();
+    /**
+     * Records the {@link PoolEvent}
+     */
+    @NotNull private final Runnable eventHook = this::recordEvent;
+    /**
+     * The amount of failures in a row
+     */
+    private int consecutiveFailures;
+    /**
+     * When the backoff is over ({@link System#nanoTime()})
+     */
+    private long backoffUntil;
+    /**
+     * The last failure, used as the cause while backing off
+     */
+    @Nullable private SQLException lastFailure;
+
+    /**
+     * Creates the connection pool (connections are opened in the background, so this doesn't fail if the database is down)
+     *
+     * @param   url         the JDBC URL of the database
+     * @param   settings    the {@link DatabasePoolSettings}
+     * @param   configurer  a {@link Consumer} for the {@link HikariConfig} (for example to set other properties), or {@code null}
+     *                      <br>Setting another {@link HikariConfig#setMetricsTrackerFactory(com.zaxxer.hikari.metrics.MetricsTrackerFactory) metrics tracker factory} disables the latency histograms and the timeout count (the connection counts still work)
+     */
+    public LazyDatabase(@NotNull String url, @NotNull DatabasePoolSettings settings, @Nullable Consumer<HikariConfig> configurer) {
+        final HikariConfig config = new HikariConfig();
+        config.setPoolName("LazyLibrary-database");
+        config.setJdbcUrl(url);
+        config.setInitializationFailTimeout(-1);
+        settings.apply(config);
+        config.setMetricsTrackerFactory((poolName, stats) -> new Tracker());
+        if (configurer != null) configurer.accept(config);
+        dataSource = new HikariDataSource(config);
+        FlightRecorder.addPeriodicEvent(PoolEvent.class, eventHook);
+    }
+
+    /**
+     * Gets a connection from the pool (make sure to close it)
+     *
+     * @return                                  the {@link Connection}
+     *
+     * @throws  SQLTransientConnectionException if backing off after a failure, or if no connection was available in time
+     * @throws  SQLException                    if the connection failed
+     */
+    @NotNull
+    public Connection getConnection() throws SQLException {
+        synchronized (this) {
+            final long remaining = backoffUntil - System.nanoTime();
+            if (consecutiveFailures > 0 && remaining > 0) {
+                failures.increment();
+                throw new SQLTransientConnectionException("Not connecting to the database for " + remaining / 1_000_000 + "ms after " + consecutiveFailures + " failure(s) in a row", lastFailure);
+            }
+        }
+        try {
+            final Connection connection = dataSource.getConnection();
+            synchronized (this) {
+                consecutiveFailures = 0;
+                lastFailure = null;
+            }
+            return connection;
+        } catch (final SQLException e) {
+            failures.increment();
+            // A timeout without a cause only means that all connections are busy, so there's nothing to back off from
+            if (!(e instanceof SQLTransientConnectionException) || e.getCause() != null) synchronized (this) {
+                consecutiveFailures++;
+                final long backoff = Math.min(MAX_BACKOFF_MILLIS, MIN_BACKOFF_MILLIS << Math.min(consecutiveFailures - 1, 16));
+                backoffUntil = System.nanoTime() + backoff * 1_000_000;
+                lastFailure = e;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a connection right away (instead of on first use), printing the error if it fails
+     */
+    public void warmUp() {
+        try {
+            getConnection().close();
+        } catch (final SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the current metrics of the pool
+     * <br>The connection counts are read from the {@link HikariPoolMXBean} of the pool, so they're correct even with another metrics tracker factory
+     *
+     * @return  the {@link Metrics}
+     */
+    @NotNull
+    public Metrics getMetrics() {
+        final HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return new Metrics(
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getTotalConnections(),
+                pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+                timeouts.sum(),
+                failures.sum(),
+                acquireNanos.snapshot(),
+                usageMillis.snapshot(),
+                creationMillis.snapshot());
+    }
+
+    /**
+     * Closes the pool (waiting for borrowed connections to be returned)
+     */
+    @Override
+    public void close() {
+        FlightRecorder.removePeriodicEvent(eventHook);
+        dataSource.close();
+    }
+
+    /**
+     * Records a {@link PoolEvent} with the current {@link #getMetrics() metrics}
+     */
+    private void recordEvent() {
+        final PoolEvent event = new PoolEvent();
+        if (!event.isEnabled()) return;
+        final Metrics metrics = getMetrics();
+        event.active = metrics.active;
+        event.idle = metrics.idle;
+        event.pendingThreads = metrics.pendingThreads;
+        event.timeouts = metrics.timeouts;
+        event.failures = metrics.failures;
+        event.acquireP99 = metrics.acquireNanos.p99();
+        event.commit();
+    }
+
+    /**
+     * A snapshot of the metrics of the pool
+     *
+     * @param   active          the amount of borrowed connections
+     * @param   idle            the amount of connections that aren't borrowed
+     * @param   total           the amount of open connections
+     * @param   pendingThreads  the amount of threads waiting for a connection
+     * @param   timeouts        the amount of times getting a connection timed out
+     * @param   failures        the amount of times {@link #getConnection()} failed (including while backing off)
+     * @param   acquireNanos    how long it took to get connections from the pool in nanoseconds
+     * @param   usageMillis     how long connections were borrowed in milliseconds
+     * @param   creationMillis  how long it took to open new connections in milliseconds
+     */
+    public record Metrics(int active, int idle, int total, int pendingThreads, long timeouts, long failures, @NotNull Histogram.Snapshot acquireNanos, @NotNull Histogram.Snapshot usageMillis, @NotNull Histogram.Snapshot creationMillis) {}
+
+    /**
+     * A lock-free histogram with power of 2 buckets (so percentiles are rounded up to the next power of 2, minus 1)
+     */
+    public static final class Histogram {
+        /**
+         * The amount of values in each bucket (bucket {@code i} holds values that need {@code i} bits)
+         */
+        @NotNull private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+        /**
+         * The sum of all values
+         */
+        @NotNull private final LongAdder sum = new LongAdder();
+        /**
+         * The highest value
+         */
+        @NotNull private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Records a value
+         *
+         * @param   value   the value (negative values are recorded as {@code 0})
+         */
+        public void record(long value) {
+            final long recorded = Math.max(0, value);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(recorded));
+            sum.add(recorded);
+            max.accumulate(recorded);
+        }
+
+        /**
+         * Gets a snapshot of the histogram
+         *
+         * @return  the {@link Snapshot}
+         */
+        @NotNull
+        public Snapshot snapshot() {
+            final long[] counts = new long[buckets.length()];
+            long count = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                count += counts[i];
+            }
+            final long maxValue = max.get();
+            return new Snapshot(count, count == 0 ? 0 : (double) sum.sum() / count, percentile(counts, count, 0.5, maxValue), percentile(counts, count, 0.9, maxValue), percentile(counts, count, 0.99, maxValue), maxValue);
+        }
+
+        /**
+         * Gets a percentile from bucket counts
+         *
+         * @param   counts      the amount of values in each bucket
+         * @param   count       the total amount of values
+         * @param   percentile  the percentile ({@code 0} to {@code 1})
+         * @param   maxValue    the highest value (the result is never higher)
+         *
+         * @return              the upper bound of the bucket of the percentile
+         */
+        private static long percentile(long @NotNull [] counts, long count, double percentile, long maxValue) {
+            if (count == 0) return 0;
+            final long target = (long) Math.ceil(count * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) return Math.min(maxValue, i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+            }
+            return maxValue;
+        }
+
+        /**
+         * A snapshot of a {@link Histogram}
+         *
+         * @param   count   the amount of values
+         * @param   mean    the mean of the values
+         * @param   p50     the 50th percentile (rounded up to the bucket)
+         * @param   p90     the 90th percentile (rounded up to the bucket)
+         * @param   p99     the 99th percentile (rounded up to the bucket)
+         * @param   max     the highest value
+         */
+        public record Snapshot(long count, double mean, long p50, long p90, long p99, long max) {}
+    }
+
+    /**
+     * Records the metrics that Hikari reports
+     */
+    private class Tracker implements IMetricsTracker {
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            creationMillis.record(connectionCreatedMillis);
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireNanos.record(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.record(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+
+    /**
+     * The JFR event periodically recorded with the metrics of the pool
+     */
+    @Name("xyz.srnyx.lazylibrary.DatabasePool")
+    @Label("Database Pool")
+    @Category("LazyLibrary")
+    @Description("The metrics of the database connection pool")
+    @Period("10 s")
+    private static class PoolEvent extends Event {
+        /**
+         * {@link Metrics#active()}
+         */
+        @Label("Active")
+        int active;
+        /**
+         * {@link Metrics#idle()}
+         */
+        @Label("Idle")
+        int idle;
+        /**
+         * {@link Metrics#pendingThreads()}
+         */
+        @Label("Pending Threads")
+        int pendingThreads;
+        /**
+         * {@link Metrics#timeouts()}
+         */
+        @Label("Timeouts")
+        long timeouts;
+        /**
+         * {@link Metrics#failures()}
+         */
+        @Label("Failures")
+        long failures;
+        /**
+         * The 99th percentile of {@link Metrics#acquireNanos()}
+         */
+        @Label("Acquire P99")
+        @Timespan(Timespan.NANOSECONDS)
+        long acquireP99;
+    }
+}
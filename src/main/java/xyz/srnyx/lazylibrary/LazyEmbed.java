@@ -1,9 +1,10 @@
 package xyz.srnyx.lazylibrary;
 
-import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.Role;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -12,9 +13,14 @@ import org.spongepowered.configurate.ConfigurationNode;
 
 import xyz.srnyx.javautilities.parents.Stringable;
 
+import xyz.srnyx.lazylibrary.codec.LazyJson;
 import xyz.srnyx.lazylibrary.settings.LazySettings;
+import xyz.srnyx.lazylibrary.utility.LazyReplacer;
 
 import java.awt.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
@@ -22,6 +28,8 @@ import java.util.*;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 
 /**
@@ -30,17 +38,45 @@ import java.util.function.Consumer;
 @SuppressWarnings("UnusedReturnValue")
 public class LazyEmbed extends Stringable {
     /**
-     * The {@link EmbedBuilder embed builder} that is used to build the {@link MessageEmbed}
+     * Ignored: embeds are {@link #build(LazyLibrary) built} from the fields of this class, so changes made directly to this builder are never included
+     *
+     * @deprecated  use the setters of this class (for example {@link #setDescription(String)} or {@link #addField(MessageEmbed.Field)}) instead, this builder is no longer updated or read
      */
+    @Deprecated
     @NotNull public final EmbedBuilder builder = new EmbedBuilder();
     /**
      * Replacements for all values that will be replaced when building the {@link MessageEmbed}
      */
     @NotNull public final Map<String, String> replacements = new HashMap<>();
+    /**
+     * Replacements whose values are only computed when building, and only if their key appears in the embed (each {@link Supplier} is called at most once per build)
+     *
+     * @see #replace(String, Supplier)
+     */
+    @NotNull public final Map<String, Supplier<?>> lazyReplacements = new HashMap<>();
     /**
      * The {@link Key keys} that are disabled from being set by the {@link LazySettings#embedDefaults}
      */
-    @NotNull public final Set<Key> disabledDefaults = new HashSet<>();
+    @NotNull public final Set<Key> disabledDefaults = new DisabledDefaults();
+    /**
+     * The {@link Key#bit bits} of the {@link #disabledDefaults}
+     */
+    int disabledDefaultsMask;
+    /**
+     * The {@link LazyReplacer} compiled from the keys of {@link #replacements}, {@link #lazyReplacements}, and the extra values of the last build, reused until the keys change (the values are looked up for each build)
+     */
+    @Nullable private volatile CompiledKeys compiledKeys;
+    /**
+     * The key identifying the content of this embed in the {@link LazyEmbedCache}, or {@code null} if it shouldn't be cached
+     * <br>Cleared by all methods that change the content (the {@link #replacements} and {@link #disabledDefaults} are part of the cache key, so they can still be changed)
+     *
+     * @see #cacheKey(Object)
+     */
+    @Nullable private Object cacheKey;
+    /**
+     * All {@link Key keys}, indexed by {@link Key#ordinal() ordinal}
+     */
+    @NotNull private static final Key[] KEYS = Key.values();
 
     /**
      * The color of the embed
@@ -139,7 +175,8 @@ public class LazyEmbed extends Stringable {
      */
     public LazyEmbed(@NotNull LazyEmbed lazyEmbed) {
         replacements.putAll(lazyEmbed.replacements);
-        disabledDefaults.addAll(lazyEmbed.disabledDefaults);
+        lazyReplacements.putAll(lazyEmbed.lazyReplacements);
+        disabledDefaultsMask = lazyEmbed.disabledDefaultsMask;
 
         // Embed data
         setColor(lazyEmbed.color);
@@ -151,6 +188,7 @@ public class LazyEmbed extends Stringable {
         addFields(lazyEmbed.fields);
         setFooter(lazyEmbed.footerText, lazyEmbed.footerIcon);
         setTimestamp(lazyEmbed.timestamp);
+        cacheKey = lazyEmbed.cacheKey;
     }
 
     /**
@@ -179,81 +217,19 @@ public class LazyEmbed extends Stringable {
 
     /**
      * Constructs a new {@link LazyEmbed} from a JSON string
-     * <p><i>Only if the JSON is from {@link MessageEmbed#toData()}</i>
+     * <p><i>Only if the JSON is from {@link MessageEmbed#toData()} or {@link #toMap()} (see {@link LazyJson})</i>
+     * <br>If the JSON is invalid, the {@link LazyEmbed} will be empty
      *
      * @param   json    the JSON string to construct from
      */
     public LazyEmbed(@NotNull String json) {
-        final JsonObject object;
+        final JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
         try {
-            object = JsonParser.parseString(json).getAsJsonObject();
-        } catch (final JsonParseException | IllegalStateException e) {
-            return;
-        }
-
-        // Color
-        final JsonPrimitive newColor = object.getAsJsonPrimitive("color");
-        if (newColor != null) setColor(newColor.getAsInt());
-
-        // Author
-        final JsonObject author = object.getAsJsonObject("author");
-        if (author != null) {
-            final JsonPrimitive name = author.getAsJsonPrimitive("name");
-            if (name != null) {
-                final JsonPrimitive url = author.getAsJsonPrimitive("url");
-                final JsonPrimitive iconUrl = author.getAsJsonPrimitive("icon_url");
-                setAuthor(name.getAsString(), url == null ? null : url.getAsString(), iconUrl == null ? null : iconUrl.getAsString());
-            }
-        }
-
-        // Title
-        final JsonPrimitive title = object.getAsJsonPrimitive("title");
-        if (title != null) {
-            final JsonPrimitive url = object.getAsJsonPrimitive("url");
-            setTitle(title.getAsString(), url == null ? null : url.getAsString());
+            LazyJson.readEmbed(reader, this);
+        } catch (final IOException | IllegalStateException | NumberFormatException | DateTimeException e) {
+            // Invalid JSON, leave empty
         }
-
-        // Description
-        final JsonPrimitive newDescription = object.getAsJsonPrimitive("description");
-        setDescription(newDescription == null ? null : newDescription.getAsString());
-
-        // Fields
-        final JsonArray newFields = object.getAsJsonArray("fields");
-        if (newFields != null) for (final JsonElement field : newFields) {
-            if (!field.isJsonObject()) continue;
-            final JsonObject fieldObject = field.getAsJsonObject();
-            final JsonPrimitive name = fieldObject.getAsJsonPrimitive("name");
-            final JsonPrimitive value = fieldObject.getAsJsonPrimitive("value");
-            if (name == null || value == null) continue;
-            final JsonPrimitive inline = fieldObject.getAsJsonPrimitive("inline");
-            addField(name.getAsString(), value.getAsString(), inline != null && inline.getAsBoolean());
-        }
-
-        // Thumbnail
-        final JsonObject newThumbnail = object.getAsJsonObject("thumbnail");
-        if (newThumbnail != null) {
-            final JsonPrimitive thumbnailUrl = newThumbnail.getAsJsonPrimitive("url");
-            setThumbnail(thumbnailUrl == null ? null : thumbnailUrl.getAsString());
-        }
-
-        // Image
-        final JsonObject newImage = object.getAsJsonObject("image");
-        if (newImage != null) {
-            final JsonPrimitive imageUrl = newImage.getAsJsonPrimitive("url");
-            setImage(imageUrl == null ? null : imageUrl.getAsString());
-        }
-
-        // Footer
-        final JsonObject footer = object.getAsJsonObject("footer");
-        if (footer != null) {
-            final JsonPrimitive newFooterText = footer.getAsJsonPrimitive("text");
-            final JsonPrimitive footerIconUrl = footer.getAsJsonPrimitive("icon_url");
-            setFooter(newFooterText == null ? null : newFooterText.getAsString(), footerIconUrl == null ? null : footerIconUrl.getAsString());
-        }
-
-        // Timestamp
-        final JsonPrimitive newTimestamp = object.getAsJsonPrimitive("timestamp");
-        if (newTimestamp != null) setTimestamp(Instant.ofEpochMilli(newTimestamp.getAsLong()));
     }
 
     /**
@@ -314,8 +290,106 @@ public class LazyEmbed extends Stringable {
         return new LazyEmbed(this);
     }
 
+    /**
+     * Checks if this {@link LazyEmbed} has the same content as another one: the values of all {@link Key keys}, the {@link #fields}, the {@link #replacements}, the {@link #lazyReplacements}, and the {@link #disabledDefaults}
+     * <br>Timestamps are compared as instants
+     *
+     * @param   object  the object to compare with
+     *
+     * @return          {@code true} if the object is a {@link LazyEmbed} with the same content
+     */
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) return true;
+        if (!(object instanceof LazyEmbed other)) return false;
+        return color == other.color
+                && Objects.equals(authorName, other.authorName)
+                && Objects.equals(authorUrl, other.authorUrl)
+                && Objects.equals(authorIcon, other.authorIcon)
+                && Objects.equals(titleText, other.titleText)
+                && Objects.equals(titleUrl, other.titleUrl)
+                && Objects.equals(description, other.description)
+                && Objects.equals(thumbnail, other.thumbnail)
+                && Objects.equals(image, other.image)
+                && Objects.equals(footerText, other.footerText)
+                && Objects.equals(footerIcon, other.footerIcon)
+                && Objects.equals(toInstant(timestamp), toInstant(other.timestamp))
+                && fields.equals(other.fields)
+                && replacements.equals(other.replacements)
+                && lazyReplacements.equals(other.lazyReplacements)
+                && disabledDefaultsMask == other.disabledDefaultsMask;
+    }
+
+    /**
+     * Gets the hash code of the content of this {@link LazyEmbed} (consistent with {@link #equals(Object)})
+     *
+     * @return  the hash code
+     */
+    @Override
+    public int hashCode() {
+        int hash = Objects.hash(color, authorName, authorUrl, authorIcon, titleText, titleUrl, description, thumbnail, image, footerText, footerIcon, toInstant(timestamp), replacements, lazyReplacements, disabledDefaultsMask);
+        // MessageEmbed.Field doesn't implement hashCode
+        for (final MessageEmbed.Field field : fields) hash = 31 * hash + Objects.hash(field.getName(), field.getValue(), field.isInline());
+        return hash;
+    }
+
+    /**
+     * Compares the content of this {@link LazyEmbed} with another one
+     *
+     * @param   other   the {@link LazyEmbed} to compare with
+     *
+     * @return          the differences
+     *
+     * @see             #equals(Object)
+     */
+    @NotNull
+    public Diff diff(@NotNull LazyEmbed other) {
+        final Set<Key> keys = EnumSet.noneOf(Key.class);
+        for (final Key key : KEYS) if (!Objects.equals(getValue(key), other.getValue(key))) keys.add(key);
+        return new Diff(Collections.unmodifiableSet(keys), !fields.equals(other.fields), !replacements.equals(other.replacements) || !lazyReplacements.equals(other.lazyReplacements), disabledDefaultsMask != other.disabledDefaultsMask);
+    }
+
+    /**
+     * Gets the value of a {@link Key} (timestamps as instants)
+     *
+     * @param   key the {@link Key}
+     *
+     * @return      the value
+     */
+    @Nullable
+    private Object getValue(@NotNull Key key) {
+        return switch (key) {
+            case COLOR -> color;
+            case AUTHOR_NAME -> authorName;
+            case AUTHOR_URL -> authorUrl;
+            case AUTHOR_ICON -> authorIcon;
+            case TITLE_TEXT -> titleText;
+            case TITLE_URL -> titleUrl;
+            case DESCRIPTION -> description;
+            case THUMBNAIL -> thumbnail;
+            case IMAGE -> image;
+            case FOOTER_TEXT -> footerText;
+            case FOOTER_ICON -> footerIcon;
+            case TIMESTAMP -> toInstant(timestamp);
+        };
+    }
+
+    /**
+     * Converts a timestamp to an {@link Instant} so timestamps of different types can be compared
+     *
+     * @param   timestamp   the timestamp
+     *
+     * @return              the {@link Instant}, or {@code null} if the timestamp is {@code null}
+     */
+    @Nullable
+    private static Instant toInstant(@Nullable TemporalAccessor timestamp) {
+        if (timestamp == null) return null;
+        return Instant.ofEpochSecond(timestamp.getLong(ChronoField.INSTANT_SECONDS), timestamp.get(ChronoField.NANO_OF_SECOND));
+    }
+
     /**
      * Replaces a key with a value in all parameters of the {@link LazyEmbed embed}
+     * <br>If the value is a {@link Supplier}, this is the same as {@link #replace(String, Supplier)}
      *
      * @param   key     the key to replace
      * @param   value   the value to replace the key with
@@ -324,10 +398,29 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed replace(@NotNull String key, @Nullable Object value) {
+        if (value instanceof Supplier<?> supplier) return replace(key, supplier);
+        lazyReplacements.remove(key);
         replacements.put(key, String.valueOf(value));
         return this;
     }
 
+    /**
+     * Replaces a key with a lazily computed value in all parameters of the {@link LazyEmbed embed}
+     * <br>The {@link Supplier} is only called when building, and only if the key appears in the embed (at most once per build), so expensive values aren't computed for embeds that don't use them
+     *
+     * @param   key         the key to replace
+     * @param   supplier    the {@link Supplier} of the value to replace the key with (converted using {@link String#valueOf(Object)}), or {@code null} to replace the key with {@code "null"} like {@link #replace(String, Object)}
+     *
+     * @return              the {@link LazyEmbed} instance
+     */
+    @NotNull
+    public LazyEmbed replace(@NotNull String key, @Nullable Supplier<?> supplier) {
+        if (supplier == null) return replace(key, (Object) null);
+        replacements.remove(key);
+        lazyReplacements.put(key, supplier);
+        return this;
+    }
+
     /**
      * Replaces multiple keys with values in all parameters of the {@link LazyEmbed embed}
      *
@@ -397,6 +490,22 @@ public class LazyEmbed extends Stringable {
         return this;
     }
 
+    /**
+     * Sets the key that identifies the content of this embed, so its built {@link MessageEmbed MessageEmbeds} can be reused from the {@link LazySettings#embedCache}
+     * <br>The same key must always mean the same content (ignoring the {@link #replacements} and {@link #disabledDefaults}, which are part of the cache key), for example {@code "noPermission"}
+     * <br>Only key embeds that are reused, not ones made from runtime values like error messages or user input: each unique key takes a slot in the shared cache and evicts useful entries
+     * <br>Changing the content of the embed (through its methods) clears the key. Embeds with {@link #lazyReplacements} are never cached
+     *
+     * @param   key the key, or {@code null} to not cache this embed
+     *
+     * @return      the {@link LazyEmbed} instance
+     */
+    @NotNull
+    public LazyEmbed cacheKey(@Nullable Object key) {
+        cacheKey = key;
+        return this;
+    }
+
     /**
      * Convenience method for {@link Factory#Factory(LazyEmbed) new Factory(LazyEmbed)} using this {@link LazyEmbed}
      *
@@ -408,65 +517,179 @@ public class LazyEmbed extends Stringable {
     }
 
     /**
-     * Builds the {@link MessageEmbed}
+     * Builds the {@link MessageEmbed} using the {@link #replacements} and {@link LazySettings#embedDefaults}
+     * <br>This doesn't change the {@link LazyEmbed}, so it can be built any amount of times (from any thread, as long as it isn't being modified at the same time)
      *
      * @param   library the {@link LazyLibrary} instance
      *
      * @return          the {@link MessageEmbed}
+     *
+     * @see             #render(LazyLibrary, Map)
      */
     @NotNull
     public MessageEmbed build(@NotNull LazyLibrary library) {
-        // Replacements
-        if (!replacements.isEmpty()) {
-            // Get replaceable values
-            String authorNameReplace = authorName;
-            String titleTextReplace = titleText;
-            String descriptionReplace = description;
-            String footerTextReplace = footerText;
-
-            // Parse replacements for the values
-            for (final Map.Entry<String, String> entry : replacements.entrySet()) {
-                if (authorNameReplace != null) authorNameReplace = authorNameReplace.replace(entry.getKey(), entry.getValue());
-                if (titleTextReplace != null) titleTextReplace = titleTextReplace.replace(entry.getKey(), entry.getValue());
-                if (descriptionReplace != null) descriptionReplace = descriptionReplace.replace(entry.getKey(), entry.getValue());
-                if (footerTextReplace != null) footerTextReplace = footerTextReplace.replace(entry.getKey(), entry.getValue());
+        return render(library, Collections.emptyMap());
+    }
+
+    /**
+     * Builds the {@link MessageEmbed} using the {@link #replacements}, the given extra replacements, and {@link LazySettings#embedDefaults}
+     * <br>This doesn't change the {@link LazyEmbed}, so a shared {@link LazyEmbed} can be rendered with different values from any thread without {@link #copy() copying} it first (as long as it isn't being modified at the same time)
+     *
+     * @param   library the {@link LazyLibrary} instance
+     * @param   values  extra replacements for this render only, overriding {@link #replacements} with the same key (values are converted using {@link String#valueOf(Object)}, {@link Supplier} values are only called if their key appears, like {@link #replace(String, Supplier)})
+     *
+     * @return          the {@link MessageEmbed}
+     */
+    @NotNull
+    public MessageEmbed render(@NotNull LazyLibrary library, @NotNull Map<String, ?> values) {
+        final LazyEmbedCache cache = library.settings.embedCache;
+        final Object template = cacheKey;
+        if (template == null || !lazyReplacements.isEmpty() || !cache.isEnabled()) return draft(library, values).build();
+
+        // Cache key
+        Map<String, String> merged = replacements;
+        if (!values.isEmpty()) {
+            merged = new HashMap<>(replacements);
+            for (final Map.Entry<String, ?> entry : values.entrySet()) {
+                if (entry.getValue() instanceof Supplier<?>) return draft(library, values).build();
+                merged.put(entry.getKey(), String.valueOf(entry.getValue()));
             }
+        }
+        final LazyEmbedDefaults defaults = library.settings.getEmbedDefaults();
+        final MessageEmbed cached = cache.get(new LazyEmbedCache.Key(template, merged, disabledDefaultsMask, defaults));
+        if (cached != null) return cached;
+
+        // Build and cache
+        final MessageEmbed embed = draft(library, values).build();
+        // Not Map.copyOf, since the replacements can have null values
+        cache.put(new LazyEmbedCache.Key(template, Collections.unmodifiableMap(new HashMap<>(merged)), disabledDefaultsMask, defaults), embed);
+        return embed;
+    }
 
-            // Set the new values
-            setAuthor(authorNameReplace, authorUrl, authorIcon);
-            setTitle(titleTextReplace, titleUrl);
-            setDescription(descriptionReplace);
-            setFooter(footerTextReplace, footerIcon);
-
-            // Fields
-            final List<MessageEmbed.Field> newFields = new ArrayList<>(fields);
-            clearFields();
-            for (final MessageEmbed.Field field : newFields) {
-                // Get name and value
-                String name = field.getName();
-                String value = field.getValue();
-                if (name == null || value == null) continue;
-
-                // Parse replacements for the name and value
-                for (final Map.Entry<String, String> entry : replacements.entrySet()) {
-                    name = name.replace(entry.getKey(), entry.getValue());
-                    value = value.replace(entry.getKey(), entry.getValue());
-                }
+    /**
+     * Splits this embed into as many {@link MessageEmbed MessageEmbeds} as needed to fit its {@link #fields} within Discord's limits
+     *
+     * @param   library the {@link LazyLibrary} instance
+     *
+     * @return          the {@link MessageEmbed MessageEmbeds}, built one at a time as they're iterated
+     *
+     * @see             LazySplitter
+     */
+    @NotNull
+    public Iterator<MessageEmbed> split(@NotNull LazyLibrary library) {
+        return split(library, Collections.emptyIterator());
+    }
 
-                // Add the new field
-                addField(name, value, field.isInline());
+    /**
+     * Splits this embed into as many {@link MessageEmbed MessageEmbeds} as needed to fit its {@link #fields} followed by the given fields within Discord's limits
+     * <br>The given fields are only pulled as the {@link MessageEmbed MessageEmbeds} are iterated, so they can be streamed (for example from a database) without ever being in memory all at once
+     * <br>The {@link #replacements} are applied to the given fields too
+     *
+     * @param   library the {@link LazyLibrary} instance
+     * @param   fields  the fields to add after the {@link #fields} of this embed
+     *
+     * @return          the {@link MessageEmbed MessageEmbeds}, built one at a time as they're iterated
+     *
+     * @see             LazySplitter
+     */
+    @NotNull
+    public Iterator<MessageEmbed> split(@NotNull LazyLibrary library, @NotNull Iterator<MessageEmbed.Field> fields) {
+        // The same replacer (and its resolved values) is used for the header and the streamed fields
+        final BuildReplacer replacer = getReplacer(Collections.emptyMap());
+        final Draft header = draft(library, replacer);
+        final Iterator<MessageEmbed.Field> extra = replacer == null ? fields : new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return fields.hasNext();
+            }
+
+            @Override @NotNull
+            public MessageEmbed.Field next() {
+                final MessageEmbed.Field field = fields.next();
+                return new MessageEmbed.Field(replacer.replace(field.getName()), replacer.replace(field.getValue()), field.isInline(), false);
+            }
+        };
+        final Iterator<MessageEmbed.Field> own = new ArrayList<>(header.fields).iterator();
+        header.fields.clear();
+        return LazySplitter.embeds(header, LazySplitter.concat(List.of(own, extra).iterator()));
+    }
+
+    /**
+     * Resolves the values of the embed using the {@link #replacements}, the given extra replacements, and {@link LazySettings#embedDefaults}
+     *
+     * @param   library the {@link LazyLibrary} instance
+     * @param   values  extra replacements, overriding {@link #replacements} with the same key
+     *
+     * @return          the resolved {@link Draft}
+     */
+    @NotNull
+    Draft draft(@NotNull LazyLibrary library, @NotNull Map<String, ?> values) {
+        return draft(library, getReplacer(values));
+    }
+
+    /**
+     * Resolves the values of the embed using a {@link BuildReplacer} and {@link LazySettings#embedDefaults}
+     *
+     * @param   library     the {@link LazyLibrary} instance
+     * @param   replacer    the {@link BuildReplacer} from {@link #getReplacer(Map)}, or {@code null} if there's nothing to replace
+     *
+     * @return              the resolved {@link Draft}
+     */
+    @NotNull
+    private Draft draft(@NotNull LazyLibrary library, @Nullable BuildReplacer replacer) {
+        // Values
+        final Draft draft = new Draft();
+        draft.color = color;
+        draft.authorUrl = authorUrl;
+        draft.authorIcon = authorIcon;
+        draft.titleUrl = titleUrl;
+        draft.thumbnail = thumbnail;
+        draft.image = image;
+        draft.footerIcon = footerIcon;
+        draft.timestamp = timestamp;
+        if (replacer == null) {
+            draft.authorName = authorName;
+            draft.titleText = titleText;
+            draft.description = description;
+            draft.fields.addAll(fields);
+            draft.footerText = footerText;
+        } else {
+            draft.authorName = replacer.replace(authorName);
+            draft.titleText = replacer.replace(titleText);
+            draft.description = Draft.emptyToNull(replacer.replace(description));
+            draft.footerText = replacer.replace(footerText);
+            for (final MessageEmbed.Field field : fields) {
+                final String name = field.getName();
+                final String value = field.getValue();
+                if (name != null && value != null) draft.fields.add(new MessageEmbed.Field(replacer.replace(name), replacer.replace(value), field.isInline()));
             }
         }
-        
-        // Set defaults
-        for (final Map.Entry<Key, Object> entry : library.settings.embedDefaults.entrySet()) {
-            final Key key = entry.getKey();
-            if (disabledDefaults.contains(key)) continue;
-            final Object value = entry.getValue();
-            if (value != null) key.setter.accept(this, value);
-        }
 
-        return builder.build();
+        // Defaults
+        library.settings.getEmbedDefaults().apply(draft, disabledDefaultsMask);
+        return draft;
+    }
+
+    /**
+     * Gets the {@link BuildReplacer} for the {@link #replacements} and {@link #lazyReplacements} merged with the given values
+     * <br>The keys are only compiled again if they're different from the last build, the values are looked up (and {@link Supplier suppliers} called) when their keys are found
+     *
+     * @param   values  the values, overriding {@link #replacements} and {@link #lazyReplacements} with the same key (converted using {@link String#valueOf(Object)}, {@link Supplier} values are resolved lazily too)
+     *
+     * @return          the {@link BuildReplacer}, or {@code null} if there's nothing to replace
+     */
+    @Nullable
+    private BuildReplacer getReplacer(@NotNull Map<String, ?> values) {
+        if (replacements.isEmpty() && lazyReplacements.isEmpty() && values.isEmpty()) return null;
+        CompiledKeys compiled = compiledKeys;
+        if (compiled == null || !compiled.matches(replacements.keySet(), lazyReplacements.keySet(), values.keySet())) {
+            final Set<String> keys = new LinkedHashSet<>(replacements.keySet());
+            keys.addAll(lazyReplacements.keySet());
+            keys.addAll(values.keySet());
+            compiled = new CompiledKeys(keys);
+            compiledKeys = compiled;
+        }
+        return new BuildReplacer(compiled, values);
     }
 
     /**
@@ -647,8 +870,8 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed setColor(int color) {
-        builder.setColor(color);
         this.color = color;
+        cacheKey = null;
         return this;
     }
 
@@ -688,10 +911,10 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed setAuthor(@Nullable String name, @Nullable String url, @Nullable String iconUrl) {
-        builder.setAuthor(name, url, iconUrl);
         authorName = name;
         authorUrl = url;
         authorIcon = iconUrl;
+        cacheKey = null;
         return this;
     }
 
@@ -717,9 +940,9 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed setTitle(@Nullable String text, @Nullable String url) {
-        builder.setTitle(text, url);
         this.titleText = text;
         this.titleUrl = url;
+        cacheKey = null;
         return this;
     }
 
@@ -733,8 +956,8 @@ public class LazyEmbed extends Stringable {
     @NotNull
     public LazyEmbed setDescription(@Nullable String description) {
         if (description != null && description.isEmpty()) description = null;
-        builder.setDescription(description);
         this.description = description;
+        cacheKey = null;
         return this;
     }
 
@@ -747,8 +970,8 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed setThumbnail(@Nullable String url) {
-        builder.setThumbnail(url);
         this.thumbnail = url;
+        cacheKey = null;
         return this;
     }
 
@@ -761,8 +984,8 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed setImage(@Nullable String url) {
-        builder.setImage(url);
         this.image = url;
+        cacheKey = null;
         return this;
     }
 
@@ -775,8 +998,8 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed addField(@NotNull MessageEmbed.Field field) {
-        builder.addField(field);
         fields.add(field);
+        cacheKey = null;
         return this;
     }
 
@@ -803,8 +1026,8 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed addFields(@NotNull Collection<MessageEmbed.Field> newFields) {
-        newFields.forEach(builder::addField);
         fields.addAll(newFields);
+        cacheKey = null;
         return this;
     }
 
@@ -896,8 +1119,8 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed clearFields() {
-        builder.clearFields();
         fields.clear();
+        cacheKey = null;
         return this;
     }
 
@@ -923,9 +1146,9 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed setFooter(@Nullable String text, @Nullable String iconUrl) {
-        builder.setFooter(text, iconUrl);
         this.footerText = text;
         this.footerIcon = iconUrl;
+        cacheKey = null;
         return this;
     }
 
@@ -938,8 +1161,8 @@ public class LazyEmbed extends Stringable {
      */
     @NotNull
     public LazyEmbed setTimestamp(@Nullable TemporalAccessor timestamp) {
-        builder.setTimestamp(timestamp);
         this.timestamp = timestamp;
+        cacheKey = null;
         return this;
     }
 
@@ -1029,6 +1252,312 @@ public class LazyEmbed extends Stringable {
         }
     }
 
+    /**
+     * A {@link LazyReplacer} compiled from a set of keys (without their values)
+     */
+    private static final class CompiledKeys {
+        /**
+         * The keys, indexed by their key ID
+         */
+        @NotNull private final String[] keys;
+        /**
+         * The keys as a {@link Set}
+         */
+        @NotNull private final Set<String> keySet;
+        /**
+         * The {@link LazyReplacer} that finds the {@link #keys}
+         */
+        @NotNull private final LazyReplacer replacer;
+
+        /**
+         * Compiles the given keys
+         *
+         * @param   keys    the keys
+         */
+        private CompiledKeys(@NotNull Set<String> keys) {
+            this.keys = keys.toArray(new String[0]);
+            this.keySet = keys;
+            this.replacer = new LazyReplacer(keys);
+        }
+
+        /**
+         * Checks if the keys are exactly the union of the given keys
+         *
+         * @param   first   the first keys
+         * @param   second  the second keys
+         * @param   third   the third keys
+         *
+         * @return          {@code true} if the keys are the same
+         */
+        private boolean matches(@NotNull Set<String> first, @NotNull Set<String> second, @NotNull Set<String> third) {
+            int size = first.size();
+            for (final String key : second) if (!first.contains(key)) size++;
+            for (final String key : third) if (!first.contains(key) && !second.contains(key)) size++;
+            return keySet.size() == size && keySet.containsAll(first) && keySet.containsAll(second) && keySet.containsAll(third);
+        }
+    }
+
+    /**
+     * The {@link CompiledKeys} of a single build with its values, each of which is looked up (and converted using {@link String#valueOf(Object)}) once its key is found
+     * <br>This is also how the {@link #lazyReplacements} (and {@link Supplier} values) are resolved: the keys are found in a single pass, so a {@link Supplier} is only called if its key appears (in the texts, or in a value that was inserted), at most once per build
+     */
+    private final class BuildReplacer {
+        /**
+         * The {@link CompiledKeys}
+         */
+        @NotNull private final CompiledKeys compiled;
+        /**
+         * The extra values of the build, overriding {@link #replacements} and {@link #lazyReplacements} with the same key
+         */
+        @NotNull private final Map<String, ?> values;
+        /**
+         * The values that were looked up so far, indexed by key ID
+         */
+        @NotNull private final String[] resolved;
+        /**
+         * {@link #lookup(int)}
+         */
+        @NotNull private final IntFunction<String> lookup = this::lookup;
+
+        /**
+         * Creates a new {@link BuildReplacer}
+         *
+         * @param   compiled    {@link #compiled}
+         * @param   values      {@link #values}
+         */
+        private BuildReplacer(@NotNull CompiledKeys compiled, @NotNull Map<String, ?> values) {
+            this.compiled = compiled;
+            this.values = values;
+            this.resolved = new String[compiled.keys.length];
+        }
+
+        /**
+         * Replaces all keys in the given text
+         *
+         * @param   text    the text
+         *
+         * @return          the replaced text, or {@code null} if the text is {@code null}
+         */
+        @Nullable
+        private String replace(@Nullable String text) {
+            return compiled.replacer.replace(text, lookup);
+        }
+
+        /**
+         * Looks up the value of a key
+         *
+         * @param   id  the key ID
+         *
+         * @return      the value
+         */
+        @NotNull
+        private String lookup(int id) {
+            String value = resolved[id];
+            if (value == null) {
+                final String key = compiled.keys[id];
+                final Object raw;
+                if (values.containsKey(key)) {
+                    raw = values.get(key);
+                } else {
+                    final Supplier<?> supplier = lazyReplacements.get(key);
+                    raw = supplier != null ? supplier : replacements.get(key);
+                }
+                value = String.valueOf(raw instanceof Supplier<?> supplier ? supplier.get() : raw);
+                resolved[id] = value;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * The differences between two {@link LazyEmbed embeds}
+     *
+     * @param   keys                the {@link Key keys} whose values are different
+     * @param   fields              whether the {@link #fields} are different
+     * @param   replacements        whether the {@link #replacements} or {@link #lazyReplacements} are different
+     * @param   disabledDefaults    whether the {@link #disabledDefaults} are different
+     *
+     * @see     #diff(LazyEmbed)
+     */
+    public record Diff(@NotNull Set<Key> keys, boolean fields, boolean replacements, boolean disabledDefaults) {
+        /**
+         * Whether there are no differences
+         *
+         * @return  {@code true} if the embeds have the same content
+         */
+        public boolean isEmpty() {
+            return keys.isEmpty() && !fields && !replacements && !disabledDefaults;
+        }
+    }
+
+    /**
+     * A {@link Set} view of {@link #disabledDefaultsMask}
+     */
+    private final class DisabledDefaults extends AbstractSet<Key> {
+        @Override
+        public int size() {
+            return Integer.bitCount(disabledDefaultsMask);
+        }
+
+        @Override
+        public boolean contains(@Nullable Object object) {
+            return object instanceof Key key && (disabledDefaultsMask & key.bit) != 0;
+        }
+
+        @Override
+        public boolean add(@NotNull Key key) {
+            final int previous = disabledDefaultsMask;
+            disabledDefaultsMask = previous | key.bit;
+            return previous != disabledDefaultsMask;
+        }
+
+        @Override
+        public boolean remove(@Nullable Object object) {
+            if (!(object instanceof Key key)) return false;
+            final int previous = disabledDefaultsMask;
+            disabledDefaultsMask = previous & ~key.bit;
+            return previous != disabledDefaultsMask;
+        }
+
+        @Override
+        public void clear() {
+            disabledDefaultsMask = 0;
+        }
+
+        @Override @NotNull
+        public Iterator<Key> iterator() {
+            return new Iterator<>() {
+                /**
+                 * The bits that haven't been returned yet
+                 */
+                private int remaining = disabledDefaultsMask;
+                /**
+                 * The last returned {@link Key}
+                 */
+                @Nullable private Key last;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining != 0;
+                }
+
+                @Override @NotNull
+                public Key next() {
+                    if (remaining == 0) throw new NoSuchElementException();
+                    final int index = Integer.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    last = KEYS[index];
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) throw new IllegalStateException();
+                    disabledDefaultsMask &= ~last.bit;
+                    last = null;
+                }
+            };
+        }
+    }
+
+    /**
+     * The resolved (replaced) values of an embed that is being built, which the {@link LazySettings#embedDefaults} are applied to
+     * <br>Used to build {@link MessageEmbed MessageEmbeds} without changing the embed/template they came from
+     */
+    static final class Draft {
+        /**
+         * The {@link EmbedBuilder} of each thread, reused for every build since {@link #build()} sets all of its values
+         */
+        @NotNull private static final ThreadLocal<EmbedBuilder> BUILDER = ThreadLocal.withInitial(EmbedBuilder::new);
+
+        /**
+         * {@link LazyEmbed#color}
+         */
+        int color;
+        /**
+         * {@link LazyEmbed#authorName}
+         */
+        @Nullable String authorName;
+        /**
+         * {@link LazyEmbed#authorUrl}
+         */
+        @Nullable String authorUrl;
+        /**
+         * {@link LazyEmbed#authorIcon}
+         */
+        @Nullable String authorIcon;
+        /**
+         * {@link LazyEmbed#titleText}
+         */
+        @Nullable String titleText;
+        /**
+         * {@link LazyEmbed#titleUrl}
+         */
+        @Nullable String titleUrl;
+        /**
+         * {@link LazyEmbed#description}
+         */
+        @Nullable String description;
+        /**
+         * {@link LazyEmbed#thumbnail}
+         */
+        @Nullable String thumbnail;
+        /**
+         * {@link LazyEmbed#image}
+         */
+        @Nullable String image;
+        /**
+         * {@link LazyEmbed#fields}
+         */
+        @NotNull final List<MessageEmbed.Field> fields = new ArrayList<>();
+        /**
+         * {@link LazyEmbed#footerText}
+         */
+        @Nullable String footerText;
+        /**
+         * {@link LazyEmbed#footerIcon}
+         */
+        @Nullable String footerIcon;
+        /**
+         * {@link LazyEmbed#timestamp}
+         */
+        @Nullable TemporalAccessor timestamp;
+
+        /**
+         * Sets all values on the {@link EmbedBuilder} of the current thread (which is reused for every build) and builds it
+         * <br>A color of {@code 0} means no color
+         *
+         * @return  the {@link MessageEmbed}
+         */
+        @NotNull
+        MessageEmbed build() {
+            final EmbedBuilder builder = BUILDER.get();
+            builder.setColor(color != 0 ? color : Role.DEFAULT_COLOR_RAW);
+            builder.setAuthor(authorName, authorUrl, authorIcon);
+            builder.setTitle(titleText, titleUrl);
+            builder.setDescription(description);
+            builder.setThumbnail(thumbnail);
+            builder.setImage(image);
+            builder.clearFields();
+            for (final MessageEmbed.Field field : fields) builder.addField(field);
+            builder.setFooter(footerText, footerIcon);
+            builder.setTimestamp(timestamp);
+            return builder.build();
+        }
+
+        /**
+         * Converts empty strings to {@code null} (same as {@link #setDescription(String)})
+         *
+         * @param   string  the string
+         *
+         * @return          the string, or {@code null} if it's empty
+         */
+        @Nullable
+        static String emptyToNull(@Nullable String string) {
+            return string == null || string.isEmpty() ? null : string;
+        }
+    }
+
     /**
      * All possible (defaultable) keys an {@link LazyEmbed embed} can have ({@link LazySettings#embedDefaults})
      */
@@ -1107,9 +1636,16 @@ public class LazyEmbed extends Stringable {
         });
 
         /**
-         * The setter for the key
+         * The setter for the key (sets the value if the embed doesn't have one)
+         *
+         * @deprecated  no longer used, defaults are applied by {@link LazyEmbedDefaults} using the {@link #bit bits} of the keys, so this will be removed
          */
+        @Deprecated
         @NotNull public final BiConsumer<LazyEmbed, Object> setter;
+        /**
+         * The bit of the key in bitmasks of keys ({@code 1 << ordinal()})
+         */
+        public final int bit = 1 << ordinal();
 
         /**
          * Creates a new key
@@ -1131,7 +1667,8 @@ public class LazyEmbed extends Stringable {
         return new LazyEmbed()
                 .setColor(Color.RED)
                 .setTitle(LazyEmoji.WARNING_CLEAR + " Unexpected error!")
-                .setDescription("An unexpected error occurred, please try again!\n*If the issue persists, please contact support*");
+                .setDescription("An unexpected error occurred, please try again!\n*If the issue persists, please contact support*")
+                .cacheKey("unexpectedError");
     }
 
     /**
@@ -1160,7 +1697,8 @@ public class LazyEmbed extends Stringable {
         return new LazyEmbed()
                 .setColor(Color.RED)
                 .setTitle(LazyEmoji.NO_CLEAR + " No permission!")
-                .setDescription("You don't have the required permissions to do that!");
+                .setDescription("You don't have the required permissions to do that!")
+                .cacheKey("noPermission");
     }
 
     /**
@@ -1242,6 +1780,7 @@ public class LazyEmbed extends Stringable {
     public static LazyEmbed empty() {
         return new LazyEmbed()
                 .setColor(0x242429)
-                .disableDefaults(Key.values());
+                .disableDefaults(Key.values())
+                .cacheKey("empty");
     }
 }
@@ -0,0 +1,257 @@
+package xyz.srnyx.lazylibrary;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import xyz.srnyx.lazylibrary.settings.LazySettings;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A bounded LRU cache of built {@link MessageEmbed MessageEmbeds} (which are immutable, so they can be sent any amount of times)
+ * <br>Only {@link LazyEmbed embeds} with a {@link LazyEmbed#cacheKey(Object) cache key} are cached, keyed by the cache key, the {@link LazyEmbed#replacements}, the render values, the {@link LazyEmbed#disabledDefaults}, and the active {@link LazySettings#getEmbedDefaults() embed defaults}
+ * <br>Keys are split into stripes that are locked separately, so renders on different threads rarely wait on each other (eviction order is least recently used per stripe)
+ *
+ * @see LazySettings#embedCache
+ */
+public class LazyEmbedCache extends Stringable {
+    /**
+     * The maximum amount of stripes
+     */
+    private static final int MAX_STRIPES = 16;
+
+    /**
+     * The stripes (the amount is a power of 2), replaced when the {@link #maxSize} changes
+     */
+    @NotNull private volatile Stripe[] stripes;
+    /**
+     * The amount of lookups that found a cached {@link MessageEmbed}
+     */
+    @NotNull private final LongAdder hits = new LongAdder();
+    /**
+     * The amount of lookups that didn't find a cached {@link MessageEmbed}
+     */
+    @NotNull private final LongAdder misses = new LongAdder();
+    /**
+     * The amount of {@link MessageEmbed MessageEmbeds} that were removed to make room for new ones
+     */
+    @NotNull private final LongAdder evictions = new LongAdder();
+    /**
+     * The maximum amount of cached {@link MessageEmbed MessageEmbeds} ({@code 0} disables the cache)
+     */
+    private volatile int maxSize;
+
+    /**
+     * Creates a new {@link LazyEmbedCache}
+     *
+     * @param   maxSize {@link #maxSize}
+     */
+    public LazyEmbedCache(int maxSize) {
+        stripes = createStripes(0);
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Gets the cached {@link MessageEmbed} for the given key
+     *
+     * @param   key the key
+     *
+     * @return      the cached {@link MessageEmbed}, or {@code null} if it isn't cached
+     */
+    @Nullable
+    MessageEmbed get(@NotNull Key key) {
+        final Stripe stripe = getStripe(stripes, key);
+        final MessageEmbed embed;
+        synchronized (stripe) {
+            embed = stripe.embeds.get(key);
+        }
+        (embed != null ? hits : misses).increment();
+        return embed;
+    }
+
+    /**
+     * Caches a {@link MessageEmbed}
+     *
+     * @param   key     the key
+     * @param   embed   the {@link MessageEmbed}
+     */
+    void put(@NotNull Key key, @NotNull MessageEmbed embed) {
+        if (maxSize == 0) return;
+        final Stripe stripe = getStripe(stripes, key);
+        synchronized (stripe) {
+            stripe.put(key, embed, evictions);
+        }
+    }
+
+    /**
+     * Whether the cache is enabled
+     *
+     * @return  {@code true} if {@link #maxSize} is greater than {@code 0}
+     */
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Gets {@link #maxSize}
+     *
+     * @return  {@link #maxSize}
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets {@link #maxSize}, removing the least recently used {@link MessageEmbed MessageEmbeds} if there are too many (these don't count as evictions)
+     * <br>The cached {@link MessageEmbed MessageEmbeds} are moved to new stripes sized for the new {@link #maxSize} ({@link MessageEmbed MessageEmbeds} cached by other threads while they're being moved may be dropped)
+     *
+     * @param   maxSize                     the new value of {@link #maxSize} ({@code 0} disables the cache)
+     *
+     * @throws  IllegalArgumentException    if the size is negative
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("Max size cannot be negative");
+        this.maxSize = maxSize;
+        final Stripe[] created = createStripes(maxSize);
+        if (maxSize > 0) for (final Stripe stripe : stripes) synchronized (stripe) {
+            // Least recently used first, so the most recently used ones are kept
+            for (final Map.Entry<Key, MessageEmbed> entry : stripe.embeds.entrySet()) getStripe(created, entry.getKey()).put(entry.getKey(), entry.getValue(), null);
+        }
+        stripes = created;
+    }
+
+    /**
+     * Gets the amount of cached {@link MessageEmbed MessageEmbeds}
+     *
+     * @return  the amount of cached {@link MessageEmbed MessageEmbeds}
+     */
+    public int size() {
+        int size = 0;
+        for (final Stripe stripe : stripes) synchronized (stripe) {
+            size += stripe.embeds.size();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the amount of lookups that found a cached {@link MessageEmbed}
+     *
+     * @return  the amount of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the amount of lookups that didn't find a cached {@link MessageEmbed}
+     *
+     * @return  the amount of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the amount of {@link MessageEmbed MessageEmbeds} that were removed to make room for new ones
+     *
+     * @return  the amount of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Removes all cached {@link MessageEmbed MessageEmbeds} (the counters are kept)
+     */
+    public void clear() {
+        for (final Stripe stripe : stripes) synchronized (stripe) {
+            stripe.embeds.clear();
+        }
+    }
+
+    /**
+     * Creates the stripes for a maximum size, splitting the size between them
+     *
+     * @param   maxSize the maximum amount of cached {@link MessageEmbed MessageEmbeds}
+     *
+     * @return          the stripes
+     */
+    @NotNull
+    private static Stripe[] createStripes(int maxSize) {
+        final int count = maxSize == 0 ? 1 : Integer.highestOneBit(Math.min(MAX_STRIPES, maxSize));
+        final Stripe[] stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) stripes[i] = new Stripe(maxSize / count + (i < maxSize % count ? 1 : 0));
+        return stripes;
+    }
+
+    /**
+     * Gets the stripe of a key
+     *
+     * @param   stripes the stripes
+     * @param   key     the key
+     *
+     * @return          the stripe
+     */
+    @NotNull
+    private static Stripe getStripe(@NotNull Stripe[] stripes, @NotNull Key key) {
+        final int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * A part of the cache, with its own lock and least recently used order
+     */
+    private static final class Stripe {
+        /**
+         * The cached {@link MessageEmbed MessageEmbeds} (least recently used first)
+         */
+        @NotNull private final LinkedHashMap<Key, MessageEmbed> embeds = new LinkedHashMap<>(16, 0.75f, true);
+        /**
+         * The maximum amount of cached {@link MessageEmbed MessageEmbeds} in the stripe
+         */
+        private final int capacity;
+
+        /**
+         * Creates a new {@link Stripe}
+         *
+         * @param   capacity    {@link #capacity}
+         */
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Caches a {@link MessageEmbed}, removing the least recently used one if the stripe is full
+         *
+         * @param   key         the key
+         * @param   embed       the {@link MessageEmbed}
+         * @param   evictions   the counter to increment if one is removed, or {@code null} to not count it
+         */
+        private void put(@NotNull Key key, @NotNull MessageEmbed embed, @Nullable LongAdder evictions) {
+            embeds.put(key, embed);
+            if (embeds.size() <= capacity) return;
+            final Iterator<Key> iterator = embeds.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+            if (evictions != null) evictions.increment();
+        }
+    }
+
+    /**
+     * The key of a cached {@link MessageEmbed}
+     *
+     * @param   template        the {@link LazyEmbed#cacheKey(Object) cache key} of the {@link LazyEmbed}
+     * @param   replacements    the {@link LazyEmbed#replacements} merged with the render values (may contain {@code null} values)
+     * @param   disabled        the {@link LazyEmbed.Key#bit bits} of the {@link LazyEmbed#disabledDefaults}
+     * @param   defaults        the {@link LazyEmbedDefaults} that were applied (compared by identity, since they're recompiled whenever they change)
+     */
+    record Key(@NotNull Object template, @NotNull Map<String, String> replacements, int disabled, @NotNull LazyEmbedDefaults defaults) {}
+}
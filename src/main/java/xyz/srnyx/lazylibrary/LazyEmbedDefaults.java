@@ -0,0 +1,137 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import xyz.srnyx.lazylibrary.settings.LazySettings;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.Map;
+
+
+/**
+ * The {@link LazySettings#embedDefaults} compiled into typed values and a bitmask of the {@link LazyEmbed.Key keys} that have a default
+ * <br>Applying them is a single check per key, without iterating the map or casting the values
+ *
+ * @see LazySettings#getEmbedDefaults()
+ */
+public class LazyEmbedDefaults extends Stringable {
+    /**
+     * {@link LazyEmbedDefaults} without any defaults
+     */
+    @NotNull public static final LazyEmbedDefaults EMPTY = new LazyEmbedDefaults(Map.of());
+
+    /**
+     * The {@link LazyEmbed.Key#bit bits} of the {@link LazyEmbed.Key keys} that have a default
+     */
+    private final int mask;
+    /**
+     * {@link LazyEmbed.Key#COLOR}
+     */
+    private final int color;
+    /**
+     * {@link LazyEmbed.Key#AUTHOR_NAME}
+     */
+    @Nullable private final String authorName;
+    /**
+     * {@link LazyEmbed.Key#AUTHOR_URL}
+     */
+    @Nullable private final String authorUrl;
+    /**
+     * {@link LazyEmbed.Key#AUTHOR_ICON}
+     */
+    @Nullable private final String authorIcon;
+    /**
+     * {@link LazyEmbed.Key#TITLE_TEXT}
+     */
+    @Nullable private final String titleText;
+    /**
+     * {@link LazyEmbed.Key#TITLE_URL}
+     */
+    @Nullable private final String titleUrl;
+    /**
+     * {@link LazyEmbed.Key#DESCRIPTION}
+     */
+    @Nullable private final String description;
+    /**
+     * {@link LazyEmbed.Key#THUMBNAIL}
+     */
+    @Nullable private final String thumbnail;
+    /**
+     * {@link LazyEmbed.Key#IMAGE}
+     */
+    @Nullable private final String image;
+    /**
+     * {@link LazyEmbed.Key#FOOTER_TEXT}
+     */
+    @Nullable private final String footerText;
+    /**
+     * {@link LazyEmbed.Key#FOOTER_ICON}
+     */
+    @Nullable private final String footerIcon;
+    /**
+     * {@link LazyEmbed.Key#TIMESTAMP}
+     */
+    @Nullable private final TemporalAccessor timestamp;
+
+    /**
+     * Compiles the given defaults ({@code null} values are ignored)
+     *
+     * @param   defaults            the defaults ({@link LazySettings#embedDefaults})
+     *
+     * @throws  ClassCastException  if a value isn't of the type its {@link LazyEmbed.Key key} expects
+     */
+    public LazyEmbedDefaults(@NotNull Map<LazyEmbed.Key, Object> defaults) {
+        int newMask = 0;
+        for (final Map.Entry<LazyEmbed.Key, Object> entry : defaults.entrySet()) if (entry.getValue() != null) newMask |= entry.getKey().bit;
+        mask = newMask;
+
+        final Object colorValue = defaults.get(LazyEmbed.Key.COLOR);
+        color = colorValue != null ? (int) colorValue : 0;
+        authorName = (String) defaults.get(LazyEmbed.Key.AUTHOR_NAME);
+        authorUrl = (String) defaults.get(LazyEmbed.Key.AUTHOR_URL);
+        authorIcon = (String) defaults.get(LazyEmbed.Key.AUTHOR_ICON);
+        titleText = (String) defaults.get(LazyEmbed.Key.TITLE_TEXT);
+        titleUrl = (String) defaults.get(LazyEmbed.Key.TITLE_URL);
+        description = LazyEmbed.Draft.emptyToNull((String) defaults.get(LazyEmbed.Key.DESCRIPTION));
+        thumbnail = (String) defaults.get(LazyEmbed.Key.THUMBNAIL);
+        image = (String) defaults.get(LazyEmbed.Key.IMAGE);
+        footerText = (String) defaults.get(LazyEmbed.Key.FOOTER_TEXT);
+        footerIcon = (String) defaults.get(LazyEmbed.Key.FOOTER_ICON);
+        timestamp = (TemporalAccessor) defaults.get(LazyEmbed.Key.TIMESTAMP);
+    }
+
+    /**
+     * Whether there are no defaults
+     *
+     * @return  {@code true} if no {@link LazyEmbed.Key key} has a default
+     */
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    /**
+     * Applies the defaults to all values of the {@link LazyEmbed.Draft} that aren't set (same as the {@link LazyEmbed.Key#setter setters})
+     *
+     * @param   draft       the {@link LazyEmbed.Draft} to apply the defaults to
+     * @param   disabled    the {@link LazyEmbed.Key#bit bits} of the {@link LazyEmbed.Key keys} to skip
+     */
+    void apply(@NotNull LazyEmbed.Draft draft, int disabled) {
+        final int enabled = mask & ~disabled;
+        if (enabled == 0) return;
+        if ((enabled & LazyEmbed.Key.COLOR.bit) != 0 && draft.color == 0) draft.color = color;
+        if ((enabled & LazyEmbed.Key.AUTHOR_NAME.bit) != 0 && draft.authorName == null) draft.authorName = authorName;
+        if ((enabled & LazyEmbed.Key.AUTHOR_URL.bit) != 0 && draft.authorUrl == null) draft.authorUrl = authorUrl;
+        if ((enabled & LazyEmbed.Key.AUTHOR_ICON.bit) != 0 && draft.authorIcon == null) draft.authorIcon = authorIcon;
+        if ((enabled & LazyEmbed.Key.TITLE_TEXT.bit) != 0 && draft.titleText == null) draft.titleText = titleText;
+        if ((enabled & LazyEmbed.Key.TITLE_URL.bit) != 0 && draft.titleUrl == null) draft.titleUrl = titleUrl;
+        if ((enabled & LazyEmbed.Key.DESCRIPTION.bit) != 0 && draft.description == null) draft.description = description;
+        if ((enabled & LazyEmbed.Key.THUMBNAIL.bit) != 0 && draft.thumbnail == null) draft.thumbnail = thumbnail;
+        if ((enabled & LazyEmbed.Key.IMAGE.bit) != 0 && draft.image == null) draft.image = image;
+        if ((enabled & LazyEmbed.Key.FOOTER_TEXT.bit) != 0 && draft.footerText == null) draft.footerText = footerText;
+        if ((enabled & LazyEmbed.Key.FOOTER_ICON.bit) != 0 && draft.footerIcon == null) draft.footerIcon = footerIcon;
+        if ((enabled & LazyEmbed.Key.TIMESTAMP.bit) != 0 && draft.timestamp == null) draft.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,359 @@
+package xyz.srnyx.lazylibrary;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import org.spongepowered.configurate.ConfigurationNode;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import xyz.srnyx.lazylibrary.settings.LazySettings;
+import xyz.srnyx.lazylibrary.utility.LazyReplacer;
+
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+
+/**
+ * An immutable, pre-parsed {@link LazyEmbed} that renders {@link MessageEmbed MessageEmbeds} straight from a map of values
+ * <br>Each text is split into literal and placeholder segments once (per set of placeholder keys), so rendering only has to join the segments
+ * <br>Unlike {@link LazyEmbed#replace(String, Object)}, inserted values are never searched for other placeholders
+ *
+ * @see LazyFile#getTemplate(Object...)
+ */
+public class LazyEmbedTemplate extends Stringable {
+    /**
+     * The maximum amount of placeholder key sets to keep compiled texts for
+     */
+    private static final int MAX_COMPILED = 32;
+
+    /**
+     * The color of the embed
+     */
+    private final int color;
+    /**
+     * The author of the embed
+     */
+    @Nullable private final String authorName;
+    /**
+     * The URL of the author
+     */
+    @Nullable private final String authorUrl;
+    /**
+     * The icon of the author
+     */
+    @Nullable private final String authorIcon;
+    /**
+     * The title of the embed
+     */
+    @Nullable private final String titleText;
+    /**
+     * The URL of the title
+     */
+    @Nullable private final String titleUrl;
+    /**
+     * The description of the embed
+     */
+    @Nullable private final String description;
+    /**
+     * The thumbnail of the embed (right)
+     */
+    @Nullable private final String thumbnail;
+    /**
+     * The image of the embed (below)
+     */
+    @Nullable private final String image;
+    /**
+     * The fields of the embed
+     */
+    @NotNull private final List<MessageEmbed.Field> fields;
+    /**
+     * The footer of the embed
+     */
+    @Nullable private final String footerText;
+    /**
+     * The icon of the footer
+     */
+    @Nullable private final String footerIcon;
+    /**
+     * The timestamp of the embed
+     */
+    @Nullable private final TemporalAccessor timestamp;
+    /**
+     * The {@link LazyEmbed.Key#bit bits} of the {@link LazyEmbed.Key keys} that are disabled from being set by the {@link LazySettings#embedDefaults}
+     */
+    private final int disabledDefaults;
+    /**
+     * The compiled texts for each set of placeholder keys that was rendered with
+     */
+    @NotNull private final Map<Set<String>, Compiled> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Parses a new {@link LazyEmbedTemplate} from a {@link ConfigurationNode} (same format as {@link LazyEmbed#LazyEmbed(ConfigurationNode)})
+     *
+     * @param   node    the {@link ConfigurationNode} to parse
+     */
+    public LazyEmbedTemplate(@NotNull ConfigurationNode node) {
+        final ConfigurationNode authorNode = node.node("author");
+        final ConfigurationNode titleNode = node.node("title");
+        final ConfigurationNode footerNode = node.node("footer");
+        final long timestampValue = node.node("timestamp").getLong();
+
+        color = node.node("color").getInt();
+        authorName = authorNode.node("name").getString();
+        authorUrl = authorNode.node("url").getString();
+        authorIcon = authorNode.node("icon").getString();
+        titleText = titleNode.node("text").getString();
+        titleUrl = titleNode.node("url").getString();
+        description = LazyEmbed.Draft.emptyToNull(node.node("description").getString());
+        thumbnail = node.node("thumbnail").getString();
+        image = node.node("image").getString();
+        final List<MessageEmbed.Field> fieldList = new ArrayList<>();
+        for (final ConfigurationNode field : node.node("fields").childrenList()) {
+            final String name = field.node("name").getString();
+            final String value = field.node("value").getString();
+            if (name != null && value != null) fieldList.add(new MessageEmbed.Field(name, value, field.node("inline").getBoolean()));
+        }
+        fields = List.copyOf(fieldList);
+        footerText = footerNode.node("text").getString();
+        footerIcon = footerNode.node("icon").getString();
+        timestamp = timestampValue != 0 ? Instant.ofEpochMilli(timestampValue) : null;
+        disabledDefaults = 0;
+    }
+
+    /**
+     * Creates a new {@link LazyEmbedTemplate} from the current values of a {@link LazyEmbed}
+     * <br>The {@link LazyEmbed#replacements} of the embed are not copied, they should be passed to {@link #render(LazyLibrary, Map)} instead
+     *
+     * @param   embed   the {@link LazyEmbed} to copy
+     */
+    public LazyEmbedTemplate(@NotNull LazyEmbed embed) {
+        color = embed.color;
+        authorName = embed.authorName;
+        authorUrl = embed.authorUrl;
+        authorIcon = embed.authorIcon;
+        titleText = embed.titleText;
+        titleUrl = embed.titleUrl;
+        description = embed.description;
+        thumbnail = embed.thumbnail;
+        image = embed.image;
+        fields = List.copyOf(embed.fields);
+        footerText = embed.footerText;
+        footerIcon = embed.footerIcon;
+        timestamp = embed.timestamp;
+        disabledDefaults = embed.disabledDefaultsMask;
+    }
+
+    /**
+     * Renders the template without any placeholder values
+     *
+     * @param   library the {@link LazyLibrary} instance (for {@link LazySettings#embedDefaults})
+     *
+     * @return          the {@link MessageEmbed}
+     */
+    @NotNull
+    public MessageEmbed render(@NotNull LazyLibrary library) {
+        return render(library, Collections.emptyMap());
+    }
+
+    /**
+     * Renders the template, replacing each placeholder key with its value ({@link String#valueOf(Object)})
+     *
+     * @param   library the {@link LazyLibrary} instance (for {@link LazySettings#embedDefaults})
+     * @param   values  the placeholder values (key -> value), {@link Supplier} values are only called (once) if their key appears in the template
+     *
+     * @return          the {@link MessageEmbed}
+     */
+    @NotNull
+    public MessageEmbed render(@NotNull LazyLibrary library, @NotNull Map<String, ?> values) {
+        final Compiled texts = getCompiled(values.keySet());
+        final String[] resolved = new String[texts.keys.length];
+        for (int i = 0; i < resolved.length; i++) if (texts.used[i]) {
+            final Object value = values.get(texts.keys[i]);
+            resolved[i] = String.valueOf(value instanceof Supplier<?> supplier ? supplier.get() : value);
+        }
+
+        // Values
+        final LazyEmbed.Draft draft = new LazyEmbed.Draft();
+        draft.color = color;
+        draft.authorName = texts.authorName.render(resolved);
+        draft.authorUrl = authorUrl;
+        draft.authorIcon = authorIcon;
+        draft.titleText = texts.titleText.render(resolved);
+        draft.titleUrl = titleUrl;
+        draft.description = LazyEmbed.Draft.emptyToNull(texts.description.render(resolved));
+        draft.thumbnail = thumbnail;
+        draft.image = image;
+        for (int i = 0; i < fields.size(); i++) {
+            // Reuse fields without placeholders
+            if (texts.fieldNames[i].placeholders.length == 0 && texts.fieldValues[i].placeholders.length == 0) {
+                draft.fields.add(fields.get(i));
+                continue;
+            }
+            final String name = texts.fieldNames[i].render(resolved);
+            final String value = texts.fieldValues[i].render(resolved);
+            if (name != null && value != null) draft.fields.add(new MessageEmbed.Field(name, value, fields.get(i).isInline()));
+        }
+        draft.footerText = texts.footerText.render(resolved);
+        draft.footerIcon = footerIcon;
+        draft.timestamp = timestamp;
+
+        // Defaults
+        library.settings.getEmbedDefaults().apply(draft, disabledDefaults);
+        return draft.build();
+    }
+
+    /**
+     * Gets (or compiles) the texts for the given placeholder keys
+     *
+     * @param   keys    the placeholder keys
+     *
+     * @return          the compiled texts
+     */
+    @NotNull
+    private Compiled getCompiled(@NotNull Set<String> keys) {
+        final Compiled existing = compiled.get(keys);
+        if (existing != null) return existing;
+        if (compiled.size() >= MAX_COMPILED) compiled.clear();
+        final Set<String> copy = Set.copyOf(keys);
+        final Compiled newCompiled = new Compiled(copy.toArray(new String[0]));
+        final Compiled previous = compiled.putIfAbsent(copy, newCompiled);
+        return previous != null ? previous : newCompiled;
+    }
+
+    /**
+     * The texts of the template split into segments for a specific set of placeholder keys
+     */
+    private final class Compiled {
+        /**
+         * The placeholder keys (the segment key IDs are indexes of this)
+         */
+        @NotNull private final String[] keys;
+        /**
+         * Whether each key appears in any text (indexed by key ID)
+         */
+        @NotNull private final boolean[] used;
+        /**
+         * {@link LazyEmbedTemplate#authorName}
+         */
+        @NotNull private final Text authorName;
+        /**
+         * {@link LazyEmbedTemplate#titleText}
+         */
+        @NotNull private final Text titleText;
+        /**
+         * {@link LazyEmbedTemplate#description}
+         */
+        @NotNull private final Text description;
+        /**
+         * The names of {@link LazyEmbedTemplate#fields}
+         */
+        @NotNull private final Text[] fieldNames;
+        /**
+         * The values of {@link LazyEmbedTemplate#fields}
+         */
+        @NotNull private final Text[] fieldValues;
+        /**
+         * {@link LazyEmbedTemplate#footerText}
+         */
+        @NotNull private final Text footerText;
+
+        /**
+         * Compiles the texts of the template for the given keys
+         *
+         * @param   keys    {@link #keys}
+         */
+        private Compiled(@NotNull String[] keys) {
+            this.keys = keys;
+            final LazyReplacer finder = new LazyReplacer(Arrays.asList(keys));
+            authorName = new Text(finder, LazyEmbedTemplate.this.authorName);
+            titleText = new Text(finder, LazyEmbedTemplate.this.titleText);
+            description = new Text(finder, LazyEmbedTemplate.this.description);
+            fieldNames = new Text[fields.size()];
+            fieldValues = new Text[fields.size()];
+            for (int i = 0; i < fields.size(); i++) {
+                final MessageEmbed.Field field = fields.get(i);
+                fieldNames[i] = new Text(finder, field.getName());
+                fieldValues[i] = new Text(finder, field.getValue());
+            }
+            footerText = new Text(finder, LazyEmbedTemplate.this.footerText);
+
+            // Used keys
+            used = new boolean[keys.length];
+            for (final Text text : List.of(authorName, titleText, description, footerText)) text.markUsed(used);
+            for (int i = 0; i < fieldNames.length; i++) {
+                fieldNames[i].markUsed(used);
+                fieldValues[i].markUsed(used);
+            }
+        }
+    }
+
+    /**
+     * A text split into literal and placeholder segments
+     */
+    private static final class Text {
+        /**
+         * The literal segments (one more than {@link #placeholders}), or {@code null} if the text is {@code null}
+         */
+        @Nullable private final String[] literals;
+        /**
+         * The key IDs of the placeholder segments (placeholder {@code i} comes after literal {@code i})
+         */
+        @NotNull private final int[] placeholders;
+
+        /**
+         * Splits the given text into segments
+         *
+         * @param   finder  the {@link LazyReplacer} to find the placeholders with
+         * @param   text    the text to split
+         */
+        private Text(@NotNull LazyReplacer finder, @Nullable String text) {
+            if (text == null) {
+                literals = null;
+                placeholders = new int[0];
+                return;
+            }
+            final int[] matches = finder.find(text);
+            final int count = matches.length / 3;
+            literals = new String[count + 1];
+            placeholders = new int[count];
+            int last = 0;
+            for (int i = 0; i < count; i++) {
+                literals[i] = text.substring(last, matches[i * 3]);
+                placeholders[i] = matches[i * 3 + 2];
+                last = matches[i * 3 + 1];
+            }
+            literals[count] = text.substring(last);
+        }
+
+        /**
+         * Marks the keys of the placeholder segments as used
+         *
+         * @param   used    whether each key is used (indexed by key ID)
+         */
+        private void markUsed(@NotNull boolean[] used) {
+            for (final int placeholder : placeholders) used[placeholder] = true;
+        }
+
+        /**
+         * Joins the segments using the given values
+         *
+         * @param   values  the values of the placeholder keys
+         *
+         * @return          the rendered text, or {@code null} if the text is {@code null}
+         */
+        @Nullable
+        private String render(@NotNull String[] values) {
+            if (literals == null) return null;
+            if (placeholders.length == 0) return literals[0];
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < placeholders.length; i++) builder.append(literals[i]).append(values[placeholders[i]]);
+            return builder.append(literals[placeholders.length]).toString();
+        }
+    }
+}
@@ -1,24 +1,83 @@
 package xyz.srnyx.lazylibrary;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import org.spongepowered.configurate.ConfigurationNode;
+import org.spongepowered.configurate.serialize.SerializationException;
 import org.spongepowered.configurate.yaml.NodeStyle;
 import org.spongepowered.configurate.yaml.YamlConfigurationLoader;
 
 import xyz.srnyx.javautilities.parents.Stringable;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
+import xyz.srnyx.lazylibrary.codec.LazyNodeBinary;
+import xyz.srnyx.lazylibrary.utility.LazyAtomicFiles;
+import xyz.srnyx.lazylibrary.utility.LazyResources;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
 
 
 /**
  * Class for file management (loading, creating, saving, etc...)
+ * <br>Files are always saved atomically (written to a temporary file, synced to disk, then moved over the original, see {@link LazyAtomicFiles}), so a crash while saving can't leave a truncated file
  */
 public class LazyFile extends Stringable {
+    /**
+     * The thread that writes {@link #writeBehind(long) write-behind} saves (cancelled saves are removed right away, so long intervals don't pile up)
+     * <br>Once it's {@link #shutdown(long, TimeUnit) shut down}, scheduled saves are dropped (they're {@link #flushAll() flushed} instead) and new saves are written immediately
+     */
+    @NotNull private static final ScheduledThreadPoolExecutor WRITER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        final Thread thread = new Thread(runnable, "LazyFile-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    static {
+        WRITER.setRemoveOnCancelPolicy(true);
+        WRITER.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+    /**
+     * The {@link #writeBehind(long) write-behind} files that have unsaved changes
+     */
+    @NotNull private static final Set<LazyFile> DIRTY = ConcurrentHashMap.newKeySet();
+    /**
+     * The first bytes of a {@link #snapshots(boolean) snapshot} file (also identifies the version of the format)
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4C5A5301;
+    /**
+     * The first bytes of a {@link #journal(long) journal} file (also identifies the version of the format)
+     */
+    private static final int JOURNAL_MAGIC = 0x4C5A4A01;
+    /**
+     * The length of a {@link #journal(long) journal} header (magic and base sequence number)
+     */
+    private static final int JOURNAL_HEADER_LENGTH = Integer.BYTES + Long.BYTES;
+    /**
+     * The start of the first line of a {@link #journal(long) journaled} file, followed by the sequence number of the last journal entry it contains
+     * <br>Entries up to that number are skipped when the journal is replayed, so a journal left behind by a crash right after the file was written can't overwrite newer values
+     */
+    @NotNull private static final String JOURNAL_SEQUENCE_PREFIX = "# journal-sequence: ";
+    /**
+     * How many times a save copies {@link #yaml} before giving up if it's changed without the file's lock while it's copied
+     */
+    private static final int COPY_ATTEMPTS = 3;
+
     /**
      * The path to the file
      */
@@ -27,6 +86,10 @@ public class LazyFile extends Stringable {
      * Whether the file is a resource to be loaded from the JAR file
      */
     private final boolean isResource;
+    /**
+     * The {@link NodeStyle YML style} of the file
+     */
+    @NotNull private final NodeStyle style;
     /**
      * The {@link File} of the file
      */
@@ -37,8 +100,70 @@ public class LazyFile extends Stringable {
     @NotNull public final YamlConfigurationLoader loader;
     /**
      * The {@link ConfigurationNode YML data} of the file
+     * <br>Replaced with a new node whenever the file is {@link #load() loaded} (including {@link #watch() hot reloads}), so don't keep references to it or its children for long
+     */
+    public volatile ConfigurationNode yaml;
+    /**
+     * The cached {@link LazyEmbedTemplate templates} of the file by their path, cleared when the file is {@link #load() loaded}
+     */
+    @NotNull private final Map<List<Object>, LazyEmbedTemplate> templates = new ConcurrentHashMap<>();
+    /**
+     * Whether {@link #snapshots(boolean) snapshots} are enabled
+     */
+    private volatile boolean snapshots = false;
+    /**
+     * The interval of {@link #writeBehind(long) write-behind} saving in milliseconds ({@code 0} if {@link #save()} writes immediately)
+     */
+    private volatile long writeBehindInterval = 0;
+    /**
+     * Whether there are changes waiting for a {@link #writeBehind(long) write-behind} save
+     */
+    @NotNull private final AtomicBoolean dirty = new AtomicBoolean();
+    /**
+     * The scheduled {@link #writeBehind(long) write-behind} save, cancelled when the file is {@link #flush() flushed} early
+     */
+    @Nullable private volatile ScheduledFuture<?> scheduledWrite;
+    /**
+     * The listeners called after the file is {@link #load() loaded} (including {@link #watch() hot reloads})
+     */
+    @NotNull private final List<Consumer<LazyFile>> loadListeners = new CopyOnWriteArrayList<>();
+    /**
+     * The modification time and size of the file after it was last written by {@link #save()}, used to ignore our own saves when {@link #watch() watching}
+     */
+    @Nullable private volatile List<Object> lastWritten;
+    /**
+     * The size in bytes after which the {@link #journal(long) journal} is compacted ({@code 0} if journaling is disabled)
+     */
+    private volatile long journalThreshold = 0;
+    /**
+     * The open {@link #journal(long) journal} file, or {@code null} if it isn't open
+     */
+    @Nullable private FileChannel journal;
+    /**
+     * The length of the valid part of the {@link #journal(long) journal} file
+     */
+    private long journalLength;
+    /**
+     * The sequence number of the last {@link #journal(long) journal} entry
+     */
+    private long journalSequence;
+    /**
+     * Whether a {@link #journal(long) journal} compaction is scheduled
+     */
+    @NotNull private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    /**
+     * Whether the file was {@link #close() closed} (changes and saves are refused)
+     */
+    private volatile boolean closed;
+    /**
+     * Held while the file is written, so writes (which serialize and replace the file without the file's lock) happen one at a time and in order
+     * <br>Always taken before the file's lock, never while holding it (except when {@link #write()} is called with the file's lock held, see there)
      */
-    public ConfigurationNode yaml;
+    @NotNull private final ReentrantLock writeLock = new ReentrantLock();
+    /**
+     * Whether a {@link #write()} was requested that no write has started since (a running write picks it up instead of waiting for the file's lock)
+     */
+    @NotNull private final AtomicBoolean writeRequested = new AtomicBoolean();
 
     /**
      * Creates a new {@link LazyFile}
@@ -48,23 +173,534 @@ public class LazyFile extends Stringable {
      * @param   isResource  {@link #isResource}
      */
     public LazyFile(@NotNull String pathString, @NotNull NodeStyle style, boolean isResource) {
+        this(pathString, style, isResource, true);
+    }
+
+    /**
+     * Creates a new {@link LazyFile}
+     *
+     * @param   pathString  {@link #pathString}
+     * @param   style       the {@link NodeStyle YML style} of the file
+     * @param   isResource  {@link #isResource}
+     * @param   load        whether to {@link #load() load} the file (if {@code false}, {@link #tryLoad()} must be called before using {@link #yaml})
+     */
+    LazyFile(@NotNull String pathString, @NotNull NodeStyle style, boolean isResource, boolean load) {
         this.pathString = pathString + ".yml";
         this.isResource = isResource;
+        this.style = style;
         this.file = new File(this.pathString);
         this.loader = YamlConfigurationLoader.builder().nodeStyle(style).path(file.toPath()).build();
-        load();
+        if (load) load();
     }
 
     /**
      * Loads the file
      */
     public void load() {
-        if (isResource && !file.exists()) create();
         try {
-            this.yaml = loader.load();
+            tryLoad();
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the file, throwing any error instead of printing it
+     *
+     * <br>A missing resource file is {@link #create() created} first (which prints its own errors, since it can be overridden)
+     *
+     * @throws  IOException if the file couldn't be {@link #create() created} or parsed (the previous {@link #yaml} is kept)
+     *
+     * @see     LazyFileLoader
+     */
+    public void tryLoad() throws IOException {
+        if (isResource && !file.exists()) {
+            create();
+            if (!file.exists()) throw new NoSuchFileException(pathString, null, "Resource file couldn't be created");
+        }
+        loadNode();
+        notifyLoaded();
+    }
+
+    /**
+     * Reads and parses the file, replays the {@link #journal(long) journal}, and swaps in the new {@link #yaml}
+     *
+     * @throws  IOException if the file couldn't be read or parsed (the previous {@link #yaml} is kept)
+     */
+    private void loadNode() throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (final NoSuchFileException e) {
+            bytes = null;
+        }
+        final ConfigurationNode node;
+        long compactedSequence = 0;
+        if (bytes == null) {
+            node = loader.createNode();
+        } else {
+            final int bodyStart = getJournalSequenceLength(bytes);
+            if (bodyStart != 0) compactedSequence = Long.parseLong(new String(bytes, JOURNAL_SEQUENCE_PREFIX.length(), bodyStart - JOURNAL_SEQUENCE_PREFIX.length(), StandardCharsets.US_ASCII).strip());
+            node = snapshots ? loadWithSnapshot(bytes, bodyStart) : parse(bytes, bodyStart);
+        }
+        synchronized (this) {
+            replayJournal(node, compactedSequence);
+            this.yaml = node;
+            templates.clear();
+        }
+    }
+
+    /**
+     * Gets the length of the {@link #JOURNAL_SEQUENCE_PREFIX journal sequence line} at the start of the file's content
+     *
+     * @param   bytes   the content of the file
+     *
+     * @return          the length of the line (including the line break), or {@code 0} if there's no valid one
+     */
+    private static int getJournalSequenceLength(byte @NotNull [] bytes) {
+        final int prefixLength = JOURNAL_SEQUENCE_PREFIX.length();
+        if (bytes.length <= prefixLength) return 0;
+        for (int i = 0; i < prefixLength; i++) if (bytes[i] != JOURNAL_SEQUENCE_PREFIX.charAt(i)) return 0;
+        int end = prefixLength;
+        while (end < bytes.length && bytes[end] >= '0' && bytes[end] <= '9') end++;
+        if (end == prefixLength || end - prefixLength > 18) return 0;
+        if (end < bytes.length && bytes[end] == '\r') end++;
+        return end < bytes.length && bytes[end] == '\n' ? end + 1 : 0;
+    }
+
+    /**
+     * Parses the YAML content of the file
+     *
+     * @param   bytes       the content of the file
+     * @param   offset      where the YAML starts (after the {@link #JOURNAL_SEQUENCE_PREFIX journal sequence line})
+     *
+     * @return              the parsed node
+     *
+     * @throws  IOException if the YAML couldn't be parsed
+     */
+    @NotNull
+    private ConfigurationNode parse(byte @NotNull [] bytes, int offset) throws IOException {
+        final String text = new String(bytes, offset, bytes.length - offset, StandardCharsets.UTF_8);
+        return YamlConfigurationLoader.builder()
+                .nodeStyle(style)
+                .source(() -> new BufferedReader(new StringReader(text)))
+                .build()
+                .load();
+    }
+
+    /**
+     * Calls the {@link #onLoad(Consumer) load listeners} (without holding the file's lock)
+     */
+    private void notifyLoaded() {
+        for (final Consumer<LazyFile> listener : loadListeners) try {
+            listener.accept(this);
+        } catch (final RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Enables or disables snapshots
+     * <br>With snapshots, the parsed data of the file is cached in a binary {@code .snapshot} file next to it, which is read instead of parsing the YAML as long as the file's size, modification time, and checksum didn't change
+     * <br>This applies from the next {@link #load() load}, so to also use the snapshot for the first one, load the file with {@link LazyFileLoader#snapshots(boolean)}
+     *
+     * @param   enabled whether to use snapshots
+     *
+     * @return          {@code this}
+     */
+    @NotNull
+    public LazyFile snapshots(boolean enabled) {
+        snapshots = enabled;
+        return this;
+    }
+
+    /**
+     * Loads the file from its {@link #snapshots(boolean) snapshot} if it's still valid, otherwise parses it and writes a new snapshot
+     *
+     * @param   bytes       the content of the file
+     * @param   offset      where the YAML starts (after the {@link #JOURNAL_SEQUENCE_PREFIX journal sequence line})
+     *
+     * @return              the loaded node
+     *
+     * @throws  IOException if the file couldn't be read or parsed
+     */
+    @NotNull
+    private ConfigurationNode loadWithSnapshot(byte @NotNull [] bytes, int offset) throws IOException {
+        final Path path = file.toPath();
+        final Path snapshot = path.resolveSibling(file.getName() + ".snapshot");
+        final long modified = Files.getLastModifiedTime(path).toMillis();
+        final long checksum = checksum(bytes, 0, bytes.length);
+        final int headerLength = Integer.BYTES + Long.BYTES * 4;
+
+        // Read snapshot
+        if (Files.exists(snapshot)) try {
+            final byte[] data = Files.readAllBytes(snapshot);
+            final ByteBuffer header = ByteBuffer.wrap(data);
+            if (data.length >= headerLength
+                    && header.getInt() == SNAPSHOT_MAGIC
+                    && header.getLong() == bytes.length
+                    && header.getLong() == modified
+                    && header.getLong() == checksum
+                    && header.getLong() == checksum(data, headerLength, data.length - headerLength)) {
+                final ConfigurationNode node = loader.createNode();
+                LazyNodeBinary.read(new DataInputStream(new ByteArrayInputStream(data, headerLength, data.length - headerLength)), node);
+                return node;
+            }
+        } catch (final IOException | RuntimeException e) {
+            // Invalid snapshot, parse the file instead
+        }
+
+        // Parse the bytes that were checked, so the snapshot always matches its key
+        final ConfigurationNode node = parse(bytes, offset);
+
+        // Write snapshot
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try {
+            LazyNodeBinary.write(node, new DataOutputStream(payload));
+        } catch (final IOException e) {
+            // Unsupported value, keep parsing the file
+            Files.deleteIfExists(snapshot);
+            return node;
+        }
+        final byte[] payloadBytes = payload.toByteArray();
+        final ByteBuffer data = ByteBuffer.allocate(headerLength + payloadBytes.length)
+                .putInt(SNAPSHOT_MAGIC)
+                .putLong(bytes.length)
+                .putLong(modified)
+                .putLong(checksum)
+                .putLong(checksum(payloadBytes, 0, payloadBytes.length))
+                .put(payloadBytes)
+                .flip();
+        // Atomic with a unique temporary file, so concurrent loads of the file never read or replace a partial snapshot
+        try {
+            LazyAtomicFiles.write(snapshot, data);
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+        return node;
+    }
+
+    /**
+     * Calculates the {@link CRC32C} checksum of a range of bytes
+     *
+     * @param   bytes   the bytes
+     * @param   offset  the start of the range
+     * @param   length  the length of the range
+     *
+     * @return          the checksum
+     */
+    private static long checksum(byte @NotNull [] bytes, int offset, int length) {
+        final CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return crc.getValue();
+    }
+
+    /**
+     * Enables or disables journaling, for large files that are changed often (for example per-user data)
+     * <br>With journaling, {@link #set(Object, Object...)} and {@link #remove(Object...)} append the changed node to a {@code .journal} file next to the file instead of writing the whole file, so their cost doesn't grow with the file
+     * <br>The journal is replayed when the file is {@link #load() loaded}, and compacted into the file in the background once it's larger than the threshold (which only holds the file's lock to copy {@link #yaml}, so changes don't wait for the compaction to be written)
+     * <br>{@link #save()} always writes the whole file (which also compacts the journal), so changes made directly to {@link #yaml} still need it
+     * <br>The file then starts with a {@code # journal-sequence} comment, which records the journal entries it already contains so they're never replayed over newer values
+     *
+     * @param   thresholdBytes  the size of the journal after which it's compacted ({@code 0} to disable journaling)
+     *
+     * @return                  {@code this}
+     */
+    @NotNull
+    public LazyFile journal(long thresholdBytes) {
+        journalThreshold = Math.max(0, thresholdBytes);
+        return this;
+    }
+
+    /**
+     * Sets the value of a node and saves the change
+     * <br>If {@link #journal(long) journaling} is enabled, only the changed node is written, otherwise this {@link #save() saves} the file
+     *
+     * @param   value                   the new value ({@code null} to remove the node)
+     * @param   path                    the path to the node
+     *
+     * @throws  SerializationException  if the value couldn't be serialized
+     * @throws  IllegalStateException   if the file was closed (for example unloaded by a {@link LazyFileStore})
+     */
+    public void set(@Nullable Object value, @NotNull Object... path) throws SerializationException {
+        synchronized (this) {
+            checkOpen();
+            final ConfigurationNode node = yaml.node(path);
+            node.set(value);
+            if (journalThreshold > 0 && appendJournal(path, node)) return;
+        }
+        save();
+    }
+
+    /**
+     * Changes {@link #yaml} while holding the file's lock (the same one {@link #set(Object, Object...)}, {@link #remove(Object...)}, and saving use), then {@link #save() saves} the file
+     * <br>Use this instead of changing {@link #yaml} directly when the file can be saved from another thread (for example with {@link #writeBehind(long) write-behind} saving), so a save never copies a half-made change
+     *
+     * @param   editor                  the function that changes the node
+     *
+     * @throws  IllegalStateException   if the file was closed (for example unloaded by a {@link LazyFileStore})
+     */
+    public void edit(@NotNull Consumer<ConfigurationNode> editor) {
+        synchronized (this) {
+            checkOpen();
+            editor.accept(yaml);
+        }
+        save();
+    }
+
+    /**
+     * Removes a node and saves the change
+     * <br>If {@link #journal(long) journaling} is enabled, only the removal is written, otherwise this {@link #save() saves} the file
+     *
+     * @param   path                    the path to the node
+     *
+     * @throws  IllegalStateException   if the file was closed (for example unloaded by a {@link LazyFileStore})
+     */
+    public void remove(@NotNull Object... path) {
+        synchronized (this) {
+            checkOpen();
+            final ConfigurationNode node = yaml.node(path);
+            node.raw(null);
+            if (journalThreshold > 0 && appendJournal(path, node)) return;
+        }
+        save();
+    }
+
+    /**
+     * Gets the path of the {@link #journal(long) journal} file
+     *
+     * @return  the path of the journal file
+     */
+    @NotNull
+    private Path getJournalPath() {
+        return file.toPath().resolveSibling(file.getName() + ".journal");
+    }
+
+    /**
+     * Appends a changed node to the {@link #journal(long) journal}, scheduling a compaction if it's too large
+     * <br>Entries are the payload length, the sequence number, the payload (the path and the node), and a {@link CRC32C} checksum of everything before it
+     *
+     * @param   path    the path to the node
+     * @param   node    the node
+     *
+     * @return          {@code true} if the entry was written, {@code false} if the whole file must be saved instead
+     */
+    private synchronized boolean appendJournal(@NotNull Object[] path, @NotNull ConfigurationNode node) {
+        // Encode
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try {
+            final DataOutputStream output = new DataOutputStream(payload);
+            output.writeInt(path.length);
+            for (final Object key : path) LazyNodeBinary.writeScalar(key, output);
+            LazyNodeBinary.write(node, output);
+        } catch (final IOException e) {
+            // Unsupported value
+            return false;
+        }
+        final byte[] payloadBytes = payload.toByteArray();
+        final ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + Long.BYTES * 2 + payloadBytes.length)
+                .putInt(payloadBytes.length)
+                .putLong(journalSequence + 1)
+                .put(payloadBytes);
+        entry.putLong(checksum(entry.array(), 0, entry.position())).flip();
+
+        // Write
+        try {
+            if (journal == null) {
+                journal = FileChannel.open(getJournalPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                if (journalLength < JOURNAL_HEADER_LENGTH) {
+                    final ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_LENGTH).putInt(JOURNAL_MAGIC).putLong(journalSequence).flip();
+                    journal.truncate(0);
+                    while (header.hasRemaining()) journal.write(header, header.position());
+                    journalLength = JOURNAL_HEADER_LENGTH;
+                }
+                journal.truncate(journalLength);
+            }
+            long position = journalLength;
+            while (entry.hasRemaining()) position += journal.write(entry, position);
+            journal.force(false);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            closeJournal();
+            return false;
+        }
+        journalSequence++;
+        journalLength += entry.limit();
+
+        // Compact
+        if (journalLength > journalThreshold && compactionScheduled.compareAndSet(false, true)) try {
+            WRITER.execute(() -> {
+                compactionScheduled.set(false);
+                write();
+            });
+        } catch (final RejectedExecutionException e) {
+            // Shut down, the journal is compacted on the next write instead
+            compactionScheduled.set(false);
+        }
+        return true;
+    }
+
+    /**
+     * Replays the {@link #journal(long) journal} into a node, dropping any incomplete or corrupted entries at its end
+     * <br>Entries the file already contains are skipped, and the journal is deleted if it only has those (it was left behind by a crash right after the file was written)
+     *
+     * @param   node                the node to replay the journal into
+     * @param   compactedSequence   the sequence number of the last entry the file contains (see {@link #JOURNAL_SEQUENCE_PREFIX})
+     *
+     * @throws  IOException         if the journal couldn't be read or isn't a journal
+     */
+    private synchronized void replayJournal(@NotNull ConfigurationNode node, long compactedSequence) throws IOException {
+        closeJournal();
+        journalLength = 0;
+        journalSequence = compactedSequence;
+        final Path journalPath = getJournalPath();
+        if (!Files.exists(journalPath)) return;
+        final ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+        if (data.remaining() < JOURNAL_HEADER_LENGTH) return;
+        if (data.getInt() != JOURNAL_MAGIC) throw new IOException("Invalid journal file: " + journalPath);
+
+        long sequence = data.getLong();
+        int valid = data.position();
+        while (data.remaining() >= Integer.BYTES + Long.BYTES * 2) {
+            final int start = data.position();
+            final int length = data.getInt();
+            if (length < 0 || data.remaining() < Long.BYTES * 2 + length || data.getLong() != sequence + 1) break;
+            final int payloadStart = data.position();
+            data.position(payloadStart + length);
+            if (data.getLong() != checksum(data.array(), start, payloadStart + length - start)) break;
+
+            // Apply (unless the file already contains it)
+            sequence++;
+            valid = data.position();
+            if (sequence <= compactedSequence) continue;
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data.array(), payloadStart, length));
+            final Object[] path = new Object[input.readInt()];
+            for (int i = 0; i < path.length; i++) path[i] = LazyNodeBinary.readScalar(input);
+            node.node(path).raw(null);
+            LazyNodeBinary.read(input, node.node(path));
+        }
+
+        // Stale, everything in it was already written to the file
+        if (sequence <= compactedSequence) {
+            Files.delete(journalPath);
+            return;
+        }
+        journalSequence = sequence;
+        journalLength = valid;
+    }
+
+    /**
+     * Resets the {@link #journal(long) journal} after the whole file was written
+     *
+     * @throws  IOException if the journal couldn't be deleted
+     */
+    private synchronized void resetJournal() throws IOException {
+        closeJournal();
+        journalLength = 0;
+        Files.deleteIfExists(getJournalPath());
+    }
+
+    /**
+     * Closes the {@link #journal(long) journal} file if it's open
+     */
+    private synchronized void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
         } catch (final IOException e) {
             e.printStackTrace();
         }
+        journal = null;
+    }
+
+    /**
+     * Starts watching the file for changes made outside the bot (for example by editing it by hand), {@link #load() reloading} it when it changes
+     * <br>All watched files share one thread, which waits for changes to stop for {@value Watcher#DEBOUNCE_MILLIS}ms before reloading
+     * <br>Changes are ignored while the file has pending {@link #writeBehind(long) write-behind} changes, and the bot's own saves never cause a reload
+     * <br>Does nothing after {@link #shutdown(long, TimeUnit)}, since the watcher thread is stopped for good
+     *
+     * @return  {@code this}
+     *
+     * @see     #onLoad(Consumer)
+     */
+    @NotNull
+    public LazyFile watch() {
+        Watcher.INSTANCE.watch(this);
+        return this;
+    }
+
+    /**
+     * Stops {@link #watch() watching} the file for changes
+     *
+     * @return  {@code this}
+     */
+    @NotNull
+    public LazyFile unwatch() {
+        Watcher.INSTANCE.unwatch(this);
+        return this;
+    }
+
+    /**
+     * Adds a listener that's called (on the loading thread) after the file is {@link #load() loaded}, including {@link #watch() hot reloads}
+     *
+     * @param   listener    the listener
+     *
+     * @return              {@code this}
+     */
+    @NotNull
+    public LazyFile onLoad(@NotNull Consumer<LazyFile> listener) {
+        loadListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Removes a listener added with {@link #onLoad(Consumer)}
+     *
+     * @param   listener    the listener
+     *
+     * @return              {@code this}
+     */
+    @NotNull
+    public LazyFile removeOnLoad(@NotNull Consumer<LazyFile> listener) {
+        loadListeners.remove(listener);
+        return this;
+    }
+
+    /**
+     * {@link #load() Reloads} the file after the {@link Watcher} saw it change, unless the change was our own save or there are unsaved changes
+     */
+    private void reloadChanged() {
+        // Check and reload under the same locks as write(), so a save can't finish in between and be overwritten by the older file
+        writeLock.lock();
+        try {
+            synchronized (this) {
+                if (dirty.get() || !file.exists() || Objects.equals(lastWritten, getFileState())) return;
+                try {
+                    loadNode();
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        notifyLoaded();
+    }
+
+    /**
+     * Gets the modification time and size of the file
+     *
+     * @return  the modification time and size, or {@code null} if they couldn't be read
+     */
+    @Nullable
+    private List<Object> getFileState() {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return List.of(attributes.lastModifiedTime(), attributes.size());
+        } catch (final IOException e) {
+            return null;
+        }
     }
 
     /**
@@ -81,39 +717,236 @@ public class LazyFile extends Stringable {
             return;
         }
 
-        try (final InputStream inputStream = LazyLibrary.class.getClassLoader().getResourceAsStream(pathString);
-             final FileOutputStream outputStream = new FileOutputStream(pathString)) {
-            if (inputStream == null) throw new IOException("Resource not found in JAR file.");
-            final byte [] buffer = new byte[inputStream.available()];
-            int count;
-            while ((count = inputStream.read(buffer)) > 0) outputStream.write(buffer, 0, count);
+        try {
+            LazyResources.extract(pathString, file.toPath(), true);
         } catch (final IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Enables or disables write-behind saving
+     * <br>With write-behind saving, {@link #save()} only marks the file as changed, and all changes within the interval are written together by a background thread
+     * <br>Make sure to call {@link #flushAll()} before exiting (this is done by {@link LazyLibrary#stopBot()})
+     *
+     * @param   intervalMillis  the interval in milliseconds ({@code 0} to disable, which also {@link #flush() flushes} pending changes)
+     *
+     * @return                  {@code this}
+     */
+    @NotNull
+    public LazyFile writeBehind(long intervalMillis) {
+        writeBehindInterval = Math.max(0, intervalMillis);
+        if (intervalMillis <= 0) flush();
+        return this;
+    }
+
     /**
      * Saves the file
+     * <br>If {@link #writeBehind(long) write-behind} saving is enabled, this only schedules a save (if one isn't already scheduled)
+     *
+     * @throws  ConcurrentModificationException if {@link #yaml} kept being changed from another thread without the file's lock while it was copied (use {@link #edit(Consumer)}), the changes are kept in memory
+     * @throws  IllegalStateException           if the file was closed (for example unloaded by a {@link LazyFileStore})
      */
     public void save() {
-        // Cancel if it isn't a resource and is empty (delete if it exists)
-        if (!isResource && yaml.empty()) {
-            if (file.exists()) try {
-                Files.delete(file.toPath());
-            } catch (final IOException e) {
-                e.printStackTrace();
+        checkOpen();
+        final long interval = writeBehindInterval;
+        if (interval <= 0 || WRITER.isShutdown()) {
+            write();
+            return;
+        }
+        if (!dirty.compareAndSet(false, true)) return;
+        DIRTY.add(this);
+        try {
+            scheduledWrite = WRITER.schedule(this::flush, interval, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            // Shut down since it was checked, write now instead
+            flush();
+        }
+    }
+
+    /**
+     * Closes the file, so it can't be changed or saved anymore (used by {@link LazyFileStore} when it unloads the file, so an old instance can't overwrite the file written by a newer one)
+     * <br>Pending {@link #writeBehind(long) write-behind} changes can still be {@link #flush() flushed}
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+            closeJournal();
+        }
+        unwatch();
+    }
+
+    /**
+     * Checks that the file wasn't {@link #close() closed}
+     *
+     * @throws  IllegalStateException   if the file was closed
+     */
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("File was closed (unloaded), get it again: " + pathString);
+    }
+
+    /**
+     * Writes the pending {@link #writeBehind(long) write-behind} changes now (on the calling thread)
+     */
+    public void flush() {
+        final ScheduledFuture<?> scheduled = scheduledWrite;
+        if (scheduled != null) scheduled.cancel(false);
+        DIRTY.remove(this);
+        if (dirty.getAndSet(false)) write();
+    }
+
+    /**
+     * {@link #flush() Flushes} all {@link #writeBehind(long) write-behind} files that have pending changes
+     */
+    public static void flushAll() {
+        for (final LazyFile lazyFile : DIRTY) lazyFile.flush();
+    }
+
+    /**
+     * Stops the background threads (the {@link #watch() watcher} and the {@link #writeBehind(long) write-behind} thread) and {@link #flushAll() flushes} all files
+     * <br>Afterwards, files are no longer reloaded when they change, and write-behind files are written immediately on {@link #save()}
+     *
+     * @param   timeout the maximum time to wait for writes that were already running on the write-behind thread
+     * @param   unit    the {@link TimeUnit} of the timeout
+     *
+     * @return          {@code true} if the write-behind thread finished in time
+     */
+    public static boolean shutdown(long timeout, @NotNull TimeUnit unit) {
+        Watcher.INSTANCE.close();
+        WRITER.shutdown();
+        flushAll();
+        try {
+            return WRITER.awaitTermination(timeout, unit);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the file atomically (see {@link LazyAtomicFiles}), or deletes it if it isn't a resource and is empty
+     * <br>Only copying {@link #yaml} holds the file's lock, so {@link #set(Object, Object...)}, {@link #edit(Consumer)}, and {@link #remove(Object...)} don't wait for the serialization and disk I/O
+     * <br>If called while holding the file's lock (for example from {@link #edit(Consumer)}) while another write is running, that write writes the file again instead, since it needs the lock to finish
+     *
+     * @throws  ConcurrentModificationException if {@link #yaml} kept being changed without the file's lock while it was copied, and the save can't be retried later
+     */
+    private void write() {
+        writeRequested.set(true);
+        while (true) {
+            if (Thread.holdsLock(this)) {
+                if (!writeLock.tryLock()) return;
+            } else {
+                writeLock.lock();
+            }
+            try {
+                while (writeRequested.getAndSet(false)) writeOnce();
+            } finally {
+                writeLock.unlock();
+            }
+            // Requested by a thread that couldn't wait while this one was finishing
+            if (!writeRequested.get()) return;
+        }
+    }
+
+    /**
+     * Copies {@link #yaml} under the file's lock, then serializes and writes the copy without it (must hold the {@link #writeLock})
+     *
+     * @throws  ConcurrentModificationException if {@link #yaml} kept being changed without the file's lock while it was copied, and the save can't be retried later
+     */
+    private void writeOnce() {
+        final Path path = file.toPath();
+        final ConfigurationNode copy;
+        final long sequence;
+        synchronized (this) {
+            // Cancel if it isn't a resource and is empty (delete if it exists)
+            if (!isResource && yaml.empty()) {
+                try {
+                    Files.deleteIfExists(path);
+                    resetJournal();
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+                lastWritten = null;
+                return;
             }
+
+            // Copy (under the same lock as set(), remove(), and edit(), so their changes can't interleave)
+            try {
+                copy = copyNode();
+            } catch (final ConcurrentModificationException e) {
+                // Changed without the lock every time, try again later or let the caller know (the changes are still in memory)
+                if (writeBehindInterval > 0 && !WRITER.isShutdown() && !closed) {
+                    save();
+                    return;
+                }
+                throw e;
+            }
+            sequence = journalSequence;
+        }
+
+        // Serialize
+        final StringWriter writer = new StringWriter();
+        try {
+            YamlConfigurationLoader.builder()
+                    .nodeStyle(style)
+                    .sink(() -> new BufferedWriter(writer))
+                    .build()
+                    .save(copy);
+        } catch (final IOException e) {
+            e.printStackTrace();
             return;
         }
 
-        // Save file
+        // Replace the file (recording which journal entries it contains, if it's journaled)
+        final String content = journalThreshold > 0 || sequence > 0 ? JOURNAL_SEQUENCE_PREFIX + sequence + "\n" + writer : writer.toString();
         try {
-            loader.save(yaml);
+            LazyAtomicFiles.write(path, StandardCharsets.UTF_8.encode(content));
         } catch (final IOException e) {
             e.printStackTrace();
+            return;
+        }
+        synchronized (this) {
+            lastWritten = getFileState();
+            // Entries appended while writing aren't in the file, so keep them (the file's sequence makes loading skip the others)
+            if (journalSequence == sequence) try {
+                resetJournal();
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
         }
     }
 
+    /**
+     * Copies {@link #yaml}, trying again up to {@value #COPY_ATTEMPTS} times if it's changed (without the file's lock) while it's copied
+     *
+     * @return                                      the copy
+     *
+     * @throws  ConcurrentModificationException     if the node was changed during every attempt
+     */
+    @NotNull
+    private synchronized ConfigurationNode copyNode() {
+        for (int attempt = 1;; attempt++) try {
+            return yaml.copy();
+        } catch (final ConcurrentModificationException e) {
+            if (attempt >= COPY_ATTEMPTS) throw e;
+        }
+    }
+
+    /**
+     * Creates a {@link LazyView} of a node in the file
+     *
+     * @param   factory the function that creates the value from the node (virtual if it doesn't exist)
+     * @param   path    the path to the node (empty for the root node)
+     *
+     * @return          the {@link LazyView}
+     *
+     * @param   <T>     the type of the value
+     */
+    @NotNull
+    public <T> LazyView<T> view(@NotNull Function<ConfigurationNode, T> factory, @NotNull Object... path) {
+        return new LazyView<>(this, factory, path);
+    }
+
     /**
      * Gets a {@link LazyEmbed} from the file
      *
@@ -125,4 +958,200 @@ public class LazyFile extends Stringable {
     public LazyEmbed getEmbed(@NotNull Object... path) {
         return new LazyEmbed(yaml.node(path));
     }
+
+    /**
+     * Gets a {@link LazyEmbedTemplate} from the file
+     * <br>The template is only parsed once and cached until the file is {@link #load() loaded} again
+     *
+     * @param   path    the path to the embed
+     *
+     * @return          the {@link LazyEmbedTemplate}
+     */
+    @NotNull
+    public LazyEmbedTemplate getTemplate(@NotNull Object... path) {
+        final List<Object> key = List.of(path);
+        final LazyEmbedTemplate cached = templates.get(key);
+        if (cached != null) return cached;
+        // Parse under the same lock that swaps the yaml and clears the cache, so a template of the old yaml can't be cached after a reload
+        synchronized (this) {
+            return templates.computeIfAbsent(key, k -> new LazyEmbedTemplate(yaml.node(path)));
+        }
+    }
+
+    /**
+     * The shared thread that watches the directories of {@link #watch() watched} files and reloads them once their changes settle
+     */
+    private static final class Watcher implements Runnable {
+        /**
+         * How long a file must stay unchanged before it's reloaded
+         */
+        private static final long DEBOUNCE_MILLIS = 500;
+        /**
+         * The shared {@link Watcher}
+         */
+        @NotNull private static final Watcher INSTANCE = new Watcher();
+
+        /**
+         * The {@link WatchService}, or {@code null} if the thread wasn't started yet or was {@link #close() closed}
+         */
+        @Nullable private WatchService service;
+        /**
+         * Whether the watcher was {@link #close() closed}
+         */
+        private boolean closed;
+        /**
+         * The {@link WatchKey keys} of the watched directories
+         */
+        @NotNull private final Map<Path, WatchKey> directories = new HashMap<>();
+        /**
+         * The watched files by their absolute path
+         */
+        @NotNull private final Map<Path, Set<LazyFile>> files = new HashMap<>();
+        /**
+         * When each changed file should be reloaded ({@link System#nanoTime()})
+         */
+        @NotNull private final Map<LazyFile, Long> deadlines = new HashMap<>();
+
+        /**
+         * Starts watching a file (does nothing once the watcher is {@link #close() closed})
+         *
+         * @param   lazyFile    the file
+         */
+        private synchronized void watch(@NotNull LazyFile lazyFile) {
+            if (closed) return;
+            final Path path = lazyFile.file.toPath().toAbsolutePath().normalize();
+            final Path directory = path.getParent();
+            try {
+                if (service == null) {
+                    service = FileSystems.getDefault().newWatchService();
+                    final Thread thread = new Thread(this, "LazyFile-watcher");
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                if (!directories.containsKey(directory)) {
+                    Files.createDirectories(directory);
+                    directories.put(directory, directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+                }
+            } catch (final IOException | ClosedWatchServiceException e) {
+                e.printStackTrace();
+                return;
+            }
+            files.computeIfAbsent(path, key -> new HashSet<>()).add(lazyFile);
+        }
+
+        /**
+         * Stops watching a file
+         *
+         * @param   lazyFile    the file
+         */
+        private synchronized void unwatch(@NotNull LazyFile lazyFile) {
+            final Path path = lazyFile.file.toPath().toAbsolutePath().normalize();
+            final Set<LazyFile> watched = files.get(path);
+            if (watched == null || !watched.remove(lazyFile)) return;
+            deadlines.remove(lazyFile);
+            if (!watched.isEmpty()) return;
+            files.remove(path);
+
+            // Stop watching the directory if nothing else in it is watched
+            final Path directory = path.getParent();
+            if (files.keySet().stream().noneMatch(file -> file.getParent().equals(directory))) {
+                final WatchKey key = directories.remove(directory);
+                if (key != null) key.cancel();
+            }
+        }
+
+        /**
+         * Stops the thread (files can't be watched afterwards, {@link #watch(LazyFile)} does nothing)
+         */
+        private synchronized void close() {
+            closed = true;
+            if (service == null) return;
+            try {
+                service.close();
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+            service = null;
+            directories.clear();
+            files.clear();
+            deadlines.clear();
+        }
+
+        @Override
+        public void run() {
+            final WatchService watchService;
+            synchronized (this) {
+                watchService = service;
+            }
+            // Closed before the thread started
+            if (watchService == null) return;
+            while (true) {
+                // Wait for a change (or the next reload)
+                final WatchKey key;
+                try {
+                    final long wait = nextWait();
+                    key = wait < 0 ? watchService.take() : watchService.poll(wait, TimeUnit.NANOSECONDS);
+                } catch (final InterruptedException | ClosedWatchServiceException e) {
+                    return;
+                }
+                if (key != null) onChange(key);
+
+                // Reload files that stopped changing
+                for (final LazyFile lazyFile : takeDue()) try {
+                    lazyFile.reloadChanged();
+                } catch (final RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * Gets how long to wait for the next change
+         *
+         * @return  the time in nanoseconds until the next reload, or {@code -1} to wait until a change
+         */
+        private synchronized long nextWait() {
+            if (deadlines.isEmpty()) return -1;
+            final long now = System.nanoTime();
+            long wait = Long.MAX_VALUE;
+            for (final long deadline : deadlines.values()) wait = Math.min(wait, deadline - now);
+            return Math.max(0, wait);
+        }
+
+        /**
+         * (Re)schedules the reload of the files that changed
+         *
+         * @param   key the {@link WatchKey} of the directory that changed
+         */
+        private synchronized void onChange(@NotNull WatchKey key) {
+            final Path directory = (Path) key.watchable();
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS);
+            for (final WatchEvent<?> event : key.pollEvents()) {
+                if (!(event.context() instanceof Path name)) continue;
+                final Set<LazyFile> changed = files.get(directory.resolve(name));
+                if (changed != null) for (final LazyFile lazyFile : changed) deadlines.put(lazyFile, deadline);
+            }
+            key.reset();
+        }
+
+        /**
+         * Removes and gets the files whose reload is due
+         *
+         * @return  the files to reload
+         */
+        @NotNull
+        private synchronized List<LazyFile> takeDue() {
+            if (deadlines.isEmpty()) return Collections.emptyList();
+            final long now = System.nanoTime();
+            final List<LazyFile> due = new ArrayList<>();
+            final Iterator<Map.Entry<LazyFile, Long>> iterator = deadlines.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<LazyFile, Long> entry = iterator.next();
+                if (entry.getValue() - now > 0) continue;
+                due.add(entry.getKey());
+                iterator.remove();
+            }
+            return due;
+        }
+    }
 }
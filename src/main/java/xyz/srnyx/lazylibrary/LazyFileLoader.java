@@ -0,0 +1,184 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import org.spongepowered.configurate.yaml.NodeStyle;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Loads multiple {@link LazyFile LazyFiles} concurrently, for example all language and template files at startup
+ * <br>Files are parsed on a bounded amount of threads, and {@link #load()} returns once all of them are done
+ * <br>Unlike {@link LazyFile#LazyFile(String, NodeStyle, boolean)}, errors aren't printed but {@link Result#failures() reported} for each file
+ */
+public class LazyFileLoader extends Stringable {
+    /**
+     * The files to load by their path (excluding {@code .yml})
+     */
+    @NotNull private final Map<String, FileOptions> files = new LinkedHashMap<>();
+    /**
+     * The maximum amount of files to parse at the same time
+     */
+    private int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+    /**
+     * Whether the files use {@link LazyFile#snapshots(boolean) snapshots}, including for this first load
+     */
+    private boolean snapshots = false;
+
+    /**
+     * Adds a file to load
+     *
+     * @param   pathString  the path to the file (excluding {@code .yml})
+     * @param   style       the {@link NodeStyle YML style} of the file
+     * @param   isResource  whether the file is a resource to be loaded from the JAR file
+     *
+     * @return              {@code this}
+     */
+    @NotNull
+    public LazyFileLoader add(@NotNull String pathString, @NotNull NodeStyle style, boolean isResource) {
+        files.put(pathString, new FileOptions(style, isResource));
+        return this;
+    }
+
+    /**
+     * Sets {@link #parallelism}
+     *
+     * @param   parallelism                 the new value of {@link #parallelism}
+     *
+     * @return                              {@code this}
+     *
+     * @throws  IllegalArgumentException    if the parallelism is less than {@code 1}
+     */
+    @NotNull
+    public LazyFileLoader parallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets {@link #snapshots}
+     *
+     * @param   snapshots   the new value of {@link #snapshots}
+     *
+     * @return              {@code this}
+     */
+    @NotNull
+    public LazyFileLoader snapshots(boolean snapshots) {
+        this.snapshots = snapshots;
+        return this;
+    }
+
+    /**
+     * Loads all added files, blocking until all of them are loaded or failed
+     * <br>If the thread is interrupted while waiting, the files that weren't loaded yet are reported as failed with the {@link InterruptedException}
+     *
+     * @return  the {@link Result}
+     */
+    @NotNull
+    public Result load() {
+        final Map<String, LazyFile> loaded = new LinkedHashMap<>();
+        final Map<String, Exception> failures = new LinkedHashMap<>();
+        if (files.isEmpty()) return new Result(loaded, failures);
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, files.size()), runnable -> {
+            final Thread thread = new Thread(runnable, "LazyFile-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Submit
+            final Map<String, Future<LazyFile>> futures = new LinkedHashMap<>();
+            for (final Map.Entry<String, FileOptions> entry : files.entrySet()) {
+                final FileOptions options = entry.getValue();
+                final boolean useSnapshots = snapshots;
+                futures.put(entry.getKey(), executor.submit(() -> {
+                    final LazyFile file = new LazyFile(entry.getKey(), options.style, options.isResource, false).snapshots(useSnapshots);
+                    file.tryLoad();
+                    return file;
+                }));
+            }
+
+            // Wait
+            InterruptedException interrupted = null;
+            for (final Map.Entry<String, Future<LazyFile>> entry : futures.entrySet()) {
+                if (interrupted != null) {
+                    entry.getValue().cancel(true);
+                    failures.put(entry.getKey(), interrupted);
+                    continue;
+                }
+                try {
+                    loaded.put(entry.getKey(), entry.getValue().get());
+                } catch (final ExecutionException e) {
+                    failures.put(entry.getKey(), e.getCause() instanceof Exception cause ? cause : e);
+                } catch (final InterruptedException e) {
+                    interrupted = e;
+                    entry.getValue().cancel(true);
+                    failures.put(entry.getKey(), e);
+                }
+            }
+            if (interrupted != null) Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(loaded, failures);
+    }
+
+    /**
+     * The options of a file to load
+     *
+     * @param   style       the {@link NodeStyle YML style} of the file
+     * @param   isResource  whether the file is a resource to be loaded from the JAR file
+     */
+    private record FileOptions(@NotNull NodeStyle style, boolean isResource) {}
+
+    /**
+     * The result of {@link #load()}
+     *
+     * @param   files       the loaded {@link LazyFile LazyFiles} by their path (in the order they were added)
+     * @param   failures    the errors of the files that couldn't be loaded by their path (in the order they were added)
+     */
+    public record Result(@NotNull Map<String, LazyFile> files, @NotNull Map<String, Exception> failures) {
+        /**
+         * Creates a new {@link Result}
+         *
+         * @param   files       {@link #files}
+         * @param   failures    {@link #failures}
+         */
+        public Result {
+            files = Collections.unmodifiableMap(files);
+            failures = Collections.unmodifiableMap(failures);
+        }
+
+        /**
+         * Gets a loaded file
+         *
+         * @param   pathString  the path to the file (excluding {@code .yml}), as it was {@link LazyFileLoader#add(String, NodeStyle, boolean) added}
+         *
+         * @return              the {@link LazyFile}, or {@code null} if it failed to load
+         */
+        @Nullable
+        public LazyFile get(@NotNull String pathString) {
+            return files.get(pathString);
+        }
+
+        /**
+         * Whether all files were loaded
+         *
+         * @return  {@code true} if no file failed to load
+         */
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+    }
+}
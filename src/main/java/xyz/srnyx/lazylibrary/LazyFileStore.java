@@ -0,0 +1,286 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import org.spongepowered.configurate.yaml.NodeStyle;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+
+/**
+ * A store of {@link LazyFile LazyFiles} with one file per key (for example {@code data/guilds/<id>.yml}), that only keeps the most recently used files loaded
+ * <br>Files are loaded when first accessed, and once more than {@link #maxLoaded} files are loaded, the least recently used ones are written back (if they have unsaved changes) and unloaded
+ * <br>Keys are split into stripes that are locked separately, so different keys rarely wait on each other (eviction order is least recently used per stripe)
+ * <br>Change files with {@link #withFile(Object, Consumer)}, which can't be interrupted by an eviction
+ * <br>Unloaded files are closed, so changing or saving a file returned by {@link #get(Object)} after it's unloaded throws an {@link IllegalStateException} instead of overwriting the newer file of the same key
+ *
+ * @param   <K> the type of the keys
+ */
+public class LazyFileStore<K> extends Stringable {
+    /**
+     * The maximum amount of stripes
+     */
+    private static final int MAX_STRIPES = 16;
+
+    /**
+     * The directory the files are in
+     */
+    @NotNull private final String directory;
+    /**
+     * The {@link NodeStyle YML style} of the files
+     */
+    @NotNull private final NodeStyle style;
+    /**
+     * Converts a key to its file name (excluding {@code .yml})
+     */
+    @NotNull private final Function<K, String> fileName;
+    /**
+     * The maximum amount of loaded files
+     */
+    private final int maxLoaded;
+    /**
+     * The {@link LazyFile#writeBehind(long) write-behind} interval of the files in milliseconds ({@code 0} to write them immediately on {@link LazyFile#save()})
+     */
+    private final long writeBehindMillis;
+    /**
+     * The stripes (the amount is a power of 2)
+     */
+    @NotNull private final List<Stripe<K>> stripes;
+    /**
+     * The amount of files that were loaded
+     */
+    @NotNull private final LongAdder loads = new LongAdder();
+    /**
+     * The amount of files that were unloaded to make room for others
+     */
+    @NotNull private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new {@link LazyFileStore} that uses {@link Object#toString()} of the keys as the file names
+     *
+     * @param   directory           {@link #directory}
+     * @param   style               {@link #style}
+     * @param   maxLoaded           {@link #maxLoaded}
+     * @param   writeBehindMillis   {@link #writeBehindMillis}
+     */
+    public LazyFileStore(@NotNull String directory, @NotNull NodeStyle style, int maxLoaded, long writeBehindMillis) {
+        this(directory, style, Object::toString, maxLoaded, writeBehindMillis);
+    }
+
+    /**
+     * Creates a new {@link LazyFileStore}
+     * <br>With a long {@code writeBehindMillis} (for example {@link Long#MAX_VALUE}), changes are only written when a file is unloaded or {@link #flushAll() flushed}
+     *
+     * @param   directory                   {@link #directory}
+     * @param   style                       {@link #style}
+     * @param   fileName                    {@link #fileName}
+     * @param   maxLoaded                   {@link #maxLoaded}
+     * @param   writeBehindMillis           {@link #writeBehindMillis}
+     *
+     * @throws  IllegalArgumentException    if {@code maxLoaded} is less than {@code 1}
+     */
+    public LazyFileStore(@NotNull String directory, @NotNull NodeStyle style, @NotNull Function<K, String> fileName, int maxLoaded, long writeBehindMillis) {
+        if (maxLoaded < 1) throw new IllegalArgumentException("Max loaded files must be at least 1");
+        this.directory = directory.endsWith("/") ? directory : directory + "/";
+        this.style = style;
+        this.fileName = fileName;
+        this.maxLoaded = maxLoaded;
+        this.writeBehindMillis = Math.max(0, writeBehindMillis);
+
+        // Split the capacity between the stripes
+        final int stripeCount = Integer.highestOneBit(Math.min(MAX_STRIPES, maxLoaded));
+        stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) stripes.add(new Stripe<>(maxLoaded / stripeCount + (i < maxLoaded % stripeCount ? 1 : 0), evictions));
+    }
+
+    /**
+     * Runs an action with the file of a key (loading it if it isn't loaded), which can't be unloaded until the action is done
+     * <br>Use this to change files, since a file from {@link #get(Object)} can be evicted and written back by another thread halfway through a change
+     * <br>The action runs while the key's stripe is locked, so keep it short and don't access other keys of this store in it (that can deadlock)
+     *
+     * @param   key     the key
+     * @param   action  the action to run with the {@link LazyFile}
+     */
+    public void withFile(@NotNull K key, @NotNull Consumer<LazyFile> action) {
+        final Stripe<K> stripe = getStripe(key);
+        synchronized (stripe) {
+            action.accept(get(key));
+        }
+    }
+
+    /**
+     * Gets the file of a key, loading it if it isn't loaded
+     * <br>The file can be unloaded by another thread at any time, so only use it for reading and use {@link #withFile(Object, Consumer)} to change it
+     * <br>Once it's unloaded, it's closed: changing or saving it throws an {@link IllegalStateException} (so it can't overwrite the file of a newer instance)
+     *
+     * @param   key the key
+     *
+     * @return      the {@link LazyFile}
+     */
+    @NotNull
+    public LazyFile get(@NotNull K key) {
+        final Stripe<K> stripe = getStripe(key);
+        synchronized (stripe) {
+            LazyFile file = stripe.files.get(key);
+            if (file != null) return file;
+            file = new LazyFile(directory + fileName.apply(key), style, false).writeBehind(writeBehindMillis);
+            loads.increment();
+            stripe.files.put(key, file);
+            return file;
+        }
+    }
+
+    /**
+     * Gets the file of a key if it's loaded
+     *
+     * @param   key the key
+     *
+     * @return      the {@link LazyFile}, or {@code null} if it isn't loaded
+     */
+    @Nullable
+    public LazyFile getIfLoaded(@NotNull K key) {
+        final Stripe<K> stripe = getStripe(key);
+        synchronized (stripe) {
+            return stripe.files.get(key);
+        }
+    }
+
+    /**
+     * Writes back and unloads the file of a key if it's loaded
+     *
+     * @param   key the key
+     */
+    public void unload(@NotNull K key) {
+        final Stripe<K> stripe = getStripe(key);
+        synchronized (stripe) {
+            final LazyFile file = stripe.files.remove(key);
+            if (file != null) unloaded(file);
+        }
+    }
+
+    /**
+     * Writes back and unloads all loaded files
+     */
+    public void unloadAll() {
+        for (final Stripe<K> stripe : stripes) synchronized (stripe) {
+            for (final LazyFile file : stripe.files.values()) unloaded(file);
+            stripe.files.clear();
+        }
+    }
+
+    /**
+     * {@link LazyFile#flush() Flushes} all loaded files (they stay loaded)
+     */
+    public void flushAll() {
+        for (final Stripe<K> stripe : stripes) {
+            final List<LazyFile> files;
+            synchronized (stripe) {
+                files = new ArrayList<>(stripe.files.values());
+            }
+            for (final LazyFile file : files) file.flush();
+        }
+    }
+
+    /**
+     * Gets the amount of loaded files
+     *
+     * @return  the amount of loaded files
+     */
+    public int size() {
+        int size = 0;
+        for (final Stripe<K> stripe : stripes) synchronized (stripe) {
+            size += stripe.files.size();
+        }
+        return size;
+    }
+
+    /**
+     * Gets {@link #maxLoaded}
+     *
+     * @return  {@link #maxLoaded}
+     */
+    public int getMaxLoaded() {
+        return maxLoaded;
+    }
+
+    /**
+     * Gets the amount of files that were loaded
+     *
+     * @return  the amount of loads
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Gets the amount of files that were unloaded to make room for others
+     *
+     * @return  the amount of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Closes an unloaded file (so an old reference can't overwrite the file of a newer instance) and writes back its pending changes
+     *
+     * @param   file    the file
+     */
+    private static void unloaded(@NotNull LazyFile file) {
+        file.close();
+        file.flush();
+    }
+
+    /**
+     * Gets the stripe of a key
+     *
+     * @param   key the key
+     *
+     * @return      the stripe
+     */
+    @NotNull
+    private Stripe<K> getStripe(@NotNull K key) {
+        final int hash = key.hashCode();
+        return stripes.get((hash ^ (hash >>> 16)) & (stripes.size() - 1));
+    }
+
+    /**
+     * A part of the store, with its own lock and least recently used order
+     *
+     * @param   <K> the type of the keys
+     */
+    private static final class Stripe<K> {
+        /**
+         * The loaded files (least recently used first)
+         * <br>Evicted files are closed and written back while the stripe is locked, so they can't be loaded again before they're written
+         */
+        @NotNull private final LinkedHashMap<K, LazyFile> files;
+
+        /**
+         * Creates a new {@link Stripe}
+         *
+         * @param   capacity    the maximum amount of loaded files in the stripe
+         * @param   evictions   the counter to increment when a file is unloaded to make room for others
+         */
+        private Stripe(int capacity, @NotNull LongAdder evictions) {
+            files = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(@NotNull Map.Entry<K, LazyFile> eldest) {
+                    if (size() <= capacity) return false;
+                    unloaded(eldest.getValue());
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+    }
+}
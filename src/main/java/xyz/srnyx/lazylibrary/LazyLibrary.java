@@ -3,8 +3,6 @@ package xyz.srnyx.lazylibrary;
 import com.freya02.botcommands.api.CommandsBuilder;
 import com.freya02.botcommands.api.components.DefaultComponentManager;
 
-import com.zaxxer.hikari.HikariDataSource;
-
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Activity;
@@ -19,13 +17,18 @@ import xyz.srnyx.javautilities.MiscUtility;
 import xyz.srnyx.javautilities.parents.Stringable;
 
 import xyz.srnyx.lazylibrary.settings.ApplicationDependency;
+import xyz.srnyx.lazylibrary.settings.FileSettings;
 import xyz.srnyx.lazylibrary.settings.LazySettings;
+import xyz.srnyx.lazylibrary.utility.LazyUtilities;
 
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Scanner;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 
@@ -39,91 +42,175 @@ public class LazyLibrary extends Stringable {
      */
     @NotNull public static Logger LOGGER = LoggerFactory.getLogger("LazyLibrary");
 
+    /**
+     * The phases of the startup, all of which are joined before {@link #onNecessaryTasksDone()}
+     * <br>Add your own phases in {@link #setSettings()}, {@link #onStart()}, or {@link #onReady()} to run them alongside the login
+     * <br>Once the startup is done, its {@link LazyStartup#getReport() timings} are logged and kept here
+     */
+    @NotNull public final LazyStartup startup = new LazyStartup();
     /**
      * The {@link LazySettings settings} for the bot
      */
-    @NotNull public final LazySettings settings = new LazySettings(this);
+    @NotNull public final LazySettings settings = startup.time("settings", () -> new LazySettings(this));
     /**
-     * The {@link JDA} instance
+     * The {@link JDA} instance (the {@link LazyShards#getFirst() first shard} if the bot is {@link #shards sharded})
      */
     public JDA jda;
+    /**
+     * The shards of the bot, or {@code null} if it isn't sharded (see {@link LazySettings#shardsTotal})
+     * <br>Listeners added to {@link #jda} only receive the events of the first shard, so add them to {@link LazyShards#manager} instead
+     */
+    @Nullable public LazyShards shards;
+    /**
+     * The scheduler for the bot's recurring tasks (created after {@link #setSettings()}), which also runs the activity rotation
+     * <br>All of its jobs are cancelled when the bot {@link #shutdown() shuts down}
+     */
+    @NotNull public final LazyScheduler scheduler;
     /**
      * @see #updateActivityRotation()
      */
-    @Nullable private ScheduledExecutorService activityScheduler;
+    @Nullable private LazyScheduler.Job activityJob;
+    /**
+     * The database connection pool (configured by {@link FileSettings#databasePool}), or {@code null} if there's no {@link FileSettings#database database} (or it couldn't be created)
+     * <br>It's closed when the bot {@link #shutdown() shuts down}
+     */
+    @Nullable public LazyDatabase database;
+    /**
+     * Whether the bot is {@link #shutdown() shutting down}
+     */
+    @NotNull private final AtomicBoolean stopping = new AtomicBoolean();
 
     /**
      * Starts the bot
      */
     public LazyLibrary() {
         settings.dependencies(new ApplicationDependency<>((Class<? super LazyLibrary>) getClass(), () -> this));
-        setSettings();
+        startup.time("setSettings", this::setSettings);
         LOGGER = LoggerFactory.getLogger(settings.loggerName);
-        onStart();
+        scheduler = new LazyScheduler(settings.virtualThreads);
+        startup.time("onStart", this::onStart);
 
-        // Start bot
+        // Start bot and database (neither needs the other, so they run at the same time)
+        final boolean sharded = settings.shardsTotal != null;
+        if (sharded) {
+            startup.phase(LazyStartup.LOGIN, () -> new LazyShards(settings));
+            startup.phase(LazyStartup.READY, () -> startup.<LazyShards>join(LazyStartup.LOGIN).awaitReady(), LazyStartup.LOGIN);
+        } else {
+            startup.phase(LazyStartup.LOGIN, () -> {
+                // JDA's own shutdown hook would cancel queued REST actions at the same time as ours, so only shutdown() stops it
+                final JDABuilder builder = JDABuilder.create(settings.gatewayIntents)
+                        .setToken(settings.getFileSettings().token)
+                        .setEnableShutdownHook(false);
+                if (settings.virtualThreads) builder
+                        .setEventPool(LazyUtilities.newVirtualThreadExecutor("JDA-event"), true)
+                        .setCallbackPool(LazyUtilities.newVirtualThreadExecutor("JDA-callback"), true);
+                if (settings.jdaBuilder != null) settings.jdaBuilder.accept(builder);
+                return builder.build();
+            });
+            startup.phase(LazyStartup.READY, () -> startup.<JDA>join(LazyStartup.LOGIN).awaitReady(), LazyStartup.LOGIN);
+        }
+        startup.phase(LazyStartup.DATABASE, this::createDatabase);
         try {
-            final JDABuilder builder = JDABuilder.create(settings.gatewayIntents).setToken(settings.fileSettings.token);
-            if (settings.jdaBuilder != null) settings.jdaBuilder.accept(builder);
-            jda = builder.build().awaitReady();
-        } catch (final InterruptedException | IllegalArgumentException e) {
-            e.printStackTrace();
-            Thread.currentThread().interrupt();
+            jda = startup.join(LazyStartup.READY);
+            if (sharded) shards = startup.join(LazyStartup.LOGIN);
+        } catch (final CompletionException e) {
+            e.getCause().printStackTrace();
             System.exit(0);
             return;
         }
-        onReady();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "LazyLibrary-shutdown"));
+        startup.time("onReady", this::onReady);
+
+        // Database
+        try {
+            database = startup.join(LazyStartup.DATABASE);
+        } catch (final CompletionException e) {
+            e.getCause().printStackTrace();
+        }
 
         // BotCommands
+        startup.time("commands", this::buildCommands);
+
+        // Console commands
+        final Thread console = (settings.virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon()).name("LazyLibrary-console").unstarted(() -> {
+            final Scanner scanner = new Scanner(System.in);
+            while (scanner.hasNextLine()) {
+                final ConsoleCommand command = new ConsoleCommand(scanner.nextLine());
+                if (settings.defaultStopCommand && command.getRaw().equals("stop")) {
+                    stopBot();
+                    return;
+                }
+                onConsoleCommand(command);
+            }
+        });
+        console.start();
+
+        // All necessary tasks are done (including the phases added by the bot)
+        startup.joinAll();
+        startup.time("onNecessaryTasksDone", this::onNecessaryTasksDone);
+        LOGGER.info(startup.finish().format());
+
+        // Rotating activity
+        updateActivityRotation();
+    }
+
+    /**
+     * Builds BotCommands
+     * <br>If the bot is {@link #shards sharded}, it's built on {@link LazyShards#forEachReadyShard(Consumer) every shard} (including restarted ones), so each shard registers the commands of its own guilds and handles its own events
+     */
+    private void buildCommands() {
+        if (shards == null) {
+            createCommandsBuilder().build(jda);
+            return;
+        }
+        shards.forEachReadyShard(shard -> createCommandsBuilder().build(shard));
+    }
+
+    /**
+     * Sets up a {@link CommandsBuilder} for BotCommands (owners, search paths, dependencies, the component manager, and {@link LazySettings#builder})
+     *
+     * @return  the {@link CommandsBuilder}
+     */
+    @NotNull
+    private CommandsBuilder createCommandsBuilder() {
         final CommandsBuilder builder = CommandsBuilder.newBuilder()
                 .textCommandBuilder(textCommands -> textCommands.disableHelpCommand(true));
         // Owners, search paths, and command dependency
-        if (settings.fileSettings.ownersPrimary != null) builder.addOwners(settings.fileSettings.ownersPrimary);
-        settings.fileSettings.ownersOther.forEach(builder::addOwners);
+        if (settings.getFileSettings().ownersPrimary != null) builder.addOwners(settings.getFileSettings().ownersPrimary);
+        settings.getFileSettings().ownersOther.forEach(builder::addOwners);
         settings.searchPaths.forEach(builder::addSearchPath);
         builder.extensionsBuilder(extensionsBuilder -> settings.dependencies.forEach(dependency -> extensionsBuilder.registerCommandDependency((Class<Object>) dependency.clazz(), (Supplier<Object>) dependency.supplier())));
         // Database
-        if (settings.fileSettings.database != null) {
-            //noinspection resource
-            final HikariDataSource dataSource = new HikariDataSource();
-            dataSource.setJdbcUrl(settings.fileSettings.database);
-            dataSource.setMaximumPoolSize(3);
-            dataSource.setLeakDetectionThreshold(5000);
+        final LazyDatabase componentsDatabase = database;
+        if (componentsDatabase != null) {
             try {
                 builder.setComponentManager(new DefaultComponentManager(() -> {
                     try {
-                        return dataSource.getConnection();
+                        return componentsDatabase.getConnection();
                     } catch (final SQLException e) {
-                        e.printStackTrace();
-                        return null;
+                        throw new IllegalStateException("Couldn't get a database connection for components", e);
                     }
                 }));
             } catch (final RuntimeException e) {
                 e.printStackTrace();
             }
         }
-        // Build
         settings.builder.accept(builder);
-        builder.build(jda);
-
-        // Console commands
-        new Thread(() -> {
-            final Scanner scanner = new Scanner(System.in);
-            while (scanner.hasNextLine()) {
-                final ConsoleCommand command = new ConsoleCommand(scanner.nextLine());
-                if (settings.defaultStopCommand && command.getRaw().equals("stop")) {
-                    stopBot();
-                    return;
-                }
-                onConsoleCommand(command);
-            }
-        }).start();
-
-        // All necessary tasks are done
-        onNecessaryTasksDone();
+        return builder;
+    }
 
-        // Rotating activity
-        updateActivityRotation();
+    /**
+     * Creates the database connection pool and opens its first connection (instead of on first use)
+     *
+     * @return  the {@link LazyDatabase}, or {@code null} if there's no {@link FileSettings#database database}
+     */
+    @Nullable
+    private LazyDatabase createDatabase() {
+        final FileSettings fileSettings = settings.getFileSettings();
+        if (fileSettings.database == null) return null;
+        final LazyDatabase newDatabase = new LazyDatabase(fileSettings.database, fileSettings.databasePool, settings.databaseConfig);
+        newDatabase.warmUp();
+        return newDatabase;
     }
 
     /**
@@ -136,6 +223,16 @@ public class LazyLibrary extends Stringable {
         return "config";
     }
 
+    /**
+     * Add files to load in parallel with the settings file here by overriding this method (for example language and template files), or enable {@link LazyFileLoader#snapshots(boolean) snapshots} for all of them
+     * <br>They're loaded while the {@link #settings} are created, which is before the fields of the subclass are initialized, and can be retrieved from {@link LazySettings#startupFiles}
+     *
+     * @param   loader  the {@link LazyFileLoader}, which already has the {@link #getSettingsFileName() settings file}
+     */
+    public void addStartupFiles(@NotNull LazyFileLoader loader) {
+        // Should be overridden
+    }
+
     /**
      * Set the {@link #settings} for the bot here by overriding this method
      */
@@ -181,49 +278,160 @@ public class LazyLibrary extends Stringable {
     }
 
     /**
-     * Stops the bot (calls {@link #onStop()} and exits the program)
+     * Stops the bot ({@link #shutdown() shuts it down} and exits the program)
      */
     public void stopBot() {
-        onStop();
+        shutdown();
         System.exit(0);
     }
 
     /**
-     * Updates the activity rotation (stops the old scheduler and starts a new one)
+     * Shuts down the bot within {@link LazySettings#shutdownTimeout}, timing and logging each step:
+     * <ol>
+     *     <li>calls {@link #onStop()}
+     *     <li>stops handling events (removes all event listeners)
+     *     <li>shuts down {@link JDA} (all {@link #shards} if sharded), waiting for queued REST actions to be sent (if they aren't sent in time, they're cancelled)
+     *     <li>cancels all jobs of the {@link #scheduler} (including the activity rotation) and waits for running ones, so no job uses the files or database after they're closed
+     *     <li>{@link LazyFile#shutdown(long, TimeUnit) flushes} pending file saves
+     *     <li>closes the database connection pool
+     *     <li>stops the shared pools of the {@link #shards}
+     * </ol>
+     * This only runs once, and also runs when the program is terminated (for example with {@code SIGTERM} during a restart)
+     */
+    public void shutdown() {
+        if (!stopping.compareAndSet(false, true)) return;
+        final long start = System.nanoTime();
+        final long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.shutdownTimeout);
+        shutdownStep("onStop", this::onStop);
+
+        // JDA
+        final LazyShards stoppingShards = shards;
+        final List<JDA> stoppingJdas = stoppingShards != null ? stoppingShards.manager.getShards() : jda != null ? List.of(jda) : List.of();
+        if (!stoppingJdas.isEmpty()) {
+            shutdownStep("events", () -> {
+                for (final JDA stoppingJda : stoppingJdas) stoppingJda.removeEventListener(stoppingJda.getRegisteredListeners().toArray());
+            });
+            shutdownStep("jda", () -> {
+                if (stoppingShards != null) {
+                    stoppingShards.manager.shutdown();
+                } else {
+                    stoppingJdas.forEach(JDA::shutdown);
+                }
+                for (final JDA stoppingJda : stoppingJdas) {
+                    // JDA waits forever for a timeout of 0 (which is also what less than 1ms rounds down to), so don't wait at all then
+                    final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(remaining(deadline));
+                    boolean stopped = false;
+                    if (remainingMillis > 0) {
+                        try {
+                            stopped = stoppingJda.awaitShutdown(Duration.ofMillis(remainingMillis));
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    if (!stopped) {
+                        LOGGER.warn("JDA (shard {}) didn't shut down in time, cancelling the remaining REST actions", stoppingJda.getShardInfo().getShardId());
+                        stoppingJda.shutdownNow();
+                    }
+                }
+            });
+        }
+
+        // Scheduler (before the files and database, which running jobs can still use)
+        shutdownStep("scheduler", () -> {
+            if (!scheduler.shutdown(remaining(deadline), TimeUnit.NANOSECONDS)) LOGGER.warn("Scheduled jobs didn't finish in time");
+        });
+
+        // Files
+        shutdownStep("files", () -> {
+            if (!LazyFile.shutdown(remaining(deadline), TimeUnit.NANOSECONDS)) LOGGER.warn("Files didn't finish writing in time");
+        });
+
+        // Database
+        final LazyDatabase closingDatabase = database;
+        if (closingDatabase != null) shutdownStep("database", closingDatabase::close);
+
+        // Shard pools
+        if (stoppingShards != null) shutdownStep("shardPools", stoppingShards::shutdownPools);
+
+        LOGGER.info("Shutdown took {}ms", String.format("%.1f", (System.nanoTime() - start) / 1_000_000d));
+    }
+
+    /**
+     * Runs a step of the {@link #shutdown()}, logging how long it took (or its error, in which case the shutdown continues)
+     *
+     * @param   name    the name of the step
+     * @param   step    the step
+     */
+    private void shutdownStep(@NotNull String name, @NotNull Runnable step) {
+        final long start = System.nanoTime();
+        try {
+            step.run();
+        } catch (final RuntimeException e) {
+            LOGGER.error("Shutdown step {} failed", name, e);
+        }
+        LOGGER.info("Shutdown step {} took {}ms", name, String.format("%.1f", (System.nanoTime() - start) / 1_000_000d));
+    }
+
+    /**
+     * Gets the time left until a deadline
+     *
+     * @param   deadline    the deadline ({@link System#nanoTime()})
+     *
+     * @return              the time left in nanoseconds ({@code 0} if it passed)
+     */
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * Updates the activity rotation (cancels the old {@link #scheduler} job and starts a new one)
      *
      * @see LazySettings#activities(Activity...)
      * @see LazySettings#activities(java.util.Collection)
      */
     public void updateActivityRotation() {
-        // Stop old scheduler
-        if (activityScheduler != null) activityScheduler.shutdown();
+        // Stop old rotation
+        if (activityJob != null) {
+            activityJob.cancel();
+            activityJob = null;
+        }
 
         // Stop activity rotation
-        if (settings.activities == null) {
-            activityScheduler = null;
-            return;
-        }
+        if (settings.activities == null) return;
 
-        // Check if JDA is ready
+        // Check if JDA is ready (the scheduler is only created after the settings, which can call this)
         if (jda == null || jda.getStatus() != JDA.Status.CONNECTED) return;
 
-        // Start new scheduler
-        activityScheduler = Executors.newSingleThreadScheduledExecutor();
-        activityScheduler.scheduleAtFixedRate(() -> {
+        // Start new rotation
+        activityJob = scheduler.scheduleAtFixedRate("activity", () -> {
             // Stop if activities is null
             if (settings.activities == null) {
-                if (activityScheduler != null) {
-                    activityScheduler.shutdown();
-                    activityScheduler = null;
-                }
+                updateActivityRotation();
                 return;
             }
 
-            // Set random activity
-            if (!settings.activities.isEmpty()) jda.getPresence().setActivity(settings.activities.get(MiscUtility.RANDOM.nextInt(settings.activities.size())));
+            // Set random activity (on all shards if sharded)
+            if (settings.activities.isEmpty()) return;
+            final Activity activity = settings.activities.get(MiscUtility.RANDOM.nextInt(settings.activities.size()));
+            if (shards != null) {
+                shards.manager.setActivity(activity);
+            } else {
+                jda.getPresence().setActivity(activity);
+            }
         }, 0, 3, TimeUnit.MINUTES);
     }
 
+    /**
+     * Gets the status and gateway ping of every shard (only one if the bot isn't {@link #shards sharded})
+     *
+     * @return  the {@link LazyShards.ShardStatus statuses}, ordered by shard ID
+     */
+    @NotNull
+    public List<LazyShards.ShardStatus> getShardStatuses() {
+        if (shards != null) return shards.getStatuses();
+        return jda != null ? List.of(LazyShards.ShardStatus.of(jda)) : List.of();
+    }
+
     /**
      * Checks if the given {@link Long ID} is an owner
      *
@@ -232,7 +440,7 @@ public class LazyLibrary extends Stringable {
      * @return      {@code true} if the given ID is an owner, {@code false} otherwise
      */
     public boolean isOwner(long id) {
-        final Long ownersPrimary = settings.fileSettings.ownersPrimary;
-        return (ownersPrimary != null && id == ownersPrimary) || (settings.fileSettings.ownersOther.contains(id));
+        final Long ownersPrimary = settings.getFileSettings().ownersPrimary;
+        return (ownersPrimary != null && id == ownersPrimary) || (settings.getFileSettings().ownersOther.contains(id));
     }
 }
@@ -3,14 +3,18 @@ package xyz.srnyx.lazylibrary;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 
 /**
@@ -64,6 +68,45 @@ public class LazyMessage {
         return map;
     }
 
+    /**
+     * Checks if this {@link LazyMessage} has the same content and {@link LazyEmbed#equals(Object) embeds} as another one
+     *
+     * @param   object  the object to compare with
+     *
+     * @return          {@code true} if the object is a {@link LazyMessage} with the same content and embeds
+     */
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) return true;
+        if (!(object instanceof LazyMessage other)) return false;
+        return Objects.equals(content, other.content) && embeds.equals(other.embeds);
+    }
+
+    /**
+     * Gets the hash code of the content and embeds of this {@link LazyMessage} (consistent with {@link #equals(Object)})
+     *
+     * @return  the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(content, embeds);
+    }
+
+    /**
+     * Compares this {@link LazyMessage} with another one
+     *
+     * @param   other   the {@link LazyMessage} to compare with
+     *
+     * @return          the differences
+     */
+    @NotNull
+    public Diff diff(@NotNull LazyMessage other) {
+        final int shared = Math.min(embeds.size(), other.embeds.size());
+        final List<LazyEmbed.Diff> embedDiffs = new ArrayList<>(shared);
+        for (int i = 0; i < shared; i++) embedDiffs.add(embeds.get(i).diff(other.embeds.get(i)));
+        return new Diff(!Objects.equals(content, other.content), Collections.unmodifiableList(embedDiffs), Math.max(0, other.embeds.size() - shared), Math.max(0, embeds.size() - shared));
+    }
+
     /**
      * Converts the {@link LazyMessage} to a {@link MessageCreateBuilder}
      *
@@ -120,6 +163,23 @@ public class LazyMessage {
         return this;
     }
 
+    /**
+     * Splits the {@link LazyMessage} into as many messages as needed to fit within Discord's limits
+     * <br>Each {@link LazyEmbed embed} is {@link LazyEmbed#split(LazyLibrary) split} too, and the messages are only built as they're iterated
+     *
+     * @param   library the {@link LazyLibrary} to construct the {@link LazyEmbed embeds} with
+     *
+     * @return          the messages
+     *
+     * @see             LazySplitter
+     */
+    @NotNull
+    public Iterator<MessageCreateData> split(@NotNull LazyLibrary library) {
+        return LazySplitter.messages(content, LazySplitter.concat(embeds.stream()
+                .map(embed -> embed.split(library))
+                .iterator()));
+    }
+
     /**
      * Gets the built {@link MessageEmbed embeds} ({@link MessageEmbed}) of the {@link LazyMessage}
      *
@@ -133,4 +193,27 @@ public class LazyMessage {
                 .map(embed -> embed.build(library))
                 .toList();
     }
+
+    /**
+     * The differences between two {@link LazyMessage messages}
+     *
+     * @param   content the {@link #content} is different
+     * @param   embeds  the differences between the {@link #embeds} at the same index (for the indexes both messages have)
+     * @param   added   the amount of extra {@link #embeds} the other message has
+     * @param   removed the amount of extra {@link #embeds} this message has
+     *
+     * @see     #diff(LazyMessage)
+     */
+    public record Diff(boolean content, @NotNull List<LazyEmbed.Diff> embeds, int added, int removed) {
+        /**
+         * Whether there are no differences
+         *
+         * @return  {@code true} if the messages have the same content and embeds
+         */
+        public boolean isEmpty() {
+            if (content || added != 0 || removed != 0) return false;
+            for (final LazyEmbed.Diff embed : embeds) if (!embed.isEmpty()) return false;
+            return true;
+        }
+    }
 }
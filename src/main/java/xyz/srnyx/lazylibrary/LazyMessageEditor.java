@@ -0,0 +1,177 @@
+package xyz.srnyx.lazylibrary;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+import net.dv8tion.jda.api.utils.messages.MessageEditData;
+import net.dv8tion.jda.internal.requests.CompletedRestAction;
+
+import org.jetbrains.annotations.NotNull;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Edits messages only when their rendered content changed, to avoid spending rate limits on edits that wouldn't change anything (for example dashboards that are updated on a timer)
+ * <br>A hash of the last successfully sent content is kept for each message ID (up to {@link #maxTracked} messages, least recently edited ones are forgotten first)
+ */
+public class LazyMessageEditor extends Stringable {
+    /**
+     * The SHA-256 {@link MessageDigest} of each thread (reused for each hash, {@link MessageDigest#digest()} resets it)
+     */
+    @NotNull private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * The {@link LazyLibrary} to render the messages with
+     */
+    @NotNull private final LazyLibrary library;
+    /**
+     * The maximum amount of messages to keep hashes for
+     */
+    private final int maxTracked;
+    /**
+     * The hash of the last sent content of each message (message ID -> hash)
+     */
+    @NotNull private final Map<Long, Long> hashes;
+    /**
+     * The amount of edits that were sent
+     */
+    @NotNull private final LongAdder sent = new LongAdder();
+    /**
+     * The amount of edits that were skipped because nothing changed
+     */
+    @NotNull private final LongAdder skipped = new LongAdder();
+
+    /**
+     * Creates a new {@link LazyMessageEditor} that keeps hashes for up to 1024 messages
+     *
+     * @param   library {@link #library}
+     */
+    public LazyMessageEditor(@NotNull LazyLibrary library) {
+        this(library, 1024);
+    }
+
+    /**
+     * Creates a new {@link LazyMessageEditor}
+     *
+     * @param   library     {@link #library}
+     * @param   maxTracked  {@link #maxTracked}
+     */
+    public LazyMessageEditor(@NotNull LazyLibrary library, int maxTracked) {
+        this.library = library;
+        this.maxTracked = maxTracked;
+        this.hashes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(@NotNull Map.Entry<Long, Long> eldest) {
+                return size() > LazyMessageEditor.this.maxTracked;
+            }
+        };
+    }
+
+    /**
+     * Edits a message to the given {@link LazyMessage}, unless it would render the same as the last edit sent through this editor
+     * <br>The hash is only updated once the edit succeeds, so failed edits are retried next time
+     *
+     * @param   channel     the {@link MessageChannel} of the message
+     * @param   messageId   the ID of the message
+     * @param   message     the new {@link LazyMessage}
+     *
+     * @return              the {@link RestAction} to queue, which completes with {@code null} without sending a request if nothing changed
+     */
+    @NotNull
+    public RestAction<Message> edit(@NotNull MessageChannel channel, long messageId, @NotNull LazyMessage message) {
+        final MessageCreateData data = message.toBuilder(library).build();
+        final long hash = hash(data);
+        synchronized (hashes) {
+            final Long previous = hashes.get(messageId);
+            if (previous != null && previous == hash) {
+                skipped.increment();
+                return new CompletedRestAction<>(channel.getJDA(), null);
+            }
+        }
+        sent.increment();
+        return channel.editMessageById(messageId, MessageEditData.fromCreateData(data))
+                .onSuccess(edited -> {
+                    synchronized (hashes) {
+                        hashes.put(messageId, hash);
+                    }
+                });
+    }
+
+    /**
+     * Sets the last sent content of a message without editing it (for example after sending it)
+     *
+     * @param   messageId   the ID of the message
+     * @param   message     the {@link LazyMessage} the message currently shows
+     */
+    public void track(long messageId, @NotNull LazyMessage message) {
+        final long hash = hash(message.toBuilder(library).build());
+        synchronized (hashes) {
+            hashes.put(messageId, hash);
+        }
+    }
+
+    /**
+     * Forgets the last sent content of a message, so the next {@link #edit(MessageChannel, long, LazyMessage) edit} is always sent
+     *
+     * @param   messageId   the ID of the message
+     */
+    public void forget(long messageId) {
+        synchronized (hashes) {
+            hashes.remove(messageId);
+        }
+    }
+
+    /**
+     * Gets the amount of edits that were sent
+     *
+     * @return  the amount of sent edits
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Gets the amount of edits that were skipped because nothing changed
+     *
+     * @return  the amount of skipped edits
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Hashes the rendered content and embeds of a message (SHA-256, truncated to 64 bits)
+     *
+     * @param   data    the rendered message
+     *
+     * @return          the hash
+     */
+    private static long hash(@NotNull MessageCreateData data) {
+        final MessageDigest digest = DIGEST.get();
+        // In case a previous hash failed halfway
+        digest.reset();
+        digest.update(data.getContent().getBytes(StandardCharsets.UTF_8));
+        for (final MessageEmbed embed : data.getEmbeds()) {
+            digest.update((byte) 0);
+            digest.update(embed.toData().toJson());
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+}
@@ -0,0 +1,547 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import xyz.srnyx.lazylibrary.utility.LazyUtilities;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A scheduler for the bot's recurring tasks (like reminders, cache refreshes, and the activity rotation), so they don't each need their own executor
+ * <br>One timer thread keeps the jobs in a hashed timing wheel ({@value #WHEEL_SIZE} slots of {@value #TICK_MILLIS}ms) and hands due jobs to a worker pool (virtual threads if {@link xyz.srnyx.lazylibrary.settings.LazySettings#virtualThreads} is enabled), so jobs run up to one tick late
+ * <br>A job never runs twice at the same time: its next run is scheduled once its current run is done. If a run fails, the error is logged and the job keeps running
+ * <br>Each {@link Job} keeps {@link Job#getStats() stats} of its runs (count, failures, durations, and lag)
+ */
+public class LazyScheduler extends Stringable {
+    /**
+     * How long a tick of the wheel is
+     */
+    private static final long TICK_MILLIS = 20;
+    /**
+     * {@link #TICK_MILLIS} in nanoseconds
+     */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+    /**
+     * The amount of slots in the wheel (a power of 2)
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * The slots of the wheel (only used by the timer thread)
+     */
+    @NotNull private final List<ArrayDeque<Entry>> wheel = new ArrayList<>(WHEEL_SIZE);
+    /**
+     * The entries that were scheduled but not put in the wheel yet
+     */
+    @NotNull private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * The jobs that aren't cancelled or done
+     */
+    @NotNull private final Set<Job> jobs = ConcurrentHashMap.newKeySet();
+    /**
+     * The threads that run the jobs
+     */
+    @NotNull private final ExecutorService executor;
+    /**
+     * The timer thread
+     */
+    @NotNull private final Thread timer;
+    /**
+     * Whether the scheduler was {@link #shutdown(long, TimeUnit) shut down}
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new {@link LazyScheduler} and starts its timer thread
+     *
+     * @param   virtualThreads  whether to run the jobs on virtual threads instead of a pool with one platform thread per processor (at least 2)
+     */
+    public LazyScheduler(boolean virtualThreads) {
+        for (int i = 0; i < WHEEL_SIZE; i++) wheel.add(new ArrayDeque<>());
+        if (virtualThreads) {
+            executor = LazyUtilities.newVirtualThreadExecutor("LazyScheduler-worker");
+        } else {
+            final AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                final Thread thread = new Thread(runnable, "LazyScheduler-worker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        timer = new Thread(this::runTimer, "LazyScheduler-timer");
+        timer.setDaemon(true);
+        timer.start();
+    }
+
+    /**
+     * Runs a task once after a delay
+     *
+     * @param   name    the name of the job
+     * @param   task    the task
+     * @param   delay   the delay
+     * @param   unit    the {@link TimeUnit} of the delay
+     *
+     * @return          the {@link Job}
+     */
+    @NotNull
+    public Job schedule(@NotNull String name, @NotNull Runnable task, long delay, @NotNull TimeUnit unit) {
+        return add(new Job(name, task, (due, end) -> OptionalLong.empty()), System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+    }
+
+    /**
+     * Runs a task at a fixed rate (if a run takes longer than the period, the next run starts right after it instead of at the same time)
+     *
+     * @param   name                        the name of the job
+     * @param   task                        the task
+     * @param   initialDelay                the delay before the first run
+     * @param   period                      the time between the starts of the runs
+     * @param   unit                        the {@link TimeUnit} of the delay and period
+     *
+     * @return                              the {@link Job}
+     *
+     * @throws  IllegalArgumentException    if the period isn't positive
+     */
+    @NotNull
+    public Job scheduleAtFixedRate(@NotNull String name, @NotNull Runnable task, long initialDelay, long period, @NotNull TimeUnit unit) {
+        final long periodNanos = positive(period, unit);
+        return add(new Job(name, task, (due, end) -> OptionalLong.of(Math.max(due + periodNanos, end))), System.nanoTime() + unit.toNanos(Math.max(0, initialDelay)));
+    }
+
+    /**
+     * Runs a task with a fixed delay between the end of a run and the start of the next one
+     *
+     * @param   name                        the name of the job
+     * @param   task                        the task
+     * @param   initialDelay                the delay before the first run
+     * @param   delay                       the delay between the runs
+     * @param   unit                        the {@link TimeUnit} of the delays
+     *
+     * @return                              the {@link Job}
+     *
+     * @throws  IllegalArgumentException    if the delay isn't positive
+     */
+    @NotNull
+    public Job scheduleWithFixedDelay(@NotNull String name, @NotNull Runnable task, long initialDelay, long delay, @NotNull TimeUnit unit) {
+        final long delayNanos = positive(delay, unit);
+        return add(new Job(name, task, (due, end) -> OptionalLong.of(end + delayNanos)), System.nanoTime() + unit.toNanos(Math.max(0, initialDelay)));
+    }
+
+    /**
+     * Runs a task with a fixed delay plus a random jitter between the runs, so jobs of many bots (or guilds) don't all run at the same time
+     *
+     * @param   name                        the name of the job
+     * @param   task                        the task
+     * @param   initialDelay                the delay before the first run (the jitter is added to it too)
+     * @param   delay                       the delay between the runs
+     * @param   jitter                      the maximum random time added to each delay
+     * @param   unit                        the {@link TimeUnit} of the delays and jitter
+     *
+     * @return                              the {@link Job}
+     *
+     * @throws  IllegalArgumentException    if the delay isn't positive or the jitter is negative
+     */
+    @NotNull
+    public Job scheduleWithJitter(@NotNull String name, @NotNull Runnable task, long initialDelay, long delay, long jitter, @NotNull TimeUnit unit) {
+        final long delayNanos = positive(delay, unit);
+        if (jitter < 0) throw new IllegalArgumentException("Jitter can't be negative");
+        final long jitterNanos = unit.toNanos(jitter);
+        return add(new Job(name, task, (due, end) -> OptionalLong.of(end + delayNanos + ThreadLocalRandom.current().nextLong(jitterNanos + 1))), System.nanoTime() + unit.toNanos(Math.max(0, initialDelay)) + ThreadLocalRandom.current().nextLong(jitterNanos + 1));
+    }
+
+    /**
+     * Runs a task at the times that match a {@link LazyCron cron expression}
+     *
+     * @param   name                        the name of the job
+     * @param   task                        the task
+     * @param   cron                        the {@link LazyCron cron expression}
+     * @param   zone                        the time zone of the expression
+     *
+     * @return                              the {@link Job}
+     *
+     * @throws  IllegalArgumentException    if the expression never matches
+     */
+    @NotNull
+    public Job scheduleCron(@NotNull String name, @NotNull Runnable task, @NotNull LazyCron cron, @NotNull ZoneId zone) {
+        return add(new Job(name, task, (due, end) -> OptionalLong.of(nextCron(cron, zone))), nextCron(cron, zone));
+    }
+
+    /**
+     * Runs a task at the times that match a {@link LazyCron cron expression} in the system time zone
+     *
+     * @param   name                        the name of the job
+     * @param   task                        the task
+     * @param   cron                        the cron expression
+     *
+     * @return                              the {@link Job}
+     *
+     * @throws  IllegalArgumentException    if the expression is invalid or never matches
+     */
+    @NotNull
+    public Job scheduleCron(@NotNull String name, @NotNull Runnable task, @NotNull String cron) {
+        return scheduleCron(name, task, new LazyCron(cron), ZoneId.systemDefault());
+    }
+
+    /**
+     * Gets the jobs that aren't cancelled or done
+     *
+     * @return  the jobs
+     */
+    @NotNull
+    public List<Job> getJobs() {
+        return List.copyOf(jobs);
+    }
+
+    /**
+     * Cancels all jobs, stops the timer thread, and waits for running jobs to finish
+     *
+     * @param   timeout the maximum time to wait for running jobs
+     * @param   unit    the {@link TimeUnit} of the timeout
+     *
+     * @return          {@code true} if all running jobs finished in time
+     */
+    public boolean shutdown(long timeout, @NotNull TimeUnit unit) {
+        shutdown = true;
+        for (final Job job : jobs) job.cancel();
+        LockSupport.unpark(timer);
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeout, unit);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Adds a job and schedules its first run
+     *
+     * @param   job                         the job
+     * @param   dueNanos                    when the first run is due ({@link System#nanoTime()})
+     *
+     * @return                              the job
+     *
+     * @throws  RejectedExecutionException  if the scheduler was {@link #shutdown(long, TimeUnit) shut down}
+     */
+    @NotNull
+    private Job add(@NotNull Job job, long dueNanos) {
+        if (shutdown) throw new RejectedExecutionException("Scheduler was shut down");
+        jobs.add(job);
+        enqueue(job, dueNanos);
+        return job;
+    }
+
+    /**
+     * Schedules a run of a job
+     *
+     * @param   job         the job
+     * @param   dueNanos    when the run is due ({@link System#nanoTime()})
+     */
+    private void enqueue(@NotNull Job job, long dueNanos) {
+        pending.add(new Entry(job, dueNanos));
+        LockSupport.unpark(timer);
+    }
+
+    /**
+     * The loop of the timer thread: waits for each tick, moves {@link #pending} entries into the wheel, and runs the entries of the slot of the tick that are due
+     */
+    private void runTimer() {
+        final long start = System.nanoTime();
+        long tick = 0;
+        int size = 0;
+        while (!shutdown) {
+            // Wait for the tick (or until something is scheduled if the wheel is empty)
+            if (size == 0 && pending.isEmpty()) {
+                LockSupport.park(this);
+                // Skip the ticks that passed while waiting
+                tick = Math.max(tick, (System.nanoTime() - start) / TICK_NANOS);
+                continue;
+            }
+            final long tickEnd = start + (tick + 1) * TICK_NANOS;
+            long wait;
+            while ((wait = tickEnd - System.nanoTime()) > 0 && !shutdown) LockSupport.parkNanos(this, wait);
+
+            // Move pending entries into the wheel
+            Entry entry;
+            while ((entry = pending.poll()) != null) {
+                if (entry.job.cancelled) continue;
+                final long entryTick = Math.max(tick, Math.floorDiv(entry.dueNanos - start, TICK_NANOS));
+                entry.rounds = (entryTick - tick) / WHEEL_SIZE;
+                wheel.get((int) (entryTick & (WHEEL_SIZE - 1))).add(entry);
+                size++;
+            }
+
+            // Run due entries
+            final Iterator<Entry> iterator = wheel.get((int) (tick & (WHEEL_SIZE - 1))).iterator();
+            while (iterator.hasNext()) {
+                final Entry slotEntry = iterator.next();
+                if (!slotEntry.job.cancelled && slotEntry.rounds-- > 0) continue;
+                iterator.remove();
+                size--;
+                if (!slotEntry.job.cancelled) dispatch(slotEntry);
+            }
+            tick++;
+        }
+    }
+
+    /**
+     * Runs a due entry on the {@link #executor}, then schedules the next run of its job
+     *
+     * @param   entry   the entry
+     */
+    private void dispatch(@NotNull Entry entry) {
+        final Job job = entry.job;
+        try {
+            executor.execute(() -> {
+                final OptionalLong next = job.run(entry.dueNanos);
+                if (next.isEmpty() || job.cancelled) {
+                    jobs.remove(job);
+                    return;
+                }
+                enqueue(job, next.getAsLong());
+            });
+        } catch (final RejectedExecutionException e) {
+            // Shut down
+            jobs.remove(job);
+        }
+    }
+
+    /**
+     * Gets when a cron expression matches next
+     *
+     * @param   cron                        the {@link LazyCron cron expression}
+     * @param   zone                        the time zone of the expression
+     *
+     * @return                              when it matches next ({@link System#nanoTime()})
+     *
+     * @throws  IllegalArgumentException    if the expression never matches
+     */
+    private static long nextCron(@NotNull LazyCron cron, @NotNull ZoneId zone) {
+        final long nowNanos = System.nanoTime();
+        final ZonedDateTime now = ZonedDateTime.now(zone);
+        return nowNanos + Duration.between(now, cron.next(now)).toNanos();
+    }
+
+    /**
+     * Converts a period to nanoseconds, checking that it's positive
+     *
+     * @param   period                      the period
+     * @param   unit                        the {@link TimeUnit} of the period
+     *
+     * @return                              the period in nanoseconds
+     *
+     * @throws  IllegalArgumentException    if the period isn't positive
+     */
+    private static long positive(long period, @NotNull TimeUnit unit) {
+        if (period <= 0) throw new IllegalArgumentException("Period must be positive");
+        return unit.toNanos(period);
+    }
+
+    /**
+     * Gets when the next run of a job is due
+     */
+    @FunctionalInterface
+    private interface Trigger {
+        /**
+         * Gets when the next run is due
+         *
+         * @param   dueNanos    when the run that just finished was due ({@link System#nanoTime()})
+         * @param   endNanos    when the run that just finished ended ({@link System#nanoTime()})
+         *
+         * @return              when the next run is due ({@link System#nanoTime()}, which can be negative), or empty if there are no more runs
+         */
+        @NotNull
+        OptionalLong next(long dueNanos, long endNanos);
+    }
+
+    /**
+     * A scheduled run of a job in the wheel
+     */
+    private static final class Entry {
+        /**
+         * The job
+         */
+        @NotNull private final Job job;
+        /**
+         * When the run is due ({@link System#nanoTime()})
+         */
+        private final long dueNanos;
+        /**
+         * How many more times the wheel has to turn before the run is due
+         */
+        private long rounds;
+
+        /**
+         * Creates a new {@link Entry}
+         *
+         * @param   job         {@link #job}
+         * @param   dueNanos    {@link #dueNanos}
+         */
+        private Entry(@NotNull Job job, long dueNanos) {
+            this.job = job;
+            this.dueNanos = dueNanos;
+        }
+    }
+
+    /**
+     * A job of the scheduler
+     */
+    public final class Job extends Stringable {
+        /**
+         * The name of the job
+         */
+        @NotNull public final String name;
+        /**
+         * The task
+         */
+        @NotNull private final Runnable task;
+        /**
+         * Gets when the next run is due
+         */
+        @NotNull private final Trigger trigger;
+        /**
+         * Whether the job is cancelled
+         */
+        private volatile boolean cancelled;
+        /**
+         * The amount of runs
+         */
+        @NotNull private final LongAdder runs = new LongAdder();
+        /**
+         * The amount of runs that failed
+         */
+        @NotNull private final LongAdder failures = new LongAdder();
+        /**
+         * The total duration of the runs in nanoseconds
+         */
+        @NotNull private final LongAdder totalNanos = new LongAdder();
+        /**
+         * The longest duration of a run in nanoseconds
+         */
+        @NotNull private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        /**
+         * The highest lag (how late a run started) in nanoseconds
+         */
+        @NotNull private final LongAccumulator maxLagNanos = new LongAccumulator(Math::max, 0);
+        /**
+         * The duration of the last run in nanoseconds
+         */
+        private volatile long lastNanos;
+        /**
+         * The lag of the last run in nanoseconds
+         */
+        private volatile long lastLagNanos;
+
+        /**
+         * Creates a new {@link Job}
+         *
+         * @param   name    {@link #name}
+         * @param   task    {@link #task}
+         * @param   trigger {@link #trigger}
+         */
+        private Job(@NotNull String name, @NotNull Runnable task, @NotNull Trigger trigger) {
+            this.name = name;
+            this.task = task;
+            this.trigger = trigger;
+        }
+
+        /**
+         * Cancels the job (a run that already started still finishes)
+         */
+        public void cancel() {
+            cancelled = true;
+            jobs.remove(this);
+        }
+
+        /**
+         * Checks if the job is cancelled
+         *
+         * @return  {@code true} if the job is cancelled
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Gets the stats of the runs of the job
+         *
+         * @return  the {@link Stats}
+         */
+        @NotNull
+        public Stats getStats() {
+            return new Stats(runs.sum(), failures.sum(), totalNanos.sum(), lastNanos, maxNanos.get(), lastLagNanos, maxLagNanos.get());
+        }
+
+        /**
+         * Runs the task and records its stats
+         *
+         * @param   dueNanos    when the run was due ({@link System#nanoTime()})
+         *
+         * @return              when the next run is due ({@link System#nanoTime()}), or empty if there are no more runs
+         */
+        @NotNull
+        private OptionalLong run(long dueNanos) {
+            final long start = System.nanoTime();
+            final long lag = Math.max(0, start - dueNanos);
+            lastLagNanos = lag;
+            maxLagNanos.accumulate(lag);
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                failures.increment();
+                LazyLibrary.LOGGER.error("Scheduled job {} failed", name, e);
+            }
+            final long end = System.nanoTime();
+            final long duration = end - start;
+            runs.increment();
+            totalNanos.add(duration);
+            maxNanos.accumulate(duration);
+            lastNanos = duration;
+            try {
+                return trigger.next(dueNanos, end);
+            } catch (final RuntimeException e) {
+                LazyLibrary.LOGGER.error("Couldn't schedule the next run of job {}", name, e);
+                return OptionalLong.empty();
+            }
+        }
+    }
+
+    /**
+     * The stats of the runs of a {@link Job}
+     *
+     * @param   runs            the amount of runs
+     * @param   failures        the amount of runs that failed
+     * @param   totalNanos      the total duration of the runs in nanoseconds
+     * @param   lastNanos       the duration of the last run in nanoseconds
+     * @param   maxNanos        the longest duration of a run in nanoseconds
+     * @param   lastLagNanos    how late the last run started in nanoseconds
+     * @param   maxLagNanos     the highest lag of a run (how late it started) in nanoseconds
+     */
+    public record Stats(long runs, long failures, long totalNanos, long lastNanos, long maxNanos, long lastLagNanos, long maxLagNanos) {
+        /**
+         * Gets the mean duration of the runs
+         *
+         * @return  the mean duration in nanoseconds ({@code 0} if there were no runs)
+         */
+        public long meanNanos() {
+            return runs == 0 ? 0 : totalNanos / runs;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package xyz.srnyx.lazylibrary;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.sharding.ThreadPoolProvider;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import xyz.srnyx.lazylibrary.settings.LazySettings;
+import xyz.srnyx.lazylibrary.utility.LazyUtilities;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+/**
+ * The shards of a bot that runs in {@link LazySettings#shardsTotal sharded mode}, managed by a {@link ShardManager}
+ * <br>All shards share one event pool (so events are handled on it instead of on the gateway threads) and one rate-limit pool, and start as fast as the login bucket of the bot allows (JDA starts as many shards at once as the {@code max_concurrency} of the bot)
+ * <br>BotCommands is built on {@link #forEachReadyShard(Consumer) every shard}, including shards the {@link #manager} restarts later
+ */
+public class LazyShards extends Stringable {
+    /**
+     * How often {@link #awaitReady()} checks whether a shard that isn't created yet exists, in milliseconds
+     */
+    private static final long SHARD_POLL_MILLIS = 50;
+
+    /**
+     * The {@link ShardManager}
+     */
+    @NotNull public final ShardManager manager;
+    /**
+     * The pool that all shards run their event listeners on (virtual threads if {@link LazySettings#virtualThreads} is enabled)
+     */
+    @NotNull private final ThreadPoolProvider.LazySharedProvider<ExecutorService> eventPool;
+    /**
+     * The pool that all shards run {@link net.dv8tion.jda.api.requests.RestAction RestAction} callbacks on, or {@code null} to use the default of JDA (only set if {@link LazySettings#virtualThreads} is enabled)
+     */
+    @Nullable private final ThreadPoolProvider.LazySharedProvider<ExecutorService> callbackPool;
+    /**
+     * The pool that all shards schedule rate-limited requests on
+     */
+    @NotNull private final ThreadPoolProvider.LazySharedProvider<ScheduledExecutorService> rateLimitScheduler = ThreadPoolProvider.lazy(total -> Executors.newScheduledThreadPool(2, threadFactory("LazyShards-rate-limit-scheduler")));
+    /**
+     * The pool that all shards execute rate-limited requests on
+     */
+    @NotNull private final ThreadPoolProvider.LazySharedProvider<ExecutorService> rateLimitElastic = ThreadPoolProvider.lazy(total -> Executors.newCachedThreadPool(threadFactory("LazyShards-rate-limit-elastic")));
+
+    /**
+     * Builds the {@link ShardManager} and starts logging in the shards
+     *
+     * @param   settings                    the {@link LazySettings settings} of the bot
+     *
+     * @throws  IllegalArgumentException    if {@link LazySettings#shardsTotal} isn't set or the {@link DefaultShardManagerBuilder} is invalid (for example if the token is missing)
+     */
+    public LazyShards(@NotNull LazySettings settings) {
+        final Integer shardsTotal = settings.shardsTotal;
+        if (shardsTotal == null) throw new IllegalArgumentException("Sharding isn't enabled");
+        eventPool = ThreadPoolProvider.lazy(total -> settings.virtualThreads
+                ? LazyUtilities.newVirtualThreadExecutor("LazyShards-event")
+                : Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), threadFactory("LazyShards-event")));
+        callbackPool = settings.virtualThreads ? ThreadPoolProvider.lazy(total -> LazyUtilities.newVirtualThreadExecutor("LazyShards-callback")) : null;
+        final DefaultShardManagerBuilder builder = DefaultShardManagerBuilder.create(settings.getFileSettings().token, settings.gatewayIntents)
+                .setShardsTotal(shardsTotal)
+                // JDA's own shutdown hook would cancel queued REST actions at the same time as LazyLibrary#shutdown(), so only that stops the shards
+                .setEnableShutdownHook(false)
+                .setEventPoolProvider(eventPool)
+                .setRateLimitSchedulerProvider(rateLimitScheduler)
+                .setRateLimitElasticProvider(rateLimitElastic);
+        if (callbackPool != null) builder.setCallbackPoolProvider(callbackPool);
+        if (settings.shardManagerBuilder != null) settings.shardManagerBuilder.accept(builder);
+        manager = builder.build();
+    }
+
+    /**
+     * Waits for all shards to be ready
+     *
+     * @return                          the {@link #getFirst() first shard}
+     *
+     * @throws  InterruptedException    if interrupted while waiting
+     * @throws  IllegalStateException   if a shard shut down before it was ready (for example if the token is invalid), or the {@link #manager} was shut down
+     */
+    @NotNull
+    public JDA awaitReady() throws InterruptedException {
+        // Shards are created one login bucket at a time, so wait for each one to exist before waiting for it to be ready
+        final int total = manager.getShardsTotal();
+        for (int id = 0; id < total; id++) {
+            JDA shard = manager.getShardById(id);
+            boolean missing = false;
+            while (shard == null) {
+                // Neither running nor queued (twice in a row, since a restarting shard is briefly neither), so it will never start
+                if (manager.getShardsQueued() == 0) {
+                    if (missing) throw new IllegalStateException("Shard " + id + " will never start, the shard manager was shut down");
+                    missing = true;
+                } else {
+                    missing = false;
+                }
+                Thread.sleep(SHARD_POLL_MILLIS);
+                shard = manager.getShardById(id);
+            }
+            shard.awaitReady();
+        }
+        return getFirst();
+    }
+
+    /**
+     * Gets the first shard (the one with the lowest ID), which is used as {@link LazyLibrary#jda}
+     *
+     * @return                          the first shard
+     *
+     * @throws  IllegalStateException   if there are no shards
+     */
+    @NotNull
+    public JDA getFirst() {
+        return manager.getShards().stream()
+                .min(Comparator.comparingInt(shard -> shard.getShardInfo().getShardId()))
+                .orElseThrow(() -> new IllegalStateException("There are no shards"));
+    }
+
+    /**
+     * Runs an action once for every shard that's ready, and for every shard that becomes ready later (a shard the {@link #manager} restarts is a new {@link JDA} instance, so the action runs for it again)
+     * <br>Shards that become ready later are handled on the event pool, and errors of the action are logged
+     *
+     * @param   action  the action to run with each shard (for example building BotCommands on it)
+     */
+    public void forEachReadyShard(@NotNull Consumer<JDA> action) {
+        final Set<JDA> handled = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+        final Consumer<JDA> once = shard -> {
+            if (handled.add(shard)) try {
+                action.accept(shard);
+            } catch (final RuntimeException e) {
+                LazyLibrary.LOGGER.error("Failed to set up shard {}", shard.getShardInfo().getShardId(), e);
+            }
+        };
+        // Listen first, so a shard that becomes ready while the current ones are handled isn't missed
+        manager.addEventListener(new ListenerAdapter() {
+            @Override
+            public void onReady(@NotNull ReadyEvent event) {
+                once.accept(event.getJDA());
+            }
+        });
+        for (final JDA shard : manager.getShards()) if (shard.getStatus() == JDA.Status.CONNECTED) once.accept(shard);
+    }
+
+    /**
+     * Gets the status of every shard
+     *
+     * @return  the {@link ShardStatus statuses}, ordered by shard ID
+     */
+    @NotNull
+    public List<ShardStatus> getStatuses() {
+        return manager.getShards().stream()
+                .map(ShardStatus::of)
+                .sorted(Comparator.comparingInt(ShardStatus::id))
+                .toList();
+    }
+
+    /**
+     * Shuts down the shared pools (call this after all shards are shut down)
+     */
+    public void shutdownPools() {
+        eventPool.shutdown();
+        if (callbackPool != null) callbackPool.shutdown();
+        rateLimitScheduler.shutdown();
+        rateLimitElastic.shutdown();
+    }
+
+    /**
+     * Creates a {@link ThreadFactory} for daemon threads
+     *
+     * @param   name    the prefix of the names of the threads
+     *
+     * @return          the {@link ThreadFactory}
+     */
+    @NotNull
+    private static ThreadFactory threadFactory(@NotNull String name) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The status of a shard
+     *
+     * @param   id          the ID of the shard
+     * @param   status      the {@link JDA.Status status} of the shard
+     * @param   gatewayPing the gateway ping of the shard in milliseconds ({@code -1} if it wasn't measured yet)
+     * @param   guilds      the amount of guilds on the shard
+     */
+    public record ShardStatus(int id, @NotNull JDA.Status status, long gatewayPing, long guilds) {
+        /**
+         * Gets the status of a shard
+         *
+         * @param   shard   the shard (or the only {@link JDA} of a bot that isn't sharded)
+         *
+         * @return          the {@link ShardStatus}
+         */
+        @NotNull
+        public static ShardStatus of(@NotNull JDA shard) {
+            return new ShardStatus(shard.getShardInfo().getShardId(), shard.getStatus(), shard.getGatewayPing(), shard.getGuildCache().size());
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package xyz.srnyx.lazylibrary;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.lazylibrary.utility.LazyUtilities;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+
+/**
+ * Splits oversized embeds and messages into pieces that fit within Discord's limits
+ * <ul>
+ *     <li>Embeds: {@value MessageEmbed#MAX_FIELD_AMOUNT} fields and {@value MessageEmbed#EMBED_MAX_LENGTH_BOT} characters, field names are truncated to {@value MessageEmbed#TITLE_MAX_LENGTH} characters and field values longer than {@value MessageEmbed#VALUE_MAX_LENGTH} characters continue in extra fields (named {@link #CONTINUATION_NAME})</li>
+ *     <li>Messages: {@value Message#MAX_EMBED_COUNT} embeds with {@value MessageEmbed#EMBED_MAX_LENGTH_BOT} characters in total, content longer than {@value Message#MAX_CONTENT_LENGTH} characters continues in extra messages</li>
+ * </ul>
+ * Everything is done with {@link Iterator iterators} that only build the next piece when it's requested, so huge field collections never have to be in memory all at once
+ * <br>The first embed has the full header of the original embed, the following ones have everything except the description
+ *
+ * @see LazyEmbed#split(LazyLibrary, Iterator)
+ * @see LazyMessage#split(LazyLibrary)
+ * @see Pages
+ */
+public class LazySplitter {
+    /**
+     * The name of the fields that continue the value of the previous field
+     */
+    @NotNull public static final String CONTINUATION_NAME = EmbedBuilder.ZERO_WIDTH_SPACE;
+    /**
+     * The maximum length of a single field (name + value)
+     */
+    private static final int MAX_FIELD_LENGTH = MessageEmbed.TITLE_MAX_LENGTH + MessageEmbed.VALUE_MAX_LENGTH;
+
+    /**
+     * Groups {@link MessageEmbed MessageEmbeds} into messages that fit within Discord's limits
+     *
+     * @param   content the content of the messages (split into multiple messages if it's too long, the embeds are added to the last one)
+     * @param   embeds  the {@link MessageEmbed MessageEmbeds} to group (each must fit within the limits on its own, like the ones from {@link LazyEmbed#split(LazyLibrary)})
+     *
+     * @return          the messages, built one at a time as they're iterated
+     */
+    @NotNull
+    public static Iterator<MessageCreateData> messages(@Nullable String content, @NotNull Iterator<MessageEmbed> embeds) {
+        final List<String> contents = content == null || content.isEmpty() ? Collections.emptyList() : splitText(content, Message.MAX_CONTENT_LENGTH);
+        final Peeking<MessageEmbed> peeking = new Peeking<>(embeds);
+        return new Iterator<>() {
+            /**
+             * The index of the next content chunk
+             */
+            private int contentIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return contentIndex < contents.size() || peeking.hasNext();
+            }
+
+            @Override @NotNull
+            public MessageCreateData next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                final MessageCreateBuilder builder = new MessageCreateBuilder();
+                if (contentIndex < contents.size()) {
+                    builder.setContent(contents.get(contentIndex++));
+                    if (contentIndex < contents.size()) return builder.build();
+                }
+
+                // Embeds
+                final List<MessageEmbed> batch = new ArrayList<>();
+                int length = 0;
+                while (peeking.hasNext() && batch.size() < Message.MAX_EMBED_COUNT) {
+                    final int embedLength = peeking.peek().getLength();
+                    if (!batch.isEmpty() && length + embedLength > MessageEmbed.EMBED_MAX_LENGTH_BOT) break;
+                    batch.add(peeking.next());
+                    length += embedLength;
+                }
+                return builder.setEmbeds(batch).build();
+            }
+        };
+    }
+
+    /**
+     * Splits a text into chunks of at most {@code max} characters, preferring to split after a line break (or else after a space)
+     *
+     * @param   text    the text to split
+     * @param   max     the maximum length of a chunk
+     *
+     * @return          the chunks (joining them gives the original text)
+     */
+    @NotNull
+    public static List<String> splitText(@NotNull String text, int max) {
+        if (text.length() <= max) return List.of(text);
+        final List<String> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            final int end = chunkEnd(text, start, max);
+            chunks.add(text.substring(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Splits embeds into {@link MessageEmbed MessageEmbeds} using the given header and fields
+     *
+     * @param   header  the resolved header of the embeds ({@link LazyEmbed.Draft#fields} is ignored)
+     * @param   fields  the fields to split
+     *
+     * @return          the {@link MessageEmbed MessageEmbeds}, built one at a time as they're iterated
+     */
+    @NotNull
+    static Iterator<MessageEmbed> embeds(@NotNull LazyEmbed.Draft header, @NotNull Iterator<MessageEmbed.Field> fields) {
+        // Header limits
+        header.authorName = truncate(header.authorName, MessageEmbed.AUTHOR_MAX_LENGTH);
+        header.titleText = truncate(header.titleText, MessageEmbed.TITLE_MAX_LENGTH);
+        header.footerText = truncate(header.footerText, MessageEmbed.TEXT_MAX_LENGTH);
+        final int continuationLength = length(header.authorName) + length(header.titleText) + length(header.footerText);
+        // Leave room for at least one field
+        header.description = truncate(header.description, Math.min(MessageEmbed.DESCRIPTION_MAX_LENGTH, MessageEmbed.EMBED_MAX_LENGTH_BOT - MAX_FIELD_LENGTH - continuationLength));
+
+        final Peeking<MessageEmbed.Field> peeking = new Peeking<>(new Normalizer(fields));
+        return new Iterator<>() {
+            /**
+             * Whether the next embed is the first one
+             */
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                return first || peeking.hasNext();
+            }
+
+            @Override @NotNull
+            public MessageEmbed next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                final LazyEmbed.Draft piece = new LazyEmbed.Draft();
+                piece.color = header.color;
+                piece.authorName = header.authorName;
+                piece.authorUrl = header.authorUrl;
+                piece.authorIcon = header.authorIcon;
+                piece.titleText = header.titleText;
+                piece.titleUrl = header.titleUrl;
+                if (first) piece.description = header.description;
+                piece.thumbnail = header.thumbnail;
+                piece.image = header.image;
+                piece.footerText = header.footerText;
+                piece.footerIcon = header.footerIcon;
+                piece.timestamp = header.timestamp;
+                first = false;
+
+                // Fields
+                int length = continuationLength + length(piece.description);
+                while (peeking.hasNext() && piece.fields.size() < MessageEmbed.MAX_FIELD_AMOUNT) {
+                    final MessageEmbed.Field field = peeking.peek();
+                    final int fieldLength = length(field.getName()) + length(field.getValue());
+                    if (length + fieldLength > MessageEmbed.EMBED_MAX_LENGTH_BOT) break;
+                    piece.fields.add(peeking.next());
+                    length += fieldLength;
+                }
+                return piece.build();
+            }
+        };
+    }
+
+    /**
+     * Joins multiple {@link Iterator iterators} into one, only moving on to the next one once the current one is exhausted
+     *
+     * @param   iterators   the {@link Iterator iterators} to join
+     *
+     * @return              the joined {@link Iterator}
+     *
+     * @param   <T>         the type of the elements
+     */
+    @NotNull
+    public static <T> Iterator<T> concat(@NotNull Iterator<? extends Iterator<? extends T>> iterators) {
+        return new Iterator<>() {
+            /**
+             * The current {@link Iterator}
+             */
+            @NotNull private Iterator<? extends T> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (!iterators.hasNext()) return false;
+                    current = iterators.next();
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Gets the end of the next chunk of a text
+     *
+     * @param   text    the text
+     * @param   start   the start of the chunk
+     * @param   max     the maximum length of the chunk
+     *
+     * @return          the (exclusive) end of the chunk
+     */
+    private static int chunkEnd(@NotNull String text, int start, int max) {
+        final int limit = start + max;
+        if (limit >= text.length()) return text.length();
+        // Prefer a line break, then a space, in the second half of the chunk
+        final int minimum = start + max / 2;
+        final int newLine = text.lastIndexOf('\n', limit - 1);
+        if (newLine >= minimum) return newLine + 1;
+        final int space = text.lastIndexOf(' ', limit - 1);
+        if (space >= minimum) return space + 1;
+        // Don't split surrogate pairs
+        return Character.isHighSurrogate(text.charAt(limit - 1)) ? limit - 1 : limit;
+    }
+
+    /**
+     * Truncates a text to a maximum length, ending it with {@code …} if it was truncated
+     *
+     * @param   text    the text
+     * @param   max     the maximum length
+     *
+     * @return          the truncated text
+     */
+    @Nullable
+    private static String truncate(@Nullable String text, int max) {
+        if (text == null || text.length() <= max) return text;
+        int end = max - 1;
+        if (Character.isHighSurrogate(text.charAt(end - 1))) end--;
+        return text.substring(0, end) + "…";
+    }
+
+    /**
+     * Gets the length of a nullable text
+     *
+     * @param   text    the text
+     *
+     * @return          the length, or {@code 0} if it's {@code null}
+     */
+    private static int length(@Nullable String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    /**
+     * Creates a field, letting JDA check and trim it unless the name or value is {@code null}
+     *
+     * @param   name    the name of the field
+     * @param   value   the value of the field
+     * @param   inline  whether the field is inline
+     *
+     * @return          the field
+     */
+    @NotNull
+    private static MessageEmbed.Field field(@Nullable String name, @Nullable String value, boolean inline) {
+        return new MessageEmbed.Field(name, value, inline, name != null && value != null);
+    }
+
+    /**
+     * Makes fields fit within the field limits, truncating names and continuing long values in extra fields
+     */
+    private static final class Normalizer implements Iterator<MessageEmbed.Field> {
+        /**
+         * The fields to normalize
+         */
+        @NotNull private final Iterator<MessageEmbed.Field> fields;
+        /**
+         * The field whose value is being continued
+         */
+        @Nullable private MessageEmbed.Field current;
+        /**
+         * The start of the rest of the value of {@link #current}
+         */
+        private int offset;
+
+        /**
+         * Creates a new {@link Normalizer}
+         *
+         * @param   fields  {@link #fields}
+         */
+        private Normalizer(@NotNull Iterator<MessageEmbed.Field> fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null || fields.hasNext();
+        }
+
+        @Override @NotNull
+        public MessageEmbed.Field next() {
+            if (current == null) {
+                final MessageEmbed.Field field = fields.next();
+                final String name = field.getName();
+                final String value = field.getValue();
+                final boolean nameFits = name == null || name.length() <= MessageEmbed.TITLE_MAX_LENGTH;
+                if (nameFits && (value == null || value.length() <= MessageEmbed.VALUE_MAX_LENGTH)) return field;
+                if (value == null || value.length() <= MessageEmbed.VALUE_MAX_LENGTH) return field(truncate(name, MessageEmbed.TITLE_MAX_LENGTH), value, field.isInline());
+                current = field;
+                offset = 0;
+            }
+
+            // Long value
+            final String value = Objects.requireNonNull(current.getValue());
+            final int end = chunkEnd(value, offset, MessageEmbed.VALUE_MAX_LENGTH);
+            final String name = offset == 0 ? truncate(current.getName(), MessageEmbed.TITLE_MAX_LENGTH) : CONTINUATION_NAME;
+            final MessageEmbed.Field chunk = field(name, value.substring(offset, end), current.isInline());
+            offset = end;
+            if (offset >= value.length()) current = null;
+            return chunk;
+        }
+    }
+
+    /**
+     * An {@link Iterator} that can look at its next element without moving past it
+     *
+     * @param   <T> the type of the elements
+     */
+    private static final class Peeking<T> implements Iterator<T> {
+        /**
+         * The wrapped {@link Iterator}
+         */
+        @NotNull private final Iterator<? extends T> iterator;
+        /**
+         * The peeked element
+         */
+        @Nullable private T peeked;
+
+        /**
+         * Creates a new {@link Peeking}
+         *
+         * @param   iterator    {@link #iterator}
+         */
+        private Peeking(@NotNull Iterator<? extends T> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return peeked != null || iterator.hasNext();
+        }
+
+        /**
+         * Gets the next element without moving past it
+         *
+         * @return  the next element
+         */
+        @NotNull
+        private T peek() {
+            if (peeked == null) peeked = iterator.next();
+            return peeked;
+        }
+
+        @Override @NotNull
+        public T next() {
+            final T next = peek();
+            peeked = null;
+            return next;
+        }
+    }
+
+    /**
+     * Pages of {@link MessageEmbed MessageEmbeds} that are built when they're first requested, for use with {@link LazyUtilities#getDefaultPaginator(Pages)}
+     * <br>Pages are kept once built, so only the pages up to the furthest one that was viewed are ever in memory
+     * <br>If the amount of pages isn't given, it's only counted when {@link #size()} is first called (or when the last page is built)
+     */
+    public static final class Pages {
+        /**
+         * The {@link Iterator} the pages are built from
+         */
+        @NotNull private final Iterator<MessageEmbed> source;
+        /**
+         * The supplier used to count the pages, or {@code null} if the amount was given or was already counted
+         */
+        @Nullable private Supplier<Iterator<MessageEmbed>> counter;
+        /**
+         * The amount of pages (only valid once {@link #counter} is {@code null})
+         */
+        private int size;
+        /**
+         * The pages that were built so far
+         */
+        @NotNull private final List<MessageEmbed> built = new ArrayList<>();
+
+        /**
+         * Creates new {@link Pages} whose amount is already known, so the pages never have to be counted
+         *
+         * @param   source  the pages
+         * @param   size    the amount of pages {@code source} has
+         */
+        public Pages(@NotNull Iterator<MessageEmbed> source, int size) {
+            this.source = source;
+            this.size = size;
+        }
+
+        /**
+         * Creates new {@link Pages} whose amount is counted when it's first needed
+         * <br>The first {@link Iterator} is used to build the pages on demand, a second one is only used to count the pages (without keeping them) if {@link #size()} is called before the last page was built
+         *
+         * @param   source  the supplier of the pages (must give the same pages every time, for example {@code () -> embed.split(library, rows.iterator())})
+         */
+        public Pages(@NotNull Supplier<Iterator<MessageEmbed>> source) {
+            this.source = source.get();
+            this.counter = source;
+        }
+
+        /**
+         * Gets the amount of pages, counting them if they weren't counted yet
+         *
+         * @return  the amount of pages
+         */
+        public synchronized int size() {
+            if (counter != null) {
+                if (source.hasNext()) {
+                    int count = 0;
+                    for (final Iterator<MessageEmbed> iterator = counter.get(); iterator.hasNext(); iterator.next()) count++;
+                    size = count;
+                } else {
+                    size = built.size();
+                }
+                counter = null;
+            }
+            return size;
+        }
+
+        /**
+         * Gets a page, building it (and the pages before it) if it wasn't built yet
+         *
+         * @param   page                        the index of the page (starting at {@code 0})
+         *
+         * @return                              the page
+         *
+         * @throws  IndexOutOfBoundsException   if the page doesn't exist
+         */
+        @NotNull
+        public synchronized MessageEmbed get(int page) {
+            while (built.size() <= page && source.hasNext()) built.add(source.next());
+            if (counter != null && !source.hasNext()) {
+                size = built.size();
+                counter = null;
+            }
+            return built.get(page);
+        }
+    }
+
+    private LazySplitter() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+}
@@ -0,0 +1,345 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+
+/**
+ * Runs the phases of the bot's startup, starting each one as soon as the phases it depends on are done, so independent phases run at the same time
+ * <br>{@link LazyLibrary} uses this for its own phases (for example {@link #LOGIN} and {@link #DATABASE}), and joins all phases before {@link LazyLibrary#onNecessaryTasksDone()}
+ * <br>Add your own phases in {@link LazyLibrary#setSettings()}, {@link LazyLibrary#onStart()}, or {@link LazyLibrary#onReady()} (for example loading files with {@link LazyFileLoader})
+ * <br>Every phase (and every step {@link #time(String, Runnable) timed} on the main thread) is timed for the {@link StartupReport} and recorded as a {@link PhaseEvent JFR event}
+ */
+public class LazyStartup extends Stringable {
+    /**
+     * The phase that builds {@link net.dv8tion.jda.api.JDA JDA} and starts logging in to Discord
+     */
+    @NotNull public static final String LOGIN = "login";
+    /**
+     * The phase that waits for {@link net.dv8tion.jda.api.JDA JDA} to be ready (depends on {@link #LOGIN})
+     */
+    @NotNull public static final String READY = "ready";
+    /**
+     * The phase that creates the database connection pool and opens its first connection
+     */
+    @NotNull public static final String DATABASE = "database";
+
+    /**
+     * The phases by their name (in the order they were added)
+     */
+    @NotNull private final Map<String, CompletableFuture<?>> phases = new LinkedHashMap<>();
+    /**
+     * The threads that run the phases
+     */
+    @NotNull private final ExecutorService executor;
+    /**
+     * When the startup started ({@link System#nanoTime()})
+     */
+    private final long startNanos = System.nanoTime();
+    /**
+     * The timings of the phases that ran (in the order they finished)
+     */
+    @NotNull private final List<StartupReport.Phase> timings = new CopyOnWriteArrayList<>();
+    /**
+     * The {@link StartupReport}, or {@code null} if the startup isn't {@link #finish() finished}
+     */
+    @Nullable private volatile StartupReport report;
+
+    /**
+     * Creates a new {@link LazyStartup}
+     */
+    public LazyStartup() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "LazyLibrary-startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a phase that starts once all of its dependencies are done (if a dependency fails, the phase fails without running)
+     *
+     * @param   name                        the name of the phase
+     * @param   task                        the task of the phase
+     * @param   dependencies                the names of the phases it depends on (they must already be added)
+     *
+     * @return                              the {@link CompletableFuture} of the phase
+     *
+     * @param   <T>                         the type of the result of the phase
+     *
+     * @throws  IllegalArgumentException    if a phase with the name already exists or a dependency doesn't exist
+     */
+    @NotNull
+    public synchronized <T> CompletableFuture<T> phase(@NotNull String name, @NotNull Callable<T> task, @NotNull String... dependencies) {
+        if (phases.containsKey(name)) throw new IllegalArgumentException("Startup phase already exists: " + name);
+        final CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            final CompletableFuture<?> dependency = phases.get(dependencies[i]);
+            if (dependency == null) throw new IllegalArgumentException("Unknown startup phase: " + dependencies[i]);
+            dependencyFutures[i] = dependency;
+        }
+        final CompletableFuture<T> future = CompletableFuture.allOf(dependencyFutures).thenApplyAsync(ignored -> {
+            try {
+                return timed(name, task);
+            } catch (final Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        phases.put(name, future);
+        return future;
+    }
+
+    /**
+     * Adds a phase without a result that starts once all of its dependencies are done
+     *
+     * @param   name                        the name of the phase
+     * @param   task                        the task of the phase
+     * @param   dependencies                the names of the phases it depends on (they must already be added)
+     *
+     * @return                              the {@link CompletableFuture} of the phase
+     *
+     * @throws  IllegalArgumentException    if a phase with the name already exists or a dependency doesn't exist
+     *
+     * @see                                 #phase(String, Callable, String...)
+     */
+    @NotNull
+    public CompletableFuture<Void> phase(@NotNull String name, @NotNull Runnable task, @NotNull String... dependencies) {
+        return phase(name, () -> {
+            task.run();
+            return null;
+        }, dependencies);
+    }
+
+    /**
+     * Waits for a phase and gets its result
+     *
+     * @param   name                        the name of the phase
+     *
+     * @return                              the result of the phase
+     *
+     * @param   <T>                         the type of the result of the phase
+     *
+     * @throws  IllegalArgumentException    if the phase doesn't exist
+     * @throws  CompletionException         if the phase failed (the cause is the error of the phase)
+     */
+    @Nullable
+    public <T> T join(@NotNull String name) {
+        final CompletableFuture<?> future;
+        synchronized (this) {
+            future = phases.get(name);
+        }
+        if (future == null) throw new IllegalArgumentException("Unknown startup phase: " + name);
+        return (T) future.join();
+    }
+
+    /**
+     * Waits for all phases (including ones added while waiting), {@link LazyLibrary#LOGGER logging} the ones that failed
+     *
+     * @return  {@code true} if all phases succeeded
+     */
+    public boolean joinAll() {
+        boolean success = true;
+        int joined = 0;
+        while (true) {
+            final Map.Entry<String, CompletableFuture<?>> entry;
+            synchronized (this) {
+                if (joined >= phases.size()) return success;
+                entry = phases.entrySet().stream().skip(joined).findFirst().orElseThrow();
+            }
+            joined++;
+            try {
+                entry.getValue().join();
+            } catch (final CompletionException e) {
+                success = false;
+                LazyLibrary.LOGGER.error("Startup phase {} failed", entry.getKey(), e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Runs a step on the calling thread and times it (for steps that must run in order, like {@link LazyLibrary} hooks)
+     *
+     * @param   name    the name of the step
+     * @param   task    the step
+     */
+    public void time(@NotNull String name, @NotNull Runnable task) {
+        time(name, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a step with a result on the calling thread and times it
+     *
+     * @param   name    the name of the step
+     * @param   task    the step
+     *
+     * @return          the result of the step
+     *
+     * @param   <T>     the type of the result
+     */
+    public <T> T time(@NotNull String name, @NotNull Supplier<T> task) {
+        try {
+            return timed(name, task::get);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            // Suppliers can't throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Runs a task, recording its timing and a {@link PhaseEvent}
+     *
+     * @param   name        the name of the phase or step
+     * @param   task        the task
+     *
+     * @return              the result of the task
+     *
+     * @param   <T>         the type of the result
+     *
+     * @throws  Exception   if the task fails
+     */
+    private <T> T timed(@NotNull String name, @NotNull Callable<T> task) throws Exception {
+        final PhaseEvent event = new PhaseEvent();
+        event.phase = name;
+        event.begin();
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            final T result = task.call();
+            success = true;
+            return result;
+        } finally {
+            final long end = System.nanoTime();
+            event.success = success;
+            event.commit();
+            timings.add(new StartupReport.Phase(name, Thread.currentThread().getName(), start - startNanos, end - start, success));
+        }
+    }
+
+    /**
+     * Finishes the startup: creates the {@link StartupReport} (from the phases and steps that finished so far) and stops the threads once all running phases are done (no phases can be added afterwards)
+     *
+     * @return  the {@link StartupReport}
+     */
+    @NotNull
+    public StartupReport finish() {
+        final List<StartupReport.Phase> phaseTimings = new ArrayList<>(timings);
+        phaseTimings.sort(Comparator.comparingLong(StartupReport.Phase::startNanos));
+        final StartupReport newReport = new StartupReport(phaseTimings, System.nanoTime() - startNanos);
+        report = newReport;
+        executor.shutdown();
+        return newReport;
+    }
+
+    /**
+     * Gets the {@link StartupReport}
+     *
+     * @return  the {@link StartupReport}, or {@code null} if the startup isn't {@link #finish() finished}
+     */
+    @Nullable
+    public StartupReport getReport() {
+        return report;
+    }
+
+    /**
+     * The timings of a finished startup
+     *
+     * @param   phases      the phases and steps that ran, in the order they started
+     * @param   totalNanos  how long the whole startup took in nanoseconds
+     */
+    public record StartupReport(@NotNull List<Phase> phases, long totalNanos) {
+        /**
+         * Creates a new {@link StartupReport}
+         *
+         * @param   phases      {@link #phases}
+         * @param   totalNanos  {@link #totalNanos}
+         */
+        public StartupReport {
+            phases = List.copyOf(phases);
+        }
+
+        /**
+         * Gets the timing of a phase or step
+         *
+         * @param   name    the name of the phase or step
+         *
+         * @return          the {@link Phase}, or {@code null} if it didn't run
+         */
+        @Nullable
+        public Phase get(@NotNull String name) {
+            for (final Phase phase : phases) if (phase.name.equals(name)) return phase;
+            return null;
+        }
+
+        /**
+         * Formats the report as a table (one phase per line, with when it started and how long it took)
+         *
+         * @return  the formatted report
+         */
+        @NotNull
+        public String format() {
+            final StringBuilder builder = new StringBuilder(String.format("Startup took %.1fms", totalNanos / 1_000_000d));
+            for (final Phase phase : phases) builder.append(String.format("%n  %-24s +%8.1fms %8.1fms  %s%s",
+                    phase.name,
+                    phase.startNanos / 1_000_000d,
+                    phase.durationNanos / 1_000_000d,
+                    phase.thread,
+                    phase.success ? "" : " (failed)"));
+            return builder.toString();
+        }
+
+        /**
+         * The timing of a phase or step
+         *
+         * @param   name            the name of the phase or step
+         * @param   thread          the name of the thread it ran on
+         * @param   startNanos      when it started in nanoseconds, relative to the start of the startup
+         * @param   durationNanos   how long it took in nanoseconds
+         * @param   success         whether it succeeded
+         */
+        public record Phase(@NotNull String name, @NotNull String thread, long startNanos, long durationNanos, boolean success) {}
+    }
+
+    /**
+     * The JFR event recorded for each phase and step
+     */
+    @Name("xyz.srnyx.lazylibrary.StartupPhase")
+    @Label("Startup Phase")
+    @Category("LazyLibrary")
+    @Description("A phase or step of the bot's startup")
+    private static class PhaseEvent extends Event {
+        /**
+         * The name of the phase or step
+         */
+        @Label("Phase")
+        String phase;
+        /**
+         * Whether the phase or step succeeded
+         */
+        @Label("Success")
+        boolean success;
+    }
+}
@@ -0,0 +1,113 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.spongepowered.configurate.ConfigurationNode;
+
+import xyz.srnyx.javautilities.parents.Stringable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+
+/**
+ * A typed view of a node in a {@link LazyFile}, resolved once into a value (usually an immutable class or record with plain fields) instead of looking up the node on every read
+ * <br>The value is rebuilt and swapped in atomically whenever the file is {@link LazyFile#load() loaded} (including {@link LazyFile#watch() hot reloads}), so {@link #get()} is a single volatile read
+ * <br>If rebuilding fails, the error is printed and the previous value is kept
+ *
+ * @param   <T> the type of the value
+ *
+ * @see     LazyFile#view(Function, Object...)
+ */
+public class LazyView<T> extends Stringable {
+    /**
+     * The {@link LazyFile} the node is in
+     */
+    @NotNull public final LazyFile file;
+    /**
+     * The path to the node (empty for the root node)
+     */
+    @NotNull private final Object[] path;
+    /**
+     * Creates the value from the node (virtual if it doesn't exist)
+     */
+    @NotNull private final Function<ConfigurationNode, T> factory;
+    /**
+     * The listeners called after the value is rebuilt
+     */
+    @NotNull private final List<Consumer<T>> rebuildListeners = new CopyOnWriteArrayList<>();
+    /**
+     * The listener registered with {@link LazyFile#onLoad(Consumer)}
+     */
+    @NotNull private final Consumer<LazyFile> loadListener = loaded -> rebuild();
+    /**
+     * The current value
+     */
+    @NotNull private volatile T value;
+
+    /**
+     * Creates a new {@link LazyView} and resolves its value
+     *
+     * @param   file    {@link #file}
+     * @param   factory {@link #factory}
+     * @param   path    {@link #path}
+     */
+    public LazyView(@NotNull LazyFile file, @NotNull Function<ConfigurationNode, T> factory, @NotNull Object... path) {
+        this.file = file;
+        this.path = path.clone();
+        this.factory = factory;
+        this.value = factory.apply(file.yaml.node(this.path));
+        file.onLoad(loadListener);
+    }
+
+    /**
+     * Gets the current value
+     *
+     * @return  the current value
+     */
+    @NotNull
+    public T get() {
+        return value;
+    }
+
+    /**
+     * Adds a listener that's called (on the loading thread) with the new value after it's rebuilt
+     *
+     * @param   listener    the listener
+     *
+     * @return              {@code this}
+     */
+    @NotNull
+    public LazyView<T> onRebuild(@NotNull Consumer<T> listener) {
+        rebuildListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Stops rebuilding the value when the file is loaded (the current value stays available)
+     */
+    public void close() {
+        file.removeOnLoad(loadListener);
+    }
+
+    /**
+     * Rebuilds the value from the current node of the {@link #file}
+     */
+    private void rebuild() {
+        final T newValue;
+        try {
+            newValue = factory.apply(file.yaml.node(path));
+        } catch (final RuntimeException e) {
+            e.printStackTrace();
+            return;
+        }
+        value = newValue;
+        for (final Consumer<T> listener : rebuildListeners) try {
+            listener.accept(newValue);
+        } catch (final RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
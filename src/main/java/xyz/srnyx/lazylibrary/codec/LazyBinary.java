@@ -0,0 +1,607 @@
+package xyz.srnyx.lazylibrary.codec;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.lazylibrary.LazyEmbed;
+import xyz.srnyx.lazylibrary.LazyMessage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+
+
+/**
+ * A compact, versioned binary format for {@link LazyEmbed LazyEmbeds} and {@link LazyMessage LazyMessages}
+ * <br>Round trips are lossless, including {@link LazyEmbed#replacements} and {@link LazyEmbed#disabledDefaults} (but not the suppliers of {@link LazyEmbed#replace(String, java.util.function.Supplier) lazy replacements})
+ * <br>Timestamps keep their instant and their UTC offset: an {@link Instant} is read back as an {@link Instant}, anything with an offset as an {@link OffsetDateTime} (a {@link java.time.ZonedDateTime} keeps its offset but not its region)
+ * <br><br>Embed layout:
+ * <ul>
+ *     <li>presence bitmask (varint), one {@link LazyEmbed.Key#bit bit} per {@link LazyEmbed.Key}</li>
+ *     <li>the value of each present {@link LazyEmbed.Key} in ordinal order: color as a 4-byte int, timestamp as zigzag varint seconds + varint nanoseconds + varint offset ({@code 0} for none, otherwise the zigzag offset seconds + 1), everything else as a string</li>
+ *     <li>field count (varint), then each field as a flags byte (inline, has name, has value) followed by its name and value strings</li>
+ *     <li>{@link LazyEmbed#disabledDefaults} bitmask (varint)</li>
+ *     <li>replacement count (varint), then each replacement as a key and value string</li>
+ * </ul>
+ * Strings are a varint UTF-8 byte length followed by the UTF-8 bytes. Top-level values start with the {@link #VERSION} byte
+ * <br>Version {@code 1} (no timestamp offset) can still be read. Counts and lengths are checked against the remaining bytes, so malformed input can't make the reader allocate more than the input's size
+ */
+public class LazyBinary {
+    /**
+     * The current version of the format
+     */
+    public static final byte VERSION = 2;
+    /**
+     * The oldest version of the format that can still be read
+     */
+    private static final byte MIN_VERSION = 1;
+    /**
+     * The largest {@link ZoneOffset} in seconds
+     */
+    private static final int MAX_OFFSET_SECONDS = 18 * 60 * 60;
+
+    /**
+     * The flag for an inline field
+     */
+    private static final int FIELD_INLINE = 1;
+    /**
+     * The flag for a field with a name
+     */
+    private static final int FIELD_NAME = 1 << 1;
+    /**
+     * The flag for a field with a value
+     */
+    private static final int FIELD_VALUE = 1 << 2;
+    /**
+     * The {@link LazyEmbed.Key keys} that are stored as strings, in ordinal order
+     */
+    @NotNull private static final LazyEmbed.Key[] STRING_KEYS = Arrays.stream(LazyEmbed.Key.values())
+            .filter(key -> key != LazyEmbed.Key.COLOR && key != LazyEmbed.Key.TIMESTAMP)
+            .toArray(LazyEmbed.Key[]::new);
+
+    /**
+     * Encodes a {@link LazyEmbed} into a new {@link ByteBuffer} (flipped, ready to be read)
+     *
+     * @param   embed   the {@link LazyEmbed} to encode
+     *
+     * @return          the encoded {@link LazyEmbed}
+     */
+    @NotNull
+    public static ByteBuffer encodeEmbed(@NotNull LazyEmbed embed) {
+        final ByteBuffer buffer = ByteBuffer.allocate(1 + embedSize(embed));
+        writeEmbed(buffer, embed);
+        return buffer.flip();
+    }
+
+    /**
+     * Writes a {@link LazyEmbed} (with the {@link #VERSION} byte) to a {@link ByteBuffer}
+     *
+     * @param   buffer  the {@link ByteBuffer} to write to (must have at least {@link #embedSize(LazyEmbed)} + 1 bytes remaining)
+     * @param   embed   the {@link LazyEmbed} to write
+     */
+    public static void writeEmbed(@NotNull ByteBuffer buffer, @NotNull LazyEmbed embed) {
+        buffer.put(VERSION);
+        putEmbed(buffer, embed);
+    }
+
+    /**
+     * Reads a {@link LazyEmbed} (with the {@link #VERSION} byte) from a {@link ByteBuffer}
+     *
+     * @param   buffer                      the {@link ByteBuffer} to read from
+     *
+     * @return                              the {@link LazyEmbed}
+     *
+     * @throws  IllegalArgumentException    if the version isn't supported or the data is malformed
+     * @throws  BufferUnderflowException    if the data is truncated
+     */
+    @NotNull
+    public static LazyEmbed readEmbed(@NotNull ByteBuffer buffer) {
+        return getEmbed(buffer, checkVersion(buffer.get()));
+    }
+
+    /**
+     * Encodes a {@link LazyMessage} into a new {@link ByteBuffer} (flipped, ready to be read)
+     *
+     * @param   message the {@link LazyMessage} to encode
+     *
+     * @return          the encoded {@link LazyMessage}
+     */
+    @NotNull
+    public static ByteBuffer encodeMessage(@NotNull LazyMessage message) {
+        final ByteBuffer buffer = ByteBuffer.allocate(1 + messageSize(message));
+        writeMessage(buffer, message);
+        return buffer.flip();
+    }
+
+    /**
+     * Writes a {@link LazyMessage} (with the {@link #VERSION} byte) to a {@link ByteBuffer}
+     *
+     * @param   buffer  the {@link ByteBuffer} to write to (must have at least {@link #messageSize(LazyMessage)} + 1 bytes remaining)
+     * @param   message the {@link LazyMessage} to write
+     */
+    public static void writeMessage(@NotNull ByteBuffer buffer, @NotNull LazyMessage message) {
+        buffer.put(VERSION);
+        buffer.put((byte) (message.content != null ? 1 : 0));
+        if (message.content != null) putString(buffer, message.content);
+        putVarInt(buffer, message.embeds.size());
+        for (final LazyEmbed embed : message.embeds) putEmbed(buffer, embed);
+    }
+
+    /**
+     * Reads a {@link LazyMessage} (with the {@link #VERSION} byte) from a {@link ByteBuffer}
+     *
+     * @param   buffer                      the {@link ByteBuffer} to read from
+     *
+     * @return                              the {@link LazyMessage}
+     *
+     * @throws  IllegalArgumentException    if the version isn't supported or the data is malformed
+     * @throws  BufferUnderflowException    if the data is truncated
+     */
+    @NotNull
+    public static LazyMessage readMessage(@NotNull ByteBuffer buffer) {
+        final byte version = checkVersion(buffer.get());
+        final String content = buffer.get() != 0 ? getString(buffer) : null;
+        // An embed is at least 4 bytes (presence, field count, disabled defaults, replacement count)
+        final int count = getCount(buffer, 4);
+        final List<LazyEmbed> embeds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) embeds.add(getEmbed(buffer, version));
+        return new LazyMessage(content, embeds);
+    }
+
+    /**
+     * Calculates the encoded size of a {@link LazyEmbed} (excluding the {@link #VERSION} byte)
+     *
+     * @param   embed   the {@link LazyEmbed}
+     *
+     * @return          the encoded size in bytes
+     */
+    public static int embedSize(@NotNull LazyEmbed embed) {
+        final String[] strings = strings(embed);
+        int size = 0;
+        int presence = 0;
+        if (embed.getColor() != 0) {
+            presence |= LazyEmbed.Key.COLOR.bit;
+            size += 4;
+        }
+        for (int i = 0; i < strings.length; i++) if (strings[i] != null) {
+            presence |= STRING_KEYS[i].bit;
+            size += stringSize(strings[i]);
+        }
+        final TemporalAccessor timestamp = embed.getTimestamp();
+        if (timestamp != null) {
+            presence |= LazyEmbed.Key.TIMESTAMP.bit;
+            size += varLongSize(zigZag(timestamp.getLong(ChronoField.INSTANT_SECONDS))) + varIntSize(timestamp.get(ChronoField.NANO_OF_SECOND)) + varIntSize(offset(timestamp));
+        }
+        size += varIntSize(presence);
+
+        // Fields
+        final List<MessageEmbed.Field> fields = embed.getFields();
+        size += varIntSize(fields.size());
+        for (final MessageEmbed.Field field : fields) {
+            size++;
+            if (field.getName() != null) size += stringSize(field.getName());
+            if (field.getValue() != null) size += stringSize(field.getValue());
+        }
+
+        // Disabled defaults and replacements
+        size += varIntSize(mask(embed.disabledDefaults));
+        size += varIntSize(embed.replacements.size());
+        for (final Map.Entry<String, String> entry : embed.replacements.entrySet()) size += stringSize(entry.getKey()) + stringSize(entry.getValue());
+        return size;
+    }
+
+    /**
+     * Calculates the encoded size of a {@link LazyMessage} (excluding the {@link #VERSION} byte)
+     *
+     * @param   message the {@link LazyMessage}
+     *
+     * @return          the encoded size in bytes
+     */
+    public static int messageSize(@NotNull LazyMessage message) {
+        int size = 1 + varIntSize(message.embeds.size());
+        if (message.content != null) size += stringSize(message.content);
+        for (final LazyEmbed embed : message.embeds) size += embedSize(embed);
+        return size;
+    }
+
+    /**
+     * Gets the string values of a {@link LazyEmbed} (same order as {@link #STRING_KEYS})
+     *
+     * @param   embed   the {@link LazyEmbed}
+     *
+     * @return          the string values
+     */
+    @NotNull
+    private static String[] strings(@NotNull LazyEmbed embed) {
+        return new String[]{embed.getAuthorName(), embed.getAuthorUrl(), embed.getAuthorIcon(), embed.getTitleText(), embed.getTitleUrl(), embed.getDescription(), embed.getThumbnail(), embed.getImage(), embed.getFooterText(), embed.getFooterIcon()};
+    }
+
+    /**
+     * Writes a {@link LazyEmbed} without the {@link #VERSION} byte
+     *
+     * @param   buffer  the {@link ByteBuffer} to write to
+     * @param   embed   the {@link LazyEmbed} to write
+     */
+    private static void putEmbed(@NotNull ByteBuffer buffer, @NotNull LazyEmbed embed) {
+        final String[] strings = strings(embed);
+        final int color = embed.getColor();
+        final TemporalAccessor timestamp = embed.getTimestamp();
+
+        // Presence
+        int presence = 0;
+        if (color != 0) presence |= LazyEmbed.Key.COLOR.bit;
+        for (int i = 0; i < strings.length; i++) if (strings[i] != null) presence |= STRING_KEYS[i].bit;
+        if (timestamp != null) presence |= LazyEmbed.Key.TIMESTAMP.bit;
+        putVarInt(buffer, presence);
+
+        // Values
+        if (color != 0) buffer.putInt(color);
+        for (final String string : strings) if (string != null) putString(buffer, string);
+        if (timestamp != null) {
+            putVarLong(buffer, zigZag(timestamp.getLong(ChronoField.INSTANT_SECONDS)));
+            putVarInt(buffer, timestamp.get(ChronoField.NANO_OF_SECOND));
+            putVarInt(buffer, offset(timestamp));
+        }
+
+        // Fields
+        final List<MessageEmbed.Field> fields = embed.getFields();
+        putVarInt(buffer, fields.size());
+        for (final MessageEmbed.Field field : fields) {
+            final String name = field.getName();
+            final String value = field.getValue();
+            buffer.put((byte) ((field.isInline() ? FIELD_INLINE : 0) | (name != null ? FIELD_NAME : 0) | (value != null ? FIELD_VALUE : 0)));
+            if (name != null) putString(buffer, name);
+            if (value != null) putString(buffer, value);
+        }
+
+        // Disabled defaults and replacements
+        putVarInt(buffer, mask(embed.disabledDefaults));
+        putVarInt(buffer, embed.replacements.size());
+        for (final Map.Entry<String, String> entry : embed.replacements.entrySet()) {
+            putString(buffer, entry.getKey());
+            putString(buffer, entry.getValue());
+        }
+    }
+
+    /**
+     * Reads a {@link LazyEmbed} without the {@link #VERSION} byte
+     *
+     * @param   buffer                      the {@link ByteBuffer} to read from
+     * @param   version                     the version of the data
+     *
+     * @return                              the {@link LazyEmbed}
+     *
+     * @throws  IllegalArgumentException    if the data is malformed
+     */
+    @NotNull
+    private static LazyEmbed getEmbed(@NotNull ByteBuffer buffer, byte version) {
+        final int presence = getVarInt(buffer);
+        final String[] strings = new String[STRING_KEYS.length];
+
+        // Values
+        final LazyEmbed embed = new LazyEmbed();
+        if (has(presence, LazyEmbed.Key.COLOR)) embed.setColor(buffer.getInt());
+        for (int i = 0; i < STRING_KEYS.length; i++) if ((presence & STRING_KEYS[i].bit) != 0) strings[i] = getString(buffer);
+        embed.setAuthor(strings[0], strings[1], strings[2]);
+        embed.setTitle(strings[3], strings[4]);
+        embed.setDescription(strings[5]);
+        embed.setThumbnail(strings[6]);
+        embed.setImage(strings[7]);
+        embed.setFooter(strings[8], strings[9]);
+        if (has(presence, LazyEmbed.Key.TIMESTAMP)) {
+            final long seconds = unZigZag(getVarLong(buffer));
+            final int nanos = getVarInt(buffer);
+            if (nanos < 0 || nanos > 999_999_999) throw new IllegalArgumentException("Malformed LazyBinary timestamp nanoseconds: " + nanos);
+            final Instant instant = Instant.ofEpochSecond(seconds, nanos);
+            final int offset = version >= 2 ? getVarInt(buffer) : 0;
+            embed.setTimestamp(offset == 0 ? instant : OffsetDateTime.ofInstant(instant, toOffset(offset)));
+        }
+
+        // Fields (a field is at least its flags byte)
+        final int fieldCount = getCount(buffer, 1);
+        final List<MessageEmbed.Field> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            final int flags = buffer.get();
+            final String name = (flags & FIELD_NAME) != 0 ? getString(buffer) : null;
+            final String value = (flags & FIELD_VALUE) != 0 ? getString(buffer) : null;
+            fields.add(new MessageEmbed.Field(name, value, (flags & FIELD_INLINE) != 0, false));
+        }
+        embed.addFields(fields);
+
+        // Disabled defaults and replacements
+        final int disabled = getVarInt(buffer);
+        for (final LazyEmbed.Key key : LazyEmbed.Key.values()) if (has(disabled, key)) embed.disabledDefaults.add(key);
+        // A replacement is at least 2 bytes (the lengths of its key and value)
+        final int replacementCount = getCount(buffer, 2);
+        for (int i = 0; i < replacementCount; i++) embed.replacements.put(getString(buffer), getString(buffer));
+        return embed;
+    }
+
+    /**
+     * Checks if the version is supported
+     *
+     * @param   version                     the version
+     *
+     * @return                              the version
+     *
+     * @throws  IllegalArgumentException    if the version isn't supported
+     */
+    private static byte checkVersion(byte version) {
+        if (version < MIN_VERSION || version > VERSION) throw new IllegalArgumentException("Unsupported LazyBinary version: " + version);
+        return version;
+    }
+
+    /**
+     * Encodes the UTC offset of a timestamp
+     *
+     * @param   timestamp   the timestamp
+     *
+     * @return              {@code 0} if the timestamp has no offset, otherwise the zigzag offset seconds + 1
+     */
+    private static int offset(@NotNull TemporalAccessor timestamp) {
+        if (!timestamp.isSupported(ChronoField.OFFSET_SECONDS)) return 0;
+        return (int) zigZag(timestamp.get(ChronoField.OFFSET_SECONDS)) + 1;
+    }
+
+    /**
+     * Decodes a UTC offset encoded by {@link #offset(TemporalAccessor)}
+     *
+     * @param   offset                      the encoded offset (not {@code 0})
+     *
+     * @return                              the {@link ZoneOffset}
+     *
+     * @throws  IllegalArgumentException    if the offset is out of range
+     */
+    @NotNull
+    private static ZoneOffset toOffset(int offset) {
+        final long seconds = unZigZag(Integer.toUnsignedLong(offset - 1));
+        if (Math.abs(seconds) > MAX_OFFSET_SECONDS) throw new IllegalArgumentException("Malformed LazyBinary timestamp offset: " + seconds);
+        return ZoneOffset.ofTotalSeconds((int) seconds);
+    }
+
+    /**
+     * Reads a count and checks that the remaining bytes can hold that many items
+     *
+     * @param   buffer                      the {@link ByteBuffer} to read from
+     * @param   minSize                     the minimum encoded size of one item in bytes
+     *
+     * @return                              the count
+     *
+     * @throws  IllegalArgumentException    if the count is negative or there aren't enough bytes left for it
+     */
+    private static int getCount(@NotNull ByteBuffer buffer, int minSize) {
+        final int count = getVarInt(buffer);
+        if (count < 0 || count > buffer.remaining() / minSize) throw new IllegalArgumentException("Malformed LazyBinary count: " + count + " with " + buffer.remaining() + " bytes remaining");
+        return count;
+    }
+
+    /**
+     * Checks if a {@link LazyEmbed.Key} is in a bitmask
+     *
+     * @param   mask    the bitmask
+     * @param   key     the {@link LazyEmbed.Key}
+     *
+     * @return          {@code true} if the bit of the key is set
+     */
+    private static boolean has(int mask, @NotNull LazyEmbed.Key key) {
+        return (mask & key.bit) != 0;
+    }
+
+    /**
+     * Converts a set of {@link LazyEmbed.Key keys} to a bitmask
+     *
+     * @param   keys    the {@link LazyEmbed.Key keys}
+     *
+     * @return          the bitmask
+     */
+    private static int mask(@NotNull Collection<LazyEmbed.Key> keys) {
+        int mask = 0;
+        for (final LazyEmbed.Key key : keys) mask |= key.bit;
+        return mask;
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string
+     *
+     * @param   buffer  the {@link ByteBuffer} to write to
+     * @param   string  the string
+     */
+    private static void putString(@NotNull ByteBuffer buffer, @NotNull String string) {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        putVarInt(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string
+     *
+     * @param   buffer                      the {@link ByteBuffer} to read from
+     *
+     * @return                              the string
+     *
+     * @throws  IllegalArgumentException    if the length is negative or longer than the remaining bytes
+     */
+    @NotNull
+    private static String getString(@NotNull ByteBuffer buffer) {
+        final int length = getCount(buffer, 1);
+        if (buffer.hasArray()) {
+            final String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return string;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Calculates the size of a length-prefixed UTF-8 string
+     *
+     * @param   string  the string
+     *
+     * @return          the size in bytes
+     */
+    private static int stringSize(@NotNull String string) {
+        final int length = utf8Length(string);
+        return varIntSize(length) + length;
+    }
+
+    /**
+     * Calculates the UTF-8 length of a string without encoding it (unpaired surrogates are encoded as {@code ?}, like {@link String#getBytes(java.nio.charset.Charset)})
+     *
+     * @param   string  the string
+     *
+     * @return          the UTF-8 length in bytes
+     */
+    private static int utf8Length(@NotNull String string) {
+        int length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes an unsigned varint
+     *
+     * @param   buffer  the {@link ByteBuffer} to write to
+     * @param   value   the value (treated as unsigned)
+     */
+    private static void putVarInt(@NotNull ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned varint
+     *
+     * @param   buffer                      the {@link ByteBuffer} to read from
+     *
+     * @return                              the value
+     *
+     * @throws  IllegalArgumentException    if the varint is too long
+     */
+    private static int getVarInt(@NotNull ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Calculates the size of an unsigned varint
+     *
+     * @param   value   the value (treated as unsigned)
+     *
+     * @return          the size in bytes
+     */
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    /**
+     * Writes an unsigned varlong
+     *
+     * @param   buffer  the {@link ByteBuffer} to write to
+     * @param   value   the value (treated as unsigned)
+     */
+    private static void putVarLong(@NotNull ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned varlong
+     *
+     * @param   buffer                      the {@link ByteBuffer} to read from
+     *
+     * @return                              the value
+     *
+     * @throws  IllegalArgumentException    if the varlong is too long
+     */
+    private static long getVarLong(@NotNull ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varlong");
+    }
+
+    /**
+     * Calculates the size of an unsigned varlong
+     *
+     * @param   value   the value (treated as unsigned)
+     *
+     * @return          the size in bytes
+     */
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    /**
+     * ZigZag-encodes a signed long (so small negative values stay small)
+     *
+     * @param   value   the signed value
+     *
+     * @return          the encoded value
+     */
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Decodes a ZigZag-encoded long
+     *
+     * @param   value   the encoded value
+     *
+     * @return          the signed value
+     */
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private LazyBinary() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+}
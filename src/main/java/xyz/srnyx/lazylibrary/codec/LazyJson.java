@@ -0,0 +1,607 @@
+package xyz.srnyx.lazylibrary.codec;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.srnyx.lazylibrary.LazyEmbed;
+import xyz.srnyx.lazylibrary.LazyMessage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A streaming JSON reader/writer for {@link LazyEmbed LazyEmbeds} and {@link LazyMessage LazyMessages} (using Gson's {@link JsonReader} and {@link JsonWriter}, without building a JSON tree or any maps)
+ * <br>Reading accepts both {@link Format formats}, writing uses the chosen {@link Format}
+ */
+public class LazyJson {
+    /**
+     * Writes a {@link LazyEmbed} as JSON
+     *
+     * @param   writer      the {@link JsonWriter} to write to
+     * @param   embed       the {@link LazyEmbed} to write
+     * @param   format      the {@link Format} to write in
+     *
+     * @throws  IOException if writing fails
+     */
+    public static void writeEmbed(@NotNull JsonWriter writer, @NotNull LazyEmbed embed, @NotNull Format format) throws IOException {
+        final boolean data = format == Format.DATA;
+        writer.beginObject();
+
+        // Color
+        final int color = embed.getColor();
+        if (color != 0) writer.name("color").value(data ? color & 0xFFFFFF : color);
+
+        // Author
+        final String authorName = embed.getAuthorName();
+        if (authorName != null) {
+            writer.name("author").beginObject().name("name").value(authorName);
+            writeIfNotNull(writer, "url", embed.getAuthorUrl());
+            writeIfNotNull(writer, data ? "icon_url" : "icon", embed.getAuthorIcon());
+            writer.endObject();
+        }
+
+        // Title
+        final String titleText = embed.getTitleText();
+        if (titleText != null) {
+            if (data) {
+                writer.name("title").value(titleText);
+                writeIfNotNull(writer, "url", embed.getTitleUrl());
+            } else {
+                writer.name("title").beginObject().name("text").value(titleText);
+                writeIfNotNull(writer, "url", embed.getTitleUrl());
+                writer.endObject();
+            }
+        }
+
+        // Description
+        writeIfNotNull(writer, "description", embed.getDescription());
+
+        // Fields
+        final List<MessageEmbed.Field> fields = embed.getFields();
+        if (!fields.isEmpty()) {
+            writer.name("fields").beginArray();
+            for (final MessageEmbed.Field field : fields) {
+                final String name = field.getName();
+                if (name == null) continue;
+                writer.beginObject().name("name").value(name);
+                writeIfNotNull(writer, "value", field.getValue());
+                writer.name("inline").value(field.isInline()).endObject();
+            }
+            writer.endArray();
+        }
+
+        // Thumbnail and image
+        writeUrl(writer, "thumbnail", embed.getThumbnail(), data);
+        writeUrl(writer, "image", embed.getImage(), data);
+
+        // Footer
+        final String footerText = embed.getFooterText();
+        if (footerText != null) {
+            writer.name("footer").beginObject().name("text").value(footerText);
+            writeIfNotNull(writer, data ? "icon_url" : "icon", embed.getFooterIcon());
+            writer.endObject();
+        }
+
+        // Timestamp
+        final TemporalAccessor timestamp = embed.getTimestamp();
+        if (timestamp != null) {
+            final Instant instant = Instant.ofEpochSecond(timestamp.getLong(ChronoField.INSTANT_SECONDS), timestamp.getLong(ChronoField.NANO_OF_SECOND));
+            if (data) {
+                writer.name("timestamp").value(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(timestamp.isSupported(ChronoField.OFFSET_SECONDS) ? OffsetDateTime.from(timestamp) : instant.atOffset(ZoneOffset.UTC)));
+            } else {
+                writer.name("timestamp").value(instant.toEpochMilli());
+            }
+        }
+
+        writer.endObject();
+    }
+
+    /**
+     * Writes a {@link LazyEmbed} as JSON
+     *
+     * @param   writer      the {@link Writer} to write to
+     * @param   embed       the {@link LazyEmbed} to write
+     * @param   format      the {@link Format} to write in
+     *
+     * @throws  IOException if writing fails
+     */
+    public static void writeEmbed(@NotNull Writer writer, @NotNull LazyEmbed embed, @NotNull Format format) throws IOException {
+        final JsonWriter jsonWriter = new JsonWriter(writer);
+        writeEmbed(jsonWriter, embed, format);
+        jsonWriter.flush();
+    }
+
+    /**
+     * Writes a {@link LazyEmbed} as UTF-8 JSON
+     *
+     * @param   embed   the {@link LazyEmbed} to write
+     * @param   format  the {@link Format} to write in
+     *
+     * @return          the UTF-8 JSON
+     */
+    @NotNull
+    public static ByteBuffer encodeEmbed(@NotNull LazyEmbed embed, @NotNull Format format) {
+        final StringWriter writer = new StringWriter();
+        try {
+            writeEmbed(writer, embed, format);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return StandardCharsets.UTF_8.encode(writer.toString());
+    }
+
+    /**
+     * Reads a {@link LazyEmbed} from JSON (in either {@link Format})
+     *
+     * @param   reader      the {@link JsonReader} to read from (positioned at the embed object)
+     *
+     * @return              the {@link LazyEmbed}
+     *
+     * @throws  IOException if reading fails or the JSON is malformed
+     */
+    @NotNull
+    public static LazyEmbed readEmbed(@NotNull JsonReader reader) throws IOException {
+        return readEmbed(reader, new LazyEmbed());
+    }
+
+    /**
+     * Reads JSON (in either {@link Format}) into a {@link LazyEmbed}
+     * <br>The {@link LazyEmbed} is only changed once the whole object has been read
+     *
+     * @param   reader      the {@link JsonReader} to read from (positioned at the embed object)
+     * @param   embed       the {@link LazyEmbed} to read into
+     *
+     * @return              the given {@link LazyEmbed}
+     *
+     * @throws  IOException if reading fails or the JSON is malformed
+     */
+    @NotNull
+    public static LazyEmbed readEmbed(@NotNull JsonReader reader, @NotNull LazyEmbed embed) throws IOException {
+        try {
+            return readEmbedObject(reader, embed);
+        } catch (final IllegalStateException | NumberFormatException | DateTimeException e) {
+            throw malformed(reader, e);
+        }
+    }
+
+    /**
+     * Reads JSON (in either {@link Format}) into a {@link LazyEmbed}, throwing the errors of {@link JsonReader} for an unexpected structure as they are
+     *
+     * @param   reader                  the {@link JsonReader} to read from (positioned at the embed object)
+     * @param   embed                   the {@link LazyEmbed} to read into
+     *
+     * @return                          the given {@link LazyEmbed}
+     *
+     * @throws  IOException             if reading fails or the JSON is malformed
+     * @throws  IllegalStateException   if a value has an unexpected type
+     */
+    @NotNull
+    private static LazyEmbed readEmbedObject(@NotNull JsonReader reader, @NotNull LazyEmbed embed) throws IOException {
+        Integer color = null;
+        String authorName = null;
+        String authorUrl = null;
+        String authorIcon = null;
+        String titleText = null;
+        String titleUrl = null;
+        String description = null;
+        final List<MessageEmbed.Field> fields = new ArrayList<>();
+        String thumbnail = null;
+        String image = null;
+        boolean hasFooter = false;
+        String footerText = null;
+        String footerIcon = null;
+        TemporalAccessor timestamp = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String key = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (key) {
+                case "color" -> color = reader.nextInt();
+                case "author" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) switch (reader.nextName()) {
+                        case "name" -> authorName = nextString(reader);
+                        case "url" -> authorUrl = nextString(reader);
+                        case "icon", "icon_url" -> authorIcon = nextString(reader);
+                        default -> reader.skipValue();
+                    }
+                    reader.endObject();
+                }
+                case "title" -> {
+                    // DATA: string, MAP: object
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        titleText = reader.nextString();
+                        continue;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) switch (reader.nextName()) {
+                        case "text" -> titleText = nextString(reader);
+                        case "url" -> titleUrl = nextString(reader);
+                        default -> reader.skipValue();
+                    }
+                    reader.endObject();
+                }
+                case "url" -> titleUrl = reader.nextString();
+                case "description" -> description = reader.nextString();
+                case "fields" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                            reader.skipValue();
+                            continue;
+                        }
+                        String name = null;
+                        String value = null;
+                        boolean inline = false;
+                        reader.beginObject();
+                        while (reader.hasNext()) switch (reader.nextName()) {
+                            case "name" -> name = nextString(reader);
+                            case "value" -> value = nextString(reader);
+                            case "inline" -> {
+                                if (reader.peek() == JsonToken.NULL) {
+                                    reader.nextNull();
+                                } else {
+                                    inline = reader.nextBoolean();
+                                }
+                            }
+                            default -> reader.skipValue();
+                        }
+                        reader.endObject();
+                        if (name != null && value != null) fields.add(new MessageEmbed.Field(name, value, inline));
+                    }
+                    reader.endArray();
+                }
+                case "thumbnail" -> thumbnail = nextUrl(reader);
+                case "image" -> image = nextUrl(reader);
+                case "footer" -> {
+                    hasFooter = true;
+                    reader.beginObject();
+                    while (reader.hasNext()) switch (reader.nextName()) {
+                        case "text" -> footerText = nextString(reader);
+                        case "icon", "icon_url" -> footerIcon = nextString(reader);
+                        default -> reader.skipValue();
+                    }
+                    reader.endObject();
+                }
+                case "timestamp" -> {
+                    // DATA: ISO-8601 string, MAP: epoch milliseconds
+                    if (reader.peek() == JsonToken.NUMBER) {
+                        timestamp = Instant.ofEpochMilli(reader.nextLong());
+                    } else {
+                        timestamp = OffsetDateTime.parse(reader.nextString());
+                    }
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        // Set the values
+        if (color != null) embed.setColor(color);
+        if (authorName != null) embed.setAuthor(authorName, authorUrl, authorIcon);
+        if (titleText != null) embed.setTitle(titleText, titleUrl);
+        embed.setDescription(description);
+        embed.addFields(fields);
+        embed.setThumbnail(thumbnail);
+        embed.setImage(image);
+        if (hasFooter) embed.setFooter(footerText, footerIcon);
+        if (timestamp != null) embed.setTimestamp(timestamp);
+        return embed;
+    }
+
+    /**
+     * Reads a {@link LazyEmbed} from JSON (in either {@link Format})
+     *
+     * @param   reader      the {@link Reader} to read from
+     *
+     * @return              the {@link LazyEmbed}
+     *
+     * @throws  IOException if reading fails or the JSON is malformed
+     */
+    @NotNull
+    public static LazyEmbed readEmbed(@NotNull Reader reader) throws IOException {
+        return readEmbed(newReader(reader));
+    }
+
+    /**
+     * Reads a {@link LazyEmbed} from UTF-8 JSON (in either {@link Format})
+     *
+     * @param   buffer      the {@link ByteBuffer} to read from
+     *
+     * @return              the {@link LazyEmbed}
+     *
+     * @throws  IOException if the JSON is malformed
+     */
+    @NotNull
+    public static LazyEmbed decodeEmbed(@NotNull ByteBuffer buffer) throws IOException {
+        return readEmbed(toReader(buffer));
+    }
+
+    /**
+     * Writes a {@link LazyMessage} as JSON ({@code content} and {@code embeds})
+     *
+     * @param   writer      the {@link JsonWriter} to write to
+     * @param   message     the {@link LazyMessage} to write
+     * @param   format      the {@link Format} to write the embeds in
+     *
+     * @throws  IOException if writing fails
+     */
+    public static void writeMessage(@NotNull JsonWriter writer, @NotNull LazyMessage message, @NotNull Format format) throws IOException {
+        writer.beginObject();
+        writeIfNotNull(writer, "content", message.content);
+        if (!message.embeds.isEmpty()) {
+            writer.name("embeds").beginArray();
+            for (final LazyEmbed embed : message.embeds) writeEmbed(writer, embed, format);
+            writer.endArray();
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Writes a {@link LazyMessage} as JSON ({@code content} and {@code embeds})
+     *
+     * @param   writer      the {@link Writer} to write to
+     * @param   message     the {@link LazyMessage} to write
+     * @param   format      the {@link Format} to write the embeds in
+     *
+     * @throws  IOException if writing fails
+     */
+    public static void writeMessage(@NotNull Writer writer, @NotNull LazyMessage message, @NotNull Format format) throws IOException {
+        final JsonWriter jsonWriter = new JsonWriter(writer);
+        writeMessage(jsonWriter, message, format);
+        jsonWriter.flush();
+    }
+
+    /**
+     * Writes a {@link LazyMessage} as UTF-8 JSON ({@code content} and {@code embeds})
+     *
+     * @param   message the {@link LazyMessage} to write
+     * @param   format  the {@link Format} to write the embeds in
+     *
+     * @return          the UTF-8 JSON
+     */
+    @NotNull
+    public static ByteBuffer encodeMessage(@NotNull LazyMessage message, @NotNull Format format) {
+        final StringWriter writer = new StringWriter();
+        try {
+            writeMessage(writer, message, format);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return StandardCharsets.UTF_8.encode(writer.toString());
+    }
+
+    /**
+     * Reads a {@link LazyMessage} from JSON ({@code content} and {@code embeds}, in either {@link Format})
+     *
+     * @param   reader      the {@link JsonReader} to read from (positioned at the message object)
+     *
+     * @return              the {@link LazyMessage}
+     *
+     * @throws  IOException if reading fails or the JSON is malformed
+     */
+    @NotNull
+    public static LazyMessage readMessage(@NotNull JsonReader reader) throws IOException {
+        try {
+            return readMessageObject(reader);
+        } catch (final IllegalStateException | NumberFormatException | DateTimeException e) {
+            throw malformed(reader, e);
+        }
+    }
+
+    /**
+     * Reads a {@link LazyMessage} from JSON, throwing the errors of {@link JsonReader} for an unexpected structure as they are
+     *
+     * @param   reader                  the {@link JsonReader} to read from (positioned at the message object)
+     *
+     * @return                          the {@link LazyMessage}
+     *
+     * @throws  IOException             if reading fails or the JSON is malformed
+     * @throws  IllegalStateException   if a value has an unexpected type
+     */
+    @NotNull
+    private static LazyMessage readMessageObject(@NotNull JsonReader reader) throws IOException {
+        String content = null;
+        final List<LazyEmbed> embeds = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) switch (reader.nextName()) {
+            case "content" -> content = nextString(reader);
+            case "embeds" -> {
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) embeds.add(readEmbedObject(reader, new LazyEmbed()));
+                reader.endArray();
+            }
+            default -> reader.skipValue();
+        }
+        reader.endObject();
+        return new LazyMessage(content, embeds);
+    }
+
+    /**
+     * Reads a {@link LazyMessage} from JSON ({@code content} and {@code embeds}, in either {@link Format})
+     *
+     * @param   reader      the {@link Reader} to read from
+     *
+     * @return              the {@link LazyMessage}
+     *
+     * @throws  IOException if reading fails or the JSON is malformed
+     */
+    @NotNull
+    public static LazyMessage readMessage(@NotNull Reader reader) throws IOException {
+        return readMessage(newReader(reader));
+    }
+
+    /**
+     * Reads a {@link LazyMessage} from UTF-8 JSON ({@code content} and {@code embeds}, in either {@link Format})
+     *
+     * @param   buffer      the {@link ByteBuffer} to read from
+     *
+     * @return              the {@link LazyMessage}
+     *
+     * @throws  IOException if the JSON is malformed
+     */
+    @NotNull
+    public static LazyMessage decodeMessage(@NotNull ByteBuffer buffer) throws IOException {
+        return readMessage(toReader(buffer));
+    }
+
+    /**
+     * Creates a lenient {@link JsonReader} (same leniency as {@link com.google.gson.JsonParser})
+     *
+     * @param   reader  the {@link Reader} to read from
+     *
+     * @return          the {@link JsonReader}
+     */
+    @NotNull
+    private static JsonReader newReader(@NotNull Reader reader) {
+        final JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        return jsonReader;
+    }
+
+    /**
+     * Decodes a UTF-8 {@link ByteBuffer} into a {@link JsonReader}
+     *
+     * @param   buffer  the {@link ByteBuffer} to decode
+     *
+     * @return          the {@link JsonReader}
+     */
+    @NotNull
+    private static JsonReader toReader(@NotNull ByteBuffer buffer) {
+        final CharBuffer chars = StandardCharsets.UTF_8.decode(buffer);
+        return newReader(new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()));
+    }
+
+    /**
+     * Creates the {@link IOException} for JSON that doesn't have the expected structure (for example a string where an object is expected)
+     *
+     * @param   reader  the {@link JsonReader} that was read from
+     * @param   cause   the error
+     *
+     * @return          the {@link IOException}
+     */
+    @NotNull
+    private static IOException malformed(@NotNull JsonReader reader, @NotNull RuntimeException cause) {
+        return new IOException("Unexpected JSON at " + reader.getPath() + ": " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Writes a name and value if the value isn't {@code null}
+     *
+     * @param   writer      the {@link JsonWriter} to write to
+     * @param   name        the name
+     * @param   value       the value
+     *
+     * @throws  IOException if writing fails
+     */
+    private static void writeIfNotNull(@NotNull JsonWriter writer, @NotNull String name, @Nullable String value) throws IOException {
+        if (value != null) writer.name(name).value(value);
+    }
+
+    /**
+     * Writes a URL as a string ({@link Format#MAP}) or an object with a {@code url} ({@link Format#DATA}), if it isn't {@code null}
+     *
+     * @param   writer      the {@link JsonWriter} to write to
+     * @param   name        the name
+     * @param   url         the URL
+     * @param   data        whether to write in {@link Format#DATA}
+     *
+     * @throws  IOException if writing fails
+     */
+    private static void writeUrl(@NotNull JsonWriter writer, @NotNull String name, @Nullable String url, boolean data) throws IOException {
+        if (url == null) return;
+        writer.name(name);
+        if (data) {
+            writer.beginObject().name("url").value(url).endObject();
+        } else {
+            writer.value(url);
+        }
+    }
+
+    /**
+     * Reads a string or {@code null}
+     *
+     * @param   reader      the {@link JsonReader} to read from
+     *
+     * @return              the string, or {@code null}
+     *
+     * @throws  IOException if reading fails
+     */
+    @Nullable
+    private static String nextString(@NotNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * Reads a URL that is either a string ({@link Format#MAP}) or an object with a {@code url} ({@link Format#DATA})
+     *
+     * @param   reader      the {@link JsonReader} to read from
+     *
+     * @return              the URL, or {@code null}
+     *
+     * @throws  IOException if reading fails
+     */
+    @Nullable
+    private static String nextUrl(@NotNull JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) return nextString(reader);
+        String url = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("url")) {
+                url = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return url;
+    }
+
+    /**
+     * The JSON formats that {@link LazyEmbed LazyEmbeds} can be written in
+     */
+    public enum Format {
+        /**
+         * The Discord format, same as {@link MessageEmbed#toData()}
+         */
+        DATA,
+        /**
+         * The same format as {@link LazyEmbed#toMap()}/{@link LazyMessage#toMap()}
+         */
+        MAP
+    }
+
+    private LazyJson() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+}
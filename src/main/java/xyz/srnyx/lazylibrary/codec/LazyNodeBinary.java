@@ -0,0 +1,258 @@
+package xyz.srnyx.lazylibrary.codec;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import org.spongepowered.configurate.ConfigurationNode;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A compact binary format for parsed {@link ConfigurationNode} trees, used for {@link xyz.srnyx.lazylibrary.LazyFile LazyFile} snapshots and journal entries
+ * <br>Each node is a tag byte followed by its value: maps are a child count followed by each key (a scalar) and child, lists are a child count followed by each child, and scalars are stored by type
+ * <br>Only the scalar types produced by the YAML parser are supported (strings, numbers, booleans, binary, and dates); comments aren't stored since they aren't read from YAML either
+ */
+public class LazyNodeBinary {
+    /**
+     * A node without a value
+     */
+    private static final byte NULL = 0;
+    /**
+     * A map node
+     */
+    private static final byte MAP = 1;
+    /**
+     * A list node
+     */
+    private static final byte LIST = 2;
+    /**
+     * A {@link String} scalar
+     */
+    private static final byte STRING = 3;
+    /**
+     * An {@link Integer} scalar
+     */
+    private static final byte INT = 4;
+    /**
+     * A {@link Long} scalar
+     */
+    private static final byte LONG = 5;
+    /**
+     * A {@link Double} scalar
+     */
+    private static final byte DOUBLE = 6;
+    /**
+     * A {@link Float} scalar
+     */
+    private static final byte FLOAT = 7;
+    /**
+     * A {@link Boolean} scalar
+     */
+    private static final byte BOOLEAN = 8;
+    /**
+     * A {@link BigInteger} scalar
+     */
+    private static final byte BIG_INTEGER = 9;
+    /**
+     * A {@link BigDecimal} scalar
+     */
+    private static final byte BIG_DECIMAL = 10;
+    /**
+     * A {@code byte[]} scalar
+     */
+    private static final byte BYTES = 11;
+    /**
+     * A {@link Date} scalar
+     */
+    private static final byte DATE = 12;
+
+    /**
+     * Writes a node and all of its children
+     *
+     * @param   node        the node to write
+     * @param   output      the output to write to
+     *
+     * @throws  IOException if writing fails, or if a value has an unsupported type (in which case the output is incomplete)
+     */
+    public static void write(@NotNull ConfigurationNode node, @NotNull DataOutput output) throws IOException {
+        if (node.isMap()) {
+            final Map<Object, ? extends ConfigurationNode> children = node.childrenMap();
+            output.writeByte(MAP);
+            output.writeInt(children.size());
+            for (final Map.Entry<Object, ? extends ConfigurationNode> entry : children.entrySet()) {
+                writeScalar(entry.getKey(), output);
+                write(entry.getValue(), output);
+            }
+            return;
+        }
+        if (node.isList()) {
+            final List<? extends ConfigurationNode> children = node.childrenList();
+            output.writeByte(LIST);
+            output.writeInt(children.size());
+            for (final ConfigurationNode child : children) write(child, output);
+            return;
+        }
+        writeScalar(node.rawScalar(), output);
+    }
+
+    /**
+     * Reads a node and all of its children into the given node
+     *
+     * @param   input       the input to read from
+     * @param   node        the (empty) node to read into
+     *
+     * @throws  IOException if reading fails or the data is invalid
+     */
+    public static void read(@NotNull DataInput input, @NotNull ConfigurationNode node) throws IOException {
+        final byte tag = input.readByte();
+        switch (tag) {
+            case MAP -> {
+                final int size = input.readInt();
+                if (size == 0) node.raw(Collections.emptyMap());
+                for (int i = 0; i < size; i++) {
+                    final Object key = readScalar(input);
+                    if (key == null) throw new IOException("Map key cannot be null");
+                    read(input, node.node(key));
+                }
+            }
+            case LIST -> {
+                final int size = input.readInt();
+                if (size == 0) node.raw(Collections.emptyList());
+                for (int i = 0; i < size; i++) read(input, node.appendListNode());
+            }
+            default -> node.raw(readScalar(tag, input));
+        }
+    }
+
+    /**
+     * Writes a scalar value with its tag (for example a node key)
+     *
+     * @param   value       the value
+     * @param   output      the output to write to
+     *
+     * @throws  IOException if writing fails or the value has an unsupported type
+     */
+    public static void writeScalar(@Nullable Object value, @NotNull DataOutput output) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String string) {
+            output.writeByte(STRING);
+            writeBytes(string.getBytes(StandardCharsets.UTF_8), output);
+        } else if (value instanceof Integer integer) {
+            output.writeByte(INT);
+            output.writeInt(integer);
+        } else if (value instanceof Long longValue) {
+            output.writeByte(LONG);
+            output.writeLong(longValue);
+        } else if (value instanceof Double doubleValue) {
+            output.writeByte(DOUBLE);
+            output.writeDouble(doubleValue);
+        } else if (value instanceof Float floatValue) {
+            output.writeByte(FLOAT);
+            output.writeFloat(floatValue);
+        } else if (value instanceof Boolean bool) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean(bool);
+        } else if (value instanceof BigInteger bigInteger) {
+            output.writeByte(BIG_INTEGER);
+            writeBytes(bigInteger.toByteArray(), output);
+        } else if (value instanceof BigDecimal bigDecimal) {
+            output.writeByte(BIG_DECIMAL);
+            writeBytes(bigDecimal.toString().getBytes(StandardCharsets.US_ASCII), output);
+        } else if (value instanceof byte[] bytes) {
+            output.writeByte(BYTES);
+            writeBytes(bytes, output);
+        } else if (value instanceof Date date) {
+            output.writeByte(DATE);
+            output.writeLong(date.getTime());
+        } else {
+            throw new IOException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads a scalar value written by {@link #writeScalar(Object, DataOutput)}
+     *
+     * @param   input       the input to read from
+     *
+     * @return              the value
+     *
+     * @throws  IOException if reading fails or the value isn't a scalar
+     */
+    @Nullable
+    public static Object readScalar(@NotNull DataInput input) throws IOException {
+        return readScalar(input.readByte(), input);
+    }
+
+    /**
+     * Reads a scalar value
+     *
+     * @param   tag         the tag of the value
+     * @param   input       the input to read from
+     *
+     * @return              the value
+     *
+     * @throws  IOException if reading fails or the tag is unknown
+     */
+    @Nullable
+    private static Object readScalar(byte tag, @NotNull DataInput input) throws IOException {
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> new String(readBytes(input), StandardCharsets.UTF_8);
+            case INT -> input.readInt();
+            case LONG -> input.readLong();
+            case DOUBLE -> input.readDouble();
+            case FLOAT -> input.readFloat();
+            case BOOLEAN -> input.readBoolean();
+            case BIG_INTEGER -> new BigInteger(readBytes(input));
+            case BIG_DECIMAL -> new BigDecimal(new String(readBytes(input), StandardCharsets.US_ASCII));
+            case BYTES -> readBytes(input);
+            case DATE -> new Date(input.readLong());
+            default -> throw new IOException("Unknown tag: " + tag);
+        };
+    }
+
+    /**
+     * Writes a length-prefixed byte array
+     *
+     * @param   bytes       the bytes
+     * @param   output      the output to write to
+     *
+     * @throws  IOException if writing fails
+     */
+    private static void writeBytes(byte @NotNull [] bytes, @NotNull DataOutput output) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed byte array
+     *
+     * @param   input       the input to read from
+     *
+     * @return              the bytes
+     *
+     * @throws  IOException if reading fails or the length is invalid
+     */
+    private static byte @NotNull [] readBytes(@NotNull DataInput input) throws IOException {
+        final int length = input.readInt();
+        if (length < 0) throw new IOException("Invalid length: " + length);
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private LazyNodeBinary() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+}
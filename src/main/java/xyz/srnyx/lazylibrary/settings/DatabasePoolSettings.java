@@ -0,0 +1,74 @@
+package xyz.srnyx.lazylibrary.settings;
+
+import com.zaxxer.hikari.HikariConfig;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.spongepowered.configurate.ConfigurationNode;
+
+
+/**
+ * A record to store the settings of the database connection pool (the {@code database-pool} section of the settings file)
+ *
+ * @param   maxSize                 the maximum amount of connections
+ * @param   minIdle                 the minimum amount of idle connections to keep open
+ * @param   connectionTimeout       how long to wait for a connection before failing in milliseconds
+ * @param   idleTimeout             how long a connection can be idle before it's closed in milliseconds (only if there are more than {@code minIdle} connections)
+ * @param   maxLifetime             how long a connection can be open before it's replaced in milliseconds
+ * @param   leakDetectionThreshold  how long a connection can be borrowed before a possible leak is logged in milliseconds ({@code 0} to disable)
+ * @param   statementCache          whether the driver should cache prepared statements (only for MySQL, MariaDB, and PostgreSQL, since other drivers reject unknown properties)
+ * @param   statementCacheSize      the maximum amount of cached prepared statements per connection
+ */
+public record DatabasePoolSettings(int maxSize, int minIdle, long connectionTimeout, long idleTimeout, long maxLifetime, long leakDetectionThreshold, boolean statementCache, int statementCacheSize) {
+    /**
+     * The settings used for values that aren't in the settings file
+     */
+    @NotNull public static final DatabasePoolSettings DEFAULT = new DatabasePoolSettings(10, 2, 30000, 600000, 1800000, 5000, true, 250);
+
+    /**
+     * Reads the settings from a node, using {@link #DEFAULT} for missing values
+     *
+     * @param   node    the {@code database-pool} node
+     *
+     * @return          the {@link DatabasePoolSettings}
+     */
+    @NotNull
+    public static DatabasePoolSettings of(@NotNull ConfigurationNode node) {
+        if (node.virtual()) return DEFAULT;
+        return new DatabasePoolSettings(
+                node.node("max-size").getInt(DEFAULT.maxSize),
+                node.node("min-idle").getInt(DEFAULT.minIdle),
+                node.node("connection-timeout").getLong(DEFAULT.connectionTimeout),
+                node.node("idle-timeout").getLong(DEFAULT.idleTimeout),
+                node.node("max-lifetime").getLong(DEFAULT.maxLifetime),
+                node.node("leak-detection-threshold").getLong(DEFAULT.leakDetectionThreshold),
+                node.node("statement-cache", "enabled").getBoolean(DEFAULT.statementCache),
+                node.node("statement-cache", "size").getInt(DEFAULT.statementCacheSize));
+    }
+
+    /**
+     * Applies the settings to a {@link HikariConfig} (its {@link HikariConfig#getJdbcUrl() JDBC URL} must already be set)
+     *
+     * @param   config  the {@link HikariConfig}
+     */
+    public void apply(@NotNull HikariConfig config) {
+        config.setMaximumPoolSize(maxSize);
+        config.setMinimumIdle(Math.min(minIdle, maxSize));
+        config.setConnectionTimeout(connectionTimeout);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        config.setLeakDetectionThreshold(leakDetectionThreshold);
+
+        // Statement cache
+        final String url = config.getJdbcUrl();
+        if (url == null) return;
+        if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+            config.addDataSourceProperty("cachePrepStmts", statementCache);
+            config.addDataSourceProperty("useServerPrepStmts", statementCache);
+            config.addDataSourceProperty("prepStmtCacheSize", statementCacheSize);
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", 2048);
+        } else if (url.startsWith("jdbc:postgresql:")) {
+            config.addDataSourceProperty("preparedStatementCacheQueries", statementCache ? statementCacheSize : 0);
+        }
+    }
+}
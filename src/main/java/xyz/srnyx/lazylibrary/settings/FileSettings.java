@@ -16,6 +16,7 @@ import xyz.srnyx.javautilities.parents.Stringable;
 
 import xyz.srnyx.lazylibrary.LazyFile;
 import xyz.srnyx.lazylibrary.LazyLibrary;
+import xyz.srnyx.lazylibrary.LazyView;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -24,6 +25,9 @@ import java.util.Set;
 
 /**
  * A class to hold the settings defined in the settings file
+ * <br>The values are resolved once when created, {@link LazySettings#getFileSettings()} returns a new instance whenever the {@link #file} is {@link LazyFile#load() loaded}
+ *
+ * @see #view(LazyFile)
  */
 public class FileSettings extends Stringable {
     /**
@@ -39,12 +43,17 @@ public class FileSettings extends Stringable {
      * The database connection URL, used for {@link ComponentManager}
      */
     @Nullable public final String database;
+    /**
+     * The {@link DatabasePoolSettings settings} of the {@link #database} connection pool
+     */
+    @NotNull public final DatabasePoolSettings databasePool;
     /**
      * Primary owner ID, used for {@link RequireOwner} and to get errors DMed
      */
     @Nullable public final Long ownersPrimary;
     /**
      * Set of other owner IDs, used for {@link RequireOwner}
+     * <br>Read-only: it's rebuilt from the {@link #file} whenever it's {@link LazyFile#load() loaded}, so assigning or changing it is lost on the next reload (change the file instead)
      */
     @NotNull public Set<Long> ownersOther = new HashSet<>();
 
@@ -54,12 +63,32 @@ public class FileSettings extends Stringable {
      * @param   library the {@link LazyLibrary} to create the {@link FileSettings} for
      */
     public FileSettings(@NotNull LazyLibrary library) {
-        file = new LazyFile(library.getSettingsFileName(), NodeStyle.BLOCK, true);
-        token = file.yaml.node("token").getString();
-        database = file.yaml.node("database").getString();
+        this(createFile(library));
+    }
+
+    /**
+     * Creates a new {@link FileSettings} from the root node of the given file
+     *
+     * @param   file    {@link #file}
+     */
+    public FileSettings(@NotNull LazyFile file) {
+        this(file, file.yaml);
+    }
+
+    /**
+     * Creates a new {@link FileSettings} from the given node
+     *
+     * @param   file    {@link #file}
+     * @param   node    the node to read the settings from
+     */
+    public FileSettings(@NotNull LazyFile file, @NotNull ConfigurationNode node) {
+        this.file = file;
+        token = node.node("token").getString();
+        database = node.node("database").getString();
+        databasePool = DatabasePoolSettings.of(node.node("database-pool"));
 
         // owners
-        final ConfigurationNode ownersNode = file.yaml.node("owners");
+        final ConfigurationNode ownersNode = node.node("owners");
         final ConfigurationNode ownersPrimaryNode = ownersNode.node("primary");
         ownersPrimary = ownersPrimaryNode.virtual() ? null : ownersPrimaryNode.getLong();
         try {
@@ -68,4 +97,28 @@ public class FileSettings extends Stringable {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Creates the settings file of the given {@link LazyLibrary}
+     *
+     * @param   library the {@link LazyLibrary}
+     *
+     * @return          the settings file
+     */
+    @NotNull
+    public static LazyFile createFile(@NotNull LazyLibrary library) {
+        return new LazyFile(library.getSettingsFileName(), NodeStyle.BLOCK, true);
+    }
+
+    /**
+     * Creates a {@link LazyView} of the {@link FileSettings} in the given file, which is rebuilt whenever the file is {@link LazyFile#load() loaded}
+     *
+     * @param   file    the settings file
+     *
+     * @return          the {@link LazyView}
+     */
+    @NotNull
+    public static LazyView<FileSettings> view(@NotNull LazyFile file) {
+        return file.view(node -> new FileSettings(file, node));
+    }
 }
@@ -2,21 +2,34 @@ package xyz.srnyx.lazylibrary.settings;
 
 import com.freya02.botcommands.api.CommandsBuilder;
 
+import com.zaxxer.hikari.HikariConfig;
+
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import org.spongepowered.configurate.yaml.NodeStyle;
+
 import xyz.srnyx.javautilities.parents.Stringable;
 
 import xyz.srnyx.lazylibrary.LazyEmbed;
+import xyz.srnyx.lazylibrary.LazyEmbedCache;
+import xyz.srnyx.lazylibrary.LazyEmbedDefaults;
+import xyz.srnyx.lazylibrary.LazyFile;
+import xyz.srnyx.lazylibrary.LazyFileLoader;
 import xyz.srnyx.lazylibrary.LazyLibrary;
+import xyz.srnyx.lazylibrary.LazyShards;
+import xyz.srnyx.lazylibrary.LazyView;
 import xyz.srnyx.lazylibrary.ConsoleCommand;
 
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 
 /**
@@ -29,9 +42,24 @@ public class LazySettings extends Stringable {
      */
     @NotNull private final LazyLibrary library;
     /**
-     * The {@link FileSettings file settings} for the bot
+     * The {@link LazyView} of the {@link FileSettings file settings} for the bot, rebuilt whenever the {@link FileSettings#file settings file} is {@link LazyFile#load() loaded}
+     *
+     * @see #getFileSettings()
+     */
+    @NotNull private final LazyView<FileSettings> fileSettingsView;
+    /**
+     * The {@link FileSettings file settings} for the bot, replaced whenever the {@link FileSettings#file settings file} is {@link LazyFile#load() loaded}
+     * <br>Assigning it has no effect, since the library only reads {@link #getFileSettings()}
+     *
+     * @deprecated  use {@link #getFileSettings()} instead
+     */
+    @Deprecated
+    @NotNull public volatile FileSettings fileSettings;
+    /**
+     * The files that were loaded in parallel with the settings file (the settings file and the ones added by {@link LazyLibrary#addStartupFiles(LazyFileLoader)})
+     * <br>Files that failed to load are logged and listed in {@link LazyFileLoader.Result#failures()}
      */
-    @NotNull public final FileSettings fileSettings;
+    @NotNull public final LazyFileLoader.Result startupFiles;
     /**
      * The name of the logger to use
      */
@@ -41,6 +69,14 @@ public class LazySettings extends Stringable {
      * <br>You can use {@link LazyLibrary#onConsoleCommand(ConsoleCommand)} to create your own stop command
      */
     public boolean defaultStopCommand = true;
+    /**
+     * The maximum time in milliseconds that {@link LazyLibrary#shutdown()} waits for the bot to shut down (for example for queued REST actions to be sent) before it's forced
+     */
+    public long shutdownTimeout = 30000;
+    /**
+     * A {@link Consumer} for the {@link HikariConfig} of the {@link LazyLibrary#database database} (after the {@link FileSettings#databasePool pool settings} are applied)
+     */
+    @Nullable public Consumer<HikariConfig> databaseConfig = null;
     /**
      * A set of {@link GatewayIntent gateway intents} to enable
      */
@@ -49,6 +85,22 @@ public class LazySettings extends Stringable {
      * A {@link Consumer} for the {@link JDABuilder} for the bot
      */
     @Nullable public Consumer<JDABuilder> jdaBuilder = null;
+    /**
+     * The total amount of shards to run the bot with ({@code -1} for the amount recommended by Discord), see {@link LazyShards}
+     * <br><i>Set to null to run the bot without sharding (a single {@link net.dv8tion.jda.api.JDA JDA})</i>
+     */
+    @Nullable public Integer shardsTotal = null;
+    /**
+     * A {@link Consumer} for the {@link DefaultShardManagerBuilder} for the bot (only used if {@link #shardsTotal} is set)
+     */
+    @Nullable public Consumer<DefaultShardManagerBuilder> shardManagerBuilder = null;
+    /**
+     * Whether to handle events, {@link net.dv8tion.jda.api.requests.RestAction RestAction} callbacks, and the console on virtual threads instead of platform threads
+     * <br>Enable this if listeners block (for example with {@link net.dv8tion.jda.api.requests.RestAction#complete() complete()} or JDBC calls), since then every event gets its own thread instead of waiting for a free one in a small pool
+     * <br><b>Events are then handled concurrently and can be handled out of order</b>, unlike JDA's default of handling the events of a connection one after another, so listeners must be thread-safe and can't rely on the order of events (for example a message's update being handled after its creation)
+     * <br>Pools set in {@link #jdaBuilder} or {@link #shardManagerBuilder} take precedence
+     */
+    public boolean virtualThreads = false;
     /**
      * A set of package paths to search for applications
      */
@@ -59,12 +111,22 @@ public class LazySettings extends Stringable {
     @NotNull public final Set<ApplicationDependency<?>> dependencies = new HashSet<>();
     /**
      * A {@link Consumer} for the {@link CommandsBuilder} for BotCommands
+     * <br>If the bot is {@link #shardsTotal sharded}, BotCommands is built once per shard, so this is called for each of them
      */
     @NotNull public Consumer<CommandsBuilder> builder = empty -> {};
     /**
      * A list of default values for {@link LazyEmbed embeds}
+     * <br>These are compiled into {@link LazyEmbedDefaults} (see {@link #getEmbedDefaults()}), which is recompiled whenever this map is changed or replaced
+     */
+    @NotNull public Map<LazyEmbed.Key, Object> embedDefaults = new EmbedDefaultsMap();
+    /**
+     * The {@link LazyEmbedDefaults} compiled from {@link #embedDefaults}
      */
-    @NotNull public Map<LazyEmbed.Key, Object> embedDefaults = new EnumMap<>(LazyEmbed.Key.class);
+    @Nullable private volatile CompiledEmbedDefaults compiledEmbedDefaults;
+    /**
+     * The cache of built {@link LazyEmbed embeds} (only used for embeds with a {@link LazyEmbed#cacheKey(Object) cache key}, like the ones from the static {@link LazyEmbed} methods)
+     */
+    @NotNull public final LazyEmbedCache embedCache = new LazyEmbedCache(256);
     /**
      * A list of {@link Activity activities} to rotate between every minute
      * <br><i>Set to null to disable</i>
@@ -78,7 +140,19 @@ public class LazySettings extends Stringable {
      */
     public LazySettings(@NotNull LazyLibrary library) {
         this.library = library;
-    	fileSettings = new FileSettings(library);
+
+        // Load the settings file and the startup files in parallel
+        final String settingsFileName = library.getSettingsFileName();
+        final LazyFileLoader loader = new LazyFileLoader().add(settingsFileName, NodeStyle.BLOCK, true);
+        library.addStartupFiles(loader);
+        startupFiles = loader.load();
+        startupFiles.failures().forEach((path, e) -> LazyLibrary.LOGGER.error("Failed to load {}.yml", path, e));
+        LazyFile settingsFile = startupFiles.get(settingsFileName);
+        if (settingsFile == null) settingsFile = FileSettings.createFile(library);
+
+        fileSettingsView = FileSettings.view(settingsFile);
+        fileSettingsView.onRebuild(newSettings -> fileSettings = newSettings);
+        fileSettings = fileSettingsView.get();
         loggerName = library.getClass().getSimpleName();
     }
 
@@ -108,6 +182,32 @@ public class LazySettings extends Stringable {
     	return this;
     }
 
+    /**
+     * Sets {@link #shutdownTimeout}
+     *
+     * @param   shutdownTimeout the new value of {@link #shutdownTimeout}
+     *
+     * @return                  {@code this}
+     */
+    @NotNull
+    public LazySettings shutdownTimeout(long shutdownTimeout) {
+    	this.shutdownTimeout = shutdownTimeout;
+    	return this;
+    }
+
+    /**
+     * Sets {@link #databaseConfig}
+     *
+     * @param   databaseConfig  the new value of {@link #databaseConfig}
+     *
+     * @return                  {@code this}
+     */
+    @NotNull
+    public LazySettings databaseConfig(@Nullable Consumer<HikariConfig> databaseConfig) {
+    	this.databaseConfig = databaseConfig;
+    	return this;
+    }
+
     /**
      * Adds {@link GatewayIntent gateway intents} to {@link #gatewayIntents}
      *
@@ -134,6 +234,45 @@ public class LazySettings extends Stringable {
     	return this;
     }
 
+    /**
+     * Sets {@link #shardsTotal}
+     *
+     * @param   shardsTotal the new value of {@link #shardsTotal}
+     *
+     * @return              {@code this}
+     */
+    @NotNull
+    public LazySettings shardsTotal(@Nullable Integer shardsTotal) {
+    	this.shardsTotal = shardsTotal;
+    	return this;
+    }
+
+    /**
+     * Sets {@link #shardManagerBuilder}
+     *
+     * @param   shardManagerBuilder the new value of {@link #shardManagerBuilder}
+     *
+     * @return                      {@code this}
+     */
+    @NotNull
+    public LazySettings shardManagerBuilder(@Nullable Consumer<DefaultShardManagerBuilder> shardManagerBuilder) {
+    	this.shardManagerBuilder = shardManagerBuilder;
+    	return this;
+    }
+
+    /**
+     * Sets {@link #virtualThreads}
+     *
+     * @param   virtualThreads  the new value of {@link #virtualThreads}
+     *
+     * @return                  {@code this}
+     */
+    @NotNull
+    public LazySettings virtualThreads(boolean virtualThreads) {
+    	this.virtualThreads = virtualThreads;
+    	return this;
+    }
+
     /**
      * Adds package paths to {@link #searchPaths}
      *
@@ -200,6 +339,48 @@ public class LazySettings extends Stringable {
         return this;
     }
 
+    /**
+     * Sets the maximum size of the {@link #embedCache}
+     *
+     * @param   embedCacheSize  the maximum amount of cached {@link LazyEmbed embeds} ({@code 0} disables the cache)
+     *
+     * @return                  {@code this}
+     */
+    @NotNull
+    public LazySettings embedCacheSize(int embedCacheSize) {
+        embedCache.setMaxSize(embedCacheSize);
+        return this;
+    }
+
+    /**
+     * Gets the {@link FileSettings file settings} for the bot
+     * <br>A new instance is returned whenever the {@link FileSettings#file settings file} is {@link LazyFile#load() loaded}, so get it again instead of keeping it
+     *
+     * @return  the current {@link FileSettings}
+     */
+    @NotNull
+    public FileSettings getFileSettings() {
+        return fileSettingsView.get();
+    }
+
+    /**
+     * Gets the {@link LazyEmbedDefaults} for the current {@link #embedDefaults}, compiling them again only if they changed since the last call
+     * <br>If {@link #embedDefaults} was replaced with another map, its contents are compared to the last compiled ones instead
+     *
+     * @return  the {@link LazyEmbedDefaults} for {@link #embedDefaults}
+     */
+    @NotNull
+    public LazyEmbedDefaults getEmbedDefaults() {
+        final Map<LazyEmbed.Key, Object> source = embedDefaults;
+        final CompiledEmbedDefaults compiled = compiledEmbedDefaults;
+        final int version = source instanceof EmbedDefaultsMap tracked ? tracked.version : 0;
+        if (compiled != null && compiled.source == source && (compiled.snapshot == null ? compiled.version == version : compiled.snapshot.equals(source))) return compiled.defaults;
+
+        final LazyEmbedDefaults defaults = source.isEmpty() ? LazyEmbedDefaults.EMPTY : new LazyEmbedDefaults(source);
+        compiledEmbedDefaults = new CompiledEmbedDefaults(source, version, source instanceof EmbedDefaultsMap ? null : new HashMap<>(source), defaults);
+        return defaults;
+    }
+
     /**
      * Adds {@link Activity activities} to {@link #activities}
      *
@@ -229,4 +410,208 @@ public class LazySettings extends Stringable {
         library.updateActivityRotation();
         return this;
     }
+
+    /**
+     * {@link LazyEmbedDefaults} and what they were compiled from
+     *
+     * @param   source      the {@link #embedDefaults} map they were compiled from
+     * @param   version     the {@link EmbedDefaultsMap#version} of the {@code source} when they were compiled
+     * @param   snapshot    a copy of the {@code source} if it isn't an {@link EmbedDefaultsMap} (so changes can't be tracked)
+     * @param   defaults    the compiled {@link LazyEmbedDefaults}
+     */
+    private record CompiledEmbedDefaults(@NotNull Map<LazyEmbed.Key, Object> source, int version, @Nullable Map<LazyEmbed.Key, Object> snapshot, @NotNull LazyEmbedDefaults defaults) {}
+
+    /**
+     * The default {@link #embedDefaults} map, which counts its changes so {@link #getEmbedDefaults()} doesn't have to compare its contents
+     * <br>Changes made through its views (removing keys, values, or entries, or setting the values of entries) are counted too
+     */
+    private static final class EmbedDefaultsMap extends EnumMap<LazyEmbed.Key, Object> {
+        /**
+         * The amount of changes made to the map
+         */
+        private volatile int version;
+
+        /**
+         * Creates a new empty {@link EmbedDefaultsMap}
+         */
+        private EmbedDefaultsMap() {
+            super(LazyEmbed.Key.class);
+        }
+
+        @Override
+        public Object put(@NotNull LazyEmbed.Key key, @Nullable Object value) {
+            final Object previous = super.put(key, value);
+            version++;
+            return previous;
+        }
+
+        @Override
+        public void putAll(@NotNull Map<? extends LazyEmbed.Key, ?> map) {
+            super.putAll(map);
+            version++;
+        }
+
+        @Override
+        public Object remove(@Nullable Object key) {
+            final Object previous = super.remove(key);
+            version++;
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            version++;
+        }
+
+        @Override
+        public void replaceAll(@NotNull BiFunction<? super LazyEmbed.Key, ? super Object, ?> function) {
+            for (final LazyEmbed.Key key : super.keySet()) super.put(key, function.apply(key, get(key)));
+            version++;
+        }
+
+        @Override @NotNull
+        public Set<LazyEmbed.Key> keySet() {
+            final Set<LazyEmbed.Key> keys = super.keySet();
+            return new AbstractSet<>() {
+                @Override @NotNull
+                public Iterator<LazyEmbed.Key> iterator() {
+                    return new CountedIterator<>(keys.iterator(), key -> key);
+                }
+
+                @Override
+                public int size() {
+                    return EmbedDefaultsMap.this.size();
+                }
+
+                @Override
+                public boolean contains(@Nullable Object key) {
+                    return containsKey(key);
+                }
+
+                @Override
+                public boolean remove(@Nullable Object key) {
+                    if (!containsKey(key)) return false;
+                    EmbedDefaultsMap.this.remove(key);
+                    return true;
+                }
+
+                @Override
+                public void clear() {
+                    EmbedDefaultsMap.this.clear();
+                }
+            };
+        }
+
+        @Override @NotNull
+        public Collection<Object> values() {
+            final Collection<Object> values = super.values();
+            return new AbstractCollection<>() {
+                @Override @NotNull
+                public Iterator<Object> iterator() {
+                    return new CountedIterator<>(values.iterator(), value -> value);
+                }
+
+                @Override
+                public int size() {
+                    return EmbedDefaultsMap.this.size();
+                }
+
+                @Override
+                public boolean contains(@Nullable Object value) {
+                    return containsValue(value);
+                }
+
+                @Override
+                public void clear() {
+                    EmbedDefaultsMap.this.clear();
+                }
+            };
+        }
+
+        @Override @NotNull
+        public Set<Map.Entry<LazyEmbed.Key, Object>> entrySet() {
+            final Set<Map.Entry<LazyEmbed.Key, Object>> entries = super.entrySet();
+            return new AbstractSet<>() {
+                @Override @NotNull
+                public Iterator<Map.Entry<LazyEmbed.Key, Object>> iterator() {
+                    return new CountedIterator<>(entries.iterator(), CountedEntry::new);
+                }
+
+                @Override
+                public int size() {
+                    return EmbedDefaultsMap.this.size();
+                }
+
+                @Override
+                public void clear() {
+                    EmbedDefaultsMap.this.clear();
+                }
+            };
+        }
+
+        /**
+         * An {@link Iterator} over one of the views of the map that counts {@link #remove() removals}
+         *
+         * @param   <T> the type of the elements of the underlying {@link Iterator}
+         * @param   <E> the type of the returned elements
+         */
+        private final class CountedIterator<T, E> implements Iterator<E> {
+            /**
+             * The underlying {@link Iterator}
+             */
+            @NotNull private final Iterator<T> iterator;
+            /**
+             * Converts the elements of {@link #iterator} to the returned elements
+             */
+            @NotNull private final Function<T, E> mapper;
+
+            /**
+             * Creates a new {@link CountedIterator}
+             *
+             * @param   iterator    {@link #iterator}
+             * @param   mapper      {@link #mapper}
+             */
+            private CountedIterator(@NotNull Iterator<T> iterator, @NotNull Function<T, E> mapper) {
+                this.iterator = iterator;
+                this.mapper = mapper;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return mapper.apply(iterator.next());
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                version++;
+            }
+        }
+
+        /**
+         * An entry of {@link #entrySet()} that writes {@link #setValue(Object) new values} through {@link #put(LazyEmbed.Key, Object)}, so they're counted
+         */
+        private final class CountedEntry extends AbstractMap.SimpleEntry<LazyEmbed.Key, Object> {
+            /**
+             * Creates a new {@link CountedEntry}
+             *
+             * @param   entry   the entry of the map
+             */
+            private CountedEntry(@NotNull Map.Entry<LazyEmbed.Key, Object> entry) {
+                super(entry);
+            }
+
+            @Override
+            public Object setValue(@Nullable Object value) {
+                super.setValue(value);
+                return put(getKey(), value);
+            }
+        }
+    }
 }
@@ -0,0 +1,183 @@
+package xyz.srnyx.lazylibrary.utility;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * A utility class for replacing files atomically, used by {@link xyz.srnyx.lazylibrary.LazyFile LazyFile} and {@link LazyResources}
+ * <br>The content is written to a uniquely named temporary file next to the target and synced to disk, the target's POSIX permissions and owner are copied to it, then it's moved over the target and the directory is synced, so a crash can never leave a partial file and the rename itself survives a crash
+ * <br>Symbolic links are followed, so the file they point to is replaced instead of the link
+ * <br>New files get the default permissions of the process (the temporary file isn't created with {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute[]) owner-only permissions})
+ */
+public class LazyAtomicFiles {
+    /**
+     * Writes bytes to a file atomically
+     *
+     * @param   target      the file to write
+     * @param   data        the bytes to write (from its position to its limit)
+     *
+     * @throws  IOException if the file couldn't be written (the target is left unchanged)
+     */
+    public static void write(@NotNull Path target, @NotNull ByteBuffer data) throws IOException {
+        write(target, channel -> {
+            while (data.hasRemaining()) channel.write(data);
+        });
+    }
+
+    /**
+     * Copies a stream to a file atomically
+     *
+     * @param   target      the file to write
+     * @param   inputStream the stream to copy (not closed)
+     *
+     * @throws  IOException if the stream couldn't be read or the file couldn't be written (the target is left unchanged)
+     */
+    public static void copy(@NotNull Path target, @NotNull InputStream inputStream) throws IOException {
+        write(target, channel -> inputStream.transferTo(Channels.newOutputStream(channel)));
+    }
+
+    /**
+     * Writes a file atomically
+     *
+     * @param   target      the file to write
+     * @param   content     writes the content to the temporary file
+     *
+     * @throws  IOException if the content couldn't be written or the file couldn't be replaced (the target is left unchanged)
+     */
+    public static void write(@NotNull Path target, @NotNull Content content) throws IOException {
+        final Path absolute = resolve(target);
+        final Path parent = absolute.getParent();
+        Files.createDirectories(parent);
+        final Path temp = createTemp(absolute);
+        try {
+            try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                content.write(channel);
+                channel.force(true);
+            }
+            copyAttributes(absolute, temp);
+            try {
+                Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory(parent);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Resolves the file that's actually written, following symbolic links (so a symlinked file keeps its link, and the temporary file is created next to the real file)
+     *
+     * @param   target      the file to write
+     *
+     * @return              the real path of the file if it exists, otherwise its absolute path
+     *
+     * @throws  IOException if the path couldn't be resolved
+     */
+    @NotNull
+    private static Path resolve(@NotNull Path target) throws IOException {
+        try {
+            return target.toRealPath();
+        } catch (final NoSuchFileException e) {
+            // New file
+            return target.toAbsolutePath();
+        }
+    }
+
+    /**
+     * Syncs a directory to disk, so renames and deletions in it survive a crash
+     * <br>Does nothing on platforms that can't open directories (for example Windows, where renames are already durable)
+     *
+     * @param   directory   the directory
+     */
+    public static void syncDirectory(@NotNull Path directory) {
+        try (final FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (final IOException e) {
+            // Not supported on this platform
+        }
+    }
+
+    /**
+     * Creates a new, uniquely named temporary file next to a file (with the default permissions of the process)
+     *
+     * @param   target      the file
+     *
+     * @return              the temporary file
+     *
+     * @throws  IOException if the file couldn't be created
+     */
+    @NotNull
+    private static Path createTemp(@NotNull Path target) throws IOException {
+        final String name = target.getFileName().toString();
+        while (true) {
+            final Path temp = target.resolveSibling(name + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                Files.newByteChannel(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return temp;
+            } catch (final FileAlreadyExistsException e) {
+                // Try another name
+            }
+        }
+    }
+
+    /**
+     * Copies the POSIX permissions, owner, and group of a file to another file, if the first one exists and the file system supports them
+     * <br>The owner and group are only changed if they're different (which usually needs elevated privileges, so failing to change them is ignored)
+     *
+     * @param   from        the file to copy from
+     * @param   to          the file to copy to
+     *
+     * @throws  IOException if the permissions couldn't be copied
+     */
+    private static void copyAttributes(@NotNull Path from, @NotNull Path to) throws IOException {
+        final PosixFileAttributeView source = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        final PosixFileAttributeView destination = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (source == null || destination == null) return;
+        final PosixFileAttributes attributes;
+        try {
+            attributes = source.readAttributes();
+        } catch (final NoSuchFileException e) {
+            // New file
+            return;
+        }
+        destination.setPermissions(attributes.permissions());
+        final PosixFileAttributes current = destination.readAttributes();
+        try {
+            if (!current.owner().equals(attributes.owner())) destination.setOwner(attributes.owner());
+            if (!current.group().equals(attributes.group())) destination.setGroup(attributes.group());
+        } catch (final IOException e) {
+            // Not allowed to change the owner, keep ours
+        }
+    }
+
+    /**
+     * Writes the content of a file
+     */
+    @FunctionalInterface
+    public interface Content {
+        /**
+         * Writes the content
+         *
+         * @param   channel     the {@link FileChannel} of the temporary file
+         *
+         * @throws  IOException if the content couldn't be written
+         */
+        void write(@NotNull FileChannel channel) throws IOException;
+    }
+
+    private LazyAtomicFiles() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+}
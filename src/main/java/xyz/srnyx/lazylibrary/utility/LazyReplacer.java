@@ -0,0 +1,459 @@
+package xyz.srnyx.lazylibrary.utility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+
+/**
+ * A compiled set of placeholder replacements that replaces all keys in a single pass over the text
+ * <br>Keys are matched using an Aho-Corasick automaton (leftmost-longest, non-overlapping)
+ * <br><br>The result is always identical to calling {@link String#replace(CharSequence, CharSequence)} for each entry (in the iteration order of the original {@link Map}):
+ * <ul>
+ *     <li>If no key overlaps/contains another key and no value could form a key, a single pass is used</li>
+ *     <li>If no key overlaps/contains another key but a value could form a key, a single pass is used and the text around each inserted value is checked for a newly formed key (falling back to one replacement after another if one was formed)</li>
+ *     <li>Otherwise, the keys are replaced one after another</li>
+ * </ul>
+ * <br>A {@link LazyReplacer} compiled from only {@link #LazyReplacer(Collection) keys} can be reused with different values using {@link #replace(String, IntFunction)}, which looks up each value when its key is found
+ */
+public class LazyReplacer {
+    /**
+     * The keys to replace, indexed by their key ID
+     */
+    @NotNull private final String[] keys;
+    /**
+     * The values to replace the keys with, indexed by their key ID
+     */
+    @NotNull private final String[] values;
+    /**
+     * Whether no key overlaps/contains another key (if {@code false}, {@link #replace(String)} replaces each key one after another)
+     */
+    private final boolean keysIndependent;
+    /**
+     * Whether no value could form a key when inserted (if {@code false}, {@link #replace(String)} checks the text around each inserted value)
+     */
+    private final boolean valuesIndependent;
+    /**
+     * The length of the longest key
+     */
+    private final int maxKeyLength;
+    /**
+     * Looks up the {@link #values} by key ID
+     */
+    @NotNull private final IntFunction<String> lookup;
+
+    /**
+     * The sorted transition characters of each node
+     */
+    @NotNull private final char[][] labels;
+    /**
+     * The transition targets of each node (same order as {@link #labels})
+     */
+    @NotNull private final int[][] targets;
+    /**
+     * The failure link of each node
+     */
+    @NotNull private final int[] failures;
+    /**
+     * The key ID that ends at each node, or {@code -1}
+     */
+    @NotNull private final int[] outputs;
+    /**
+     * The nearest node (following {@link #failures}) that has an {@link #outputs output}, or {@code -1}
+     */
+    @NotNull private final int[] dictionary;
+    /**
+     * The depth (prefix length) of each node
+     */
+    @NotNull private final int[] depths;
+
+    /**
+     * Compiles a new {@link LazyReplacer} from the given replacements
+     *
+     * @param   replacements    the replacements (key -> value)
+     */
+    public LazyReplacer(@NotNull Map<String, String> replacements) {
+        this(replacements.keySet().toArray(new String[0]), replacements.values().toArray(new String[0]));
+    }
+
+    /**
+     * Compiles a new {@link LazyReplacer} that only finds the given keys (replacing them with empty strings)
+     *
+     * @param   keys    the keys to find
+     *
+     * @see             #find(String)
+     */
+    public LazyReplacer(@NotNull Collection<String> keys) {
+        this(keys.toArray(new String[0]), emptyValues(keys.size()));
+    }
+
+    /**
+     * Compiles a new {@link LazyReplacer}
+     *
+     * @param   keys    {@link #keys}
+     * @param   values  {@link #values}
+     */
+    private LazyReplacer(@NotNull String[] keys, @NotNull String[] values) {
+        this.keys = keys;
+        this.values = values;
+        this.lookup = id -> values[id];
+        final int size = keys.length;
+        keysIndependent = areKeysIndependent(keys, values);
+        valuesIndependent = keysIndependent && areValuesIndependent(keys, values);
+        int max = 0;
+        for (final String key : keys) if (key != null) max = Math.max(max, key.length());
+        maxKeyLength = max;
+
+        // Build trie
+        final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        final List<Integer> outputList = new ArrayList<>();
+        final List<Integer> depthList = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputList.add(-1);
+        depthList.add(0);
+        for (int key = 0; key < size; key++) {
+            if (keys[key] == null || keys[key].isEmpty()) continue;
+            int node = 0;
+            for (final char c : keys[key].toCharArray()) {
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    outputList.add(-1);
+                    depthList.add(depthList.get(node) + 1);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            outputList.set(node, key);
+        }
+
+        // Flatten trie
+        final int nodes = children.size();
+        labels = new char[nodes][];
+        targets = new int[nodes][];
+        outputs = new int[nodes];
+        depths = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            final TreeMap<Character, Integer> map = children.get(node);
+            labels[node] = new char[map.size()];
+            targets[node] = new int[map.size()];
+            int index = 0;
+            for (final Map.Entry<Character, Integer> entry : map.entrySet()) {
+                labels[node][index] = entry.getKey();
+                targets[node][index] = entry.getValue();
+                index++;
+            }
+            outputs[node] = outputList.get(node);
+            depths[node] = depthList.get(node);
+        }
+
+        // Failure and dictionary links (breadth-first)
+        failures = new int[nodes];
+        dictionary = new int[nodes];
+        dictionary[0] = -1;
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (final int child : targets[0]) {
+            failures[child] = 0;
+            dictionary[child] = -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final int node = queue.poll();
+            for (int index = 0; index < labels[node].length; index++) {
+                final int child = targets[node][index];
+                final int failure = next(failures[node], labels[node][index]);
+                failures[child] = failure;
+                dictionary[child] = outputs[failure] != -1 ? failure : dictionary[failure];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Whether there are no replacements
+     *
+     * @return  {@code true} if there are no replacements
+     */
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    /**
+     * Replaces all keys in the given text with their values
+     *
+     * @param   text    the text to replace the keys in
+     *
+     * @return          the text with all keys replaced, or {@code null} if the text is {@code null}
+     */
+    @Nullable
+    public String replace(@Nullable String text) {
+        return replace(text, lookup, valuesIndependent);
+    }
+
+    /**
+     * Replaces all keys in the given text with values that are looked up when their key is found, instead of the values this was compiled with
+     * <br>The result is identical to {@link #replace(String)} of a {@link LazyReplacer} compiled with the same keys and these values, but nothing has to be compiled for each set of values
+     *
+     * @param   text    the text to replace the keys in
+     * @param   values  the values by key ID (the index of the key in the order they were given), only called for keys that are found (possibly more than once per key), must not return {@code null}
+     *
+     * @return          the text with all keys replaced, or {@code null} if the text is {@code null}
+     */
+    @Nullable
+    public String replace(@Nullable String text, @NotNull IntFunction<String> values) {
+        return replace(text, values, false);
+    }
+
+    /**
+     * Replaces all keys in the given text
+     *
+     * @param   text        the text to replace the keys in
+     * @param   values      the values by key ID
+     * @param   independent whether the values are known to never form a key when inserted (if {@code false}, the text around each inserted value is checked)
+     *
+     * @return              the text with all keys replaced, or {@code null} if the text is {@code null}
+     */
+    @Nullable
+    private String replace(@Nullable String text, @NotNull IntFunction<String> values, boolean independent) {
+        if (text == null || text.isEmpty() || keys.length == 0) return text;
+        if (!keysIndependent) return replaceSequentially(text, values);
+
+        // Single pass
+        final Regions inserted = independent ? null : new Regions();
+        final String result = replaceSinglePass(text, values, inserted);
+        if (inserted == null) return result;
+
+        // Check if an inserted value formed a new key
+        for (int i = 0; i < inserted.size; i += 2) if (formsKey(result, inserted.bounds[i], inserted.bounds[i + 1])) return replaceSequentially(text, values);
+        return result;
+    }
+
+    /**
+     * Replaces each key one after another
+     *
+     * @param   text    the text to replace the keys in
+     * @param   values  the values by key ID (only looked up for keys that appear)
+     *
+     * @return          the text with all keys replaced
+     */
+    @NotNull
+    private String replaceSequentially(@NotNull String text, @NotNull IntFunction<String> values) {
+        for (int i = 0; i < keys.length; i++) if (text.contains(keys[i])) text = text.replace(keys[i], values.apply(i));
+        return text;
+    }
+
+    /**
+     * Replaces all keys in a single pass
+     *
+     * @param   text        the text to replace the keys in
+     * @param   values      the values by key ID
+     * @param   inserted    if not {@code null}, the regions of the result that are inserted values are added to it
+     *
+     * @return              the text with all keys replaced
+     */
+    @NotNull
+    private String replaceSinglePass(@NotNull String text, @NotNull IntFunction<String> values, @Nullable Regions inserted) {
+        final int[] match = new int[3];
+        if (!nextMatch(text, 0, match)) return text;
+        final StringBuilder builder = new StringBuilder(text.length() + 16);
+        int last = 0;
+        do {
+            builder.append(text, last, match[0]);
+            final String value = values.apply(match[2]);
+            if (inserted != null) inserted.add(builder.length(), builder.length() + value.length());
+            builder.append(value);
+            last = match[1];
+        } while (nextMatch(text, last, match));
+        return builder.append(text, last, text.length()).toString();
+    }
+
+    /**
+     * Finds all (leftmost-longest, non-overlapping) key occurrences in the given text
+     *
+     * @param   text    the text to search
+     *
+     * @return          the occurrences, as {@code [start, end, key ID]} triples one after another ({@code start} inclusive, {@code end} exclusive, {@code key ID} being the index of the key in the order they were given)
+     */
+    @NotNull
+    public int[] find(@NotNull String text) {
+        int[] found = new int[12];
+        int size = 0;
+        final int[] match = new int[3];
+        int from = 0;
+        while (nextMatch(text, from, match)) {
+            if (size + 3 > found.length) found = Arrays.copyOf(found, found.length * 2);
+            System.arraycopy(match, 0, found, size, 3);
+            size += 3;
+            from = match[1];
+        }
+        return size == found.length ? found : Arrays.copyOf(found, size);
+    }
+
+    /**
+     * Finds the next leftmost-longest key occurrence
+     *
+     * @param   text    the text to search
+     * @param   from    the index to start searching from
+     * @param   match   where the match is stored ({@code [start, end, key ID]})
+     *
+     * @return          {@code true} if a match was found
+     */
+    private boolean nextMatch(@NotNull String text, int from, @NotNull int[] match) {
+        final int length = text.length();
+        int state = 0;
+        int bestKey = -1;
+        for (int i = from; i < length;) {
+            state = next(state, text.charAt(i));
+            i++;
+
+            // Find the leftmost-longest match ending here
+            for (int node = outputs[state] != -1 ? state : dictionary[state]; node != -1; node = dictionary[node]) {
+                final int start = i - depths[node];
+                if (bestKey == -1 || start < match[0] || (start == match[0] && i > match[1])) {
+                    match[0] = start;
+                    match[1] = i;
+                    bestKey = outputs[node];
+                }
+            }
+
+            // Stop once no better match can start at or before the best match
+            if (bestKey != -1 && i - depths[state] > match[0]) break;
+        }
+        match[2] = bestKey;
+        return bestKey != -1;
+    }
+
+    /**
+     * Checks whether any key occurs in the text overlapping the given region (or spanning it, if it's empty)
+     *
+     * @param   text    the text to check
+     * @param   start   the start of the region (inclusive)
+     * @param   end     the end of the region (exclusive)
+     *
+     * @return          {@code true} if a key overlaps the region
+     */
+    private boolean formsKey(@NotNull String text, int start, int end) {
+        final int to = Math.min(text.length(), Math.max(end, start + 1) + maxKeyLength - 1);
+        int state = 0;
+        for (int i = Math.max(0, start - maxKeyLength + 1); i < to; i++) {
+            state = next(state, text.charAt(i));
+            for (int node = outputs[state] != -1 ? state : dictionary[state]; node != -1; node = dictionary[node]) {
+                final int matchStart = i + 1 - depths[node];
+                if (start == end ? matchStart < start && i + 1 > start : matchStart < end && i + 1 > start) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the next node from the given node and character (following failure links)
+     *
+     * @param   node    the current node
+     * @param   c       the next character
+     *
+     * @return          the next node
+     */
+    private int next(int node, char c) {
+        while (true) {
+            final int index = Arrays.binarySearch(labels[node], c);
+            if (index >= 0) return targets[node][index];
+            if (node == 0) return 0;
+            node = failures[node];
+        }
+    }
+
+    /**
+     * Creates an array of empty strings
+     *
+     * @param   size    the size of the array
+     *
+     * @return          the array
+     */
+    @NotNull
+    private static String[] emptyValues(int size) {
+        final String[] values = new String[size];
+        Arrays.fill(values, "");
+        return values;
+    }
+
+    /**
+     * Checks whether no key overlaps or contains another key (including itself), meaning that replacing one key can't change where another key is found in the original text
+     *
+     * @param   keys    the keys
+     * @param   values  the values
+     *
+     * @return          {@code true} if the keys are independent
+     */
+    private static boolean areKeysIndependent(@NotNull String[] keys, @NotNull String[] values) {
+        for (final String key : keys) if (key == null || key.isEmpty()) return false;
+        for (final String value : values) if (value == null) return false;
+        for (int i = 0; i < keys.length; i++) for (int j = 0; j < keys.length; j++) {
+            if (i != j && keys[i].contains(keys[j])) return false;
+            if (overlaps(keys[i], keys[j])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether no value could form a key when inserted (a value that contains, is contained by, or overlaps a key)
+     *
+     * @param   keys    the keys
+     * @param   values  the values
+     *
+     * @return          {@code true} if the values are independent
+     */
+    private static boolean areValuesIndependent(@NotNull String[] keys, @NotNull String[] values) {
+        for (final String value : values) {
+            // An empty value could join the text around it into a key
+            if (value.isEmpty()) {
+                if (keys.length > 1) for (final String key : keys) if (key.length() > 1) return false;
+                continue;
+            }
+            for (final String key : keys) if (value.contains(key) || key.contains(value) || overlaps(value, key) || overlaps(key, value)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a proper, non-empty suffix of {@code first} is a prefix of {@code second}
+     *
+     * @param   first   the first string
+     * @param   second  the second string
+     *
+     * @return          {@code true} if they overlap
+     */
+    private static boolean overlaps(@NotNull String first, @NotNull String second) {
+        final int max = Math.min(first.length() - 1, second.length() - 1);
+        for (int length = 1; length <= max; length++) if (first.regionMatches(first.length() - length, second, 0, length)) return true;
+        return false;
+    }
+
+    /**
+     * A growable list of {@code [start, end)} regions
+     */
+    private static class Regions {
+        /**
+         * The bounds of the regions ({@code start, end, start, end, ...})
+         */
+        @NotNull private int[] bounds = new int[8];
+        /**
+         * The amount of used elements in {@link #bounds}
+         */
+        private int size;
+
+        /**
+         * Adds a region
+         *
+         * @param   start   the start of the region (inclusive)
+         * @param   end     the end of the region (exclusive)
+         */
+        private void add(int start, int end) {
+            if (size + 2 > bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            bounds[size++] = start;
+            bounds[size++] = end;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package xyz.srnyx.lazylibrary.utility;
+
+import org.jetbrains.annotations.NotNull;
+
+import xyz.srnyx.lazylibrary.LazyLibrary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.*;
+import java.security.CodeSource;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+
+/**
+ * A utility class for extracting bundled resources (for example default config and embed files) to the file system
+ * <br>Resources are written with {@link LazyAtomicFiles}, so a crash mid-extraction never leaves a partial file behind and replaced files keep their permissions
+ */
+public class LazyResources {
+    /**
+     * Extracts a resource to a file
+     *
+     * @param   resource                the path of the resource (for example {@code config.yml})
+     * @param   target                  the file to extract to
+     * @param   replace                 whether to replace the file if it already exists
+     *
+     * @return                          {@code true} if the resource was extracted, {@code false} if the file already existed and {@code replace} is {@code false}
+     *
+     * @throws  NoSuchFileException     if the resource doesn't exist
+     * @throws  IOException             if the resource couldn't be extracted
+     */
+    public static boolean extract(@NotNull String resource, @NotNull Path target, boolean replace) throws IOException {
+        if (!replace && Files.exists(target)) return false;
+        try (final InputStream inputStream = LazyLibrary.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) throw new NoSuchFileException(resource, null, "Resource not found");
+            LazyAtomicFiles.copy(target, inputStream);
+        }
+        return true;
+    }
+
+    /**
+     * Extracts all files in a resource directory (including subdirectories) to a directory, keeping their relative paths
+     * <br>When running from a JAR file, its entries are read in a single pass instead of looking up each resource separately
+     *
+     * @param   directory               the path of the resource directory (for example {@code embeds})
+     * @param   target                  the directory to extract to
+     * @param   replace                 whether to replace files that already exist
+     *
+     * @return                          the amount of extracted files
+     *
+     * @throws  NoSuchFileException     if the resource directory can't be found
+     * @throws  IOException             if a file couldn't be extracted
+     */
+    public static int extractDirectory(@NotNull String directory, @NotNull Path target, boolean replace) throws IOException {
+        final String prefix = directory.endsWith("/") ? directory : directory + "/";
+        final Path root = target.toAbsolutePath().normalize();
+        final URL url = LazyLibrary.class.getClassLoader().getResource(prefix);
+
+        // JAR file (JARs built without directory entries can't be looked up, so the JAR containing the library is scanned instead)
+        if (url == null) {
+            final CodeSource codeSource = LazyLibrary.class.getProtectionDomain().getCodeSource();
+            if (codeSource == null || !codeSource.getLocation().getPath().endsWith(".jar")) throw new NoSuchFileException(directory, null, "Resource directory not found");
+            return extractJar(toPath(codeSource.getLocation()), prefix, root, replace);
+        }
+        if (url.openConnection() instanceof JarURLConnection connection) {
+            final String entryName = connection.getEntryName();
+            return extractJar(toPath(connection.getJarFileURL()), entryName.endsWith("/") ? entryName : entryName + "/", root, replace);
+        }
+
+        // Directory (for example when running from an IDE)
+        int count = 0;
+        final Path source = toPath(url);
+        final List<Path> files;
+        try (final Stream<Path> stream = Files.walk(source)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        for (final Path sourceFile : files) {
+            final Path file = resolve(root, source.relativize(sourceFile).toString());
+            if (!replace && Files.exists(file)) continue;
+            try (final InputStream inputStream = Files.newInputStream(sourceFile)) {
+                LazyAtomicFiles.copy(file, inputStream);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Extracts all entries of a JAR file that start with the prefix, in a single pass over its entries
+     *
+     * @param   jarPath     the path of the JAR file
+     * @param   prefix      the prefix of the entries to extract (ending with {@code /})
+     * @param   root        the directory to extract to
+     * @param   replace     whether to replace files that already exist
+     *
+     * @return              the amount of extracted files
+     *
+     * @throws  IOException if a file couldn't be extracted
+     */
+    private static int extractJar(@NotNull Path jarPath, @NotNull String prefix, @NotNull Path root, boolean replace) throws IOException {
+        int count = 0;
+        try (final JarFile jar = new JarFile(jarPath.toFile())) {
+            final Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().startsWith(prefix)) continue;
+                final Path file = resolve(root, entry.getName().substring(prefix.length()));
+                if (!replace && Files.exists(file)) continue;
+                try (final InputStream inputStream = jar.getInputStream(entry)) {
+                    LazyAtomicFiles.copy(file, inputStream);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resolves a relative path inside a directory, making sure it doesn't escape it
+     *
+     * @param   root        the directory
+     * @param   relative    the relative path
+     *
+     * @return              the resolved path
+     *
+     * @throws  IOException if the path is outside the directory
+     */
+    @NotNull
+    private static Path resolve(@NotNull Path root, @NotNull String relative) throws IOException {
+        final Path path = root.resolve(relative).normalize();
+        if (!path.startsWith(root)) throw new IOException("Resource path is outside of the target directory: " + relative);
+        return path;
+    }
+
+    /**
+     * Converts a {@code file:} {@link URL} to a {@link Path}
+     *
+     * @param   url         the {@link URL}
+     *
+     * @return              the {@link Path}
+     *
+     * @throws  IOException if the {@link URL} isn't a valid file path
+     */
+    @NotNull
+    private static Path toPath(@NotNull URL url) throws IOException {
+        try {
+            return Path.of(url.toURI());
+        } catch (final URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            throw new IOException("Unsupported resource location: " + url, e);
+        }
+    }
+
+    private LazyResources() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+}
@@ -25,8 +25,11 @@ import org.jetbrains.annotations.NotNull;
 import xyz.srnyx.javautilities.manipulation.Mapper;
 
 import xyz.srnyx.lazylibrary.LazyEmoji;
+import xyz.srnyx.lazylibrary.LazySplitter;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 
@@ -79,6 +82,21 @@ public class LazyUtilities {
                 .setLastContent(LazyEmoji.FORWARD_CLEAR_DARK.getButtonContent());
     }
 
+    /**
+     * Get the {@link #getDefaultPaginator() default PaginatorBuilder} showing the given {@link LazySplitter.Pages pages}
+     * <br>Each page is only built when it's first shown
+     *
+     * @param   pages   the {@link LazySplitter.Pages pages} to show (for example {@code new LazySplitter.Pages(() -> embed.split(library, rows.iterator()))}, or with the amount of pages if it's already known so they don't have to be counted)
+     *
+     * @return          the {@link PaginatorBuilder}
+     */
+    @NotNull
+    public static PaginatorBuilder getDefaultPaginator(@NotNull LazySplitter.Pages pages) {
+        return getDefaultPaginator()
+                .setMaxPages(pages.size())
+                .setPaginatorSupplier((paginator, messageBuilder, components, page) -> pages.get(page));
+    }
+
     /**
      * Checks if the executing {@link User user} has the given {@link Permission permissions} in the executing {@link GuildChannel channel}
      *
@@ -144,6 +162,22 @@ public class LazyUtilities {
                 .toList();
     }
 
+    /**
+     * Creates an {@link ExecutorService} that runs every task on a new virtual thread
+     * <br>Good for tasks that mostly wait (like {@link net.dv8tion.jda.api.requests.RestAction#complete() complete()} or JDBC calls), since waiting doesn't take up a platform thread
+     * <br>On Java versions before 24, waiting inside a {@code synchronized} block still takes up a platform thread
+     *
+     * @param   name    the prefix of the names of the threads
+     *
+     * @return          the {@link ExecutorService}
+     *
+     * @see             xyz.srnyx.lazylibrary.settings.LazySettings#virtualThreads
+     */
+    @NotNull
+    public static ExecutorService newVirtualThreadExecutor(@NotNull String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+    }
+
     private LazyUtilities() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
@@ -0,0 +1,151 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that {@link LazyCron} parses expressions like standard cron and finds the right next times
+ */
+class LazyCronTest {
+    /**
+     * The zone of the tests (with daylight saving time)
+     */
+    @NotNull private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+    /**
+     * Creates a time in {@link #ZONE}
+     *
+     * @param   year    the year
+     * @param   month   the month
+     * @param   day     the day of the month
+     * @param   hour    the hour
+     * @param   minute  the minute
+     *
+     * @return          the time
+     */
+    @NotNull
+    private static ZonedDateTime time(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZONE);
+    }
+
+    /**
+     * Gets the next time of an expression
+     *
+     * @param   expression  the expression
+     * @param   after       the time to start from
+     *
+     * @return              the next time
+     */
+    @NotNull
+    private static ZonedDateTime next(@NotNull String expression, @NotNull ZonedDateTime after) {
+        return new LazyCron(expression).next(after);
+    }
+
+    @Test
+    void everyMinute() {
+        assertEquals(time(2024, 3, 1, 12, 1), next("* * * * *", time(2024, 3, 1, 12, 0)));
+        // Seconds are dropped
+        assertEquals(time(2024, 3, 1, 12, 1), next("* * * * *", time(2024, 3, 1, 12, 0).plusSeconds(59)));
+    }
+
+    @Test
+    void valuesRangesAndSteps() {
+        final ZonedDateTime start = time(2024, 3, 1, 12, 0);
+        assertEquals(time(2024, 3, 1, 12, 30), next("30 * * * *", start));
+        assertEquals(time(2024, 3, 1, 12, 15), next("*/15 * * * *", start));
+        assertEquals(time(2024, 3, 1, 12, 10), next("0-30/10 * * * *", start));
+        assertEquals(time(2024, 3, 1, 12, 5), next("5/10 * * * *", start));
+        assertEquals(time(2024, 3, 1, 13, 5), next("5/10 * * * *", time(2024, 3, 1, 12, 55)));
+        assertEquals(time(2024, 3, 1, 12, 20), next("20,40 * * * *", start));
+        assertEquals(time(2024, 3, 1, 17, 0), next("0 9-17/8 * * *", time(2024, 3, 1, 9, 0)));
+    }
+
+    @Test
+    void crossesMonthAndYear() {
+        assertEquals(time(2024, 4, 1, 0, 0), next("0 0 1 * *", time(2024, 3, 1, 0, 0)));
+        assertEquals(time(2025, 1, 1, 0, 0), next("0 0 1 1 *", time(2024, 3, 1, 0, 0)));
+        assertEquals(time(2025, 1, 1, 0, 0), next("* * * * *", time(2024, 12, 31, 23, 59)));
+        // Skips months without the 31st
+        assertEquals(time(2024, 3, 31, 0, 0), next("0 0 31 * *", time(2024, 1, 31, 0, 0)));
+        // Leap day
+        assertEquals(time(2028, 2, 29, 0, 0), next("0 0 29 2 *", time(2024, 3, 1, 0, 0)));
+    }
+
+    @Test
+    void names() {
+        // 2024-03-01 is a Friday
+        assertEquals(time(2024, 3, 4, 0, 0), next("0 0 * * MON", time(2024, 3, 1, 0, 0)));
+        assertEquals(time(2024, 3, 4, 0, 0), next("0 0 * * mon-fri", time(2024, 3, 1, 0, 0)));
+        assertEquals(time(2024, 6, 1, 0, 0), next("0 0 1 JUN *", time(2024, 3, 1, 0, 0)));
+        assertEquals(next("0 0 1 6 *", time(2024, 3, 1, 0, 0)), next("0 0 1 JUN *", time(2024, 3, 1, 0, 0)));
+    }
+
+    @Test
+    void sundayIsZeroAndSeven() {
+        final ZonedDateTime start = time(2024, 3, 1, 0, 0);
+        assertEquals(time(2024, 3, 3, 0, 0), next("0 0 * * 0", start));
+        assertEquals(time(2024, 3, 3, 0, 0), next("0 0 * * 7", start));
+        assertEquals(time(2024, 3, 3, 0, 0), next("0 0 * * SUN", start));
+        assertEquals(time(2024, 3, 2, 0, 0), next("0 0 * * 6-7", start));
+    }
+
+    @Test
+    void dayOfMonthOrDayOfWeek() {
+        // Both restricted: either matches (the 15th or the next Monday)
+        assertEquals(time(2024, 3, 4, 0, 0), next("0 0 15 * MON", time(2024, 3, 1, 0, 0)));
+        assertEquals(time(2024, 3, 15, 0, 0), next("0 0 15 * MON", time(2024, 3, 11, 0, 0)));
+        // Only one restricted: that one must match
+        assertEquals(time(2024, 3, 15, 0, 0), next("0 0 15 * *", time(2024, 3, 1, 0, 0)));
+        assertEquals(time(2024, 3, 4, 0, 0), next("0 0 * * MON", time(2024, 3, 1, 0, 0)));
+        // A step of * doesn't count as restricted, so both must match (an odd day that's a Monday)
+        assertEquals(time(2024, 3, 11, 0, 0), next("0 0 */2 * MON", time(2024, 3, 3, 0, 0)));
+    }
+
+    @Test
+    void macros() {
+        final ZonedDateTime start = time(2024, 3, 1, 12, 30);
+        assertEquals(time(2025, 1, 1, 0, 0), next("@yearly", start));
+        assertEquals(time(2025, 1, 1, 0, 0), next("@annually", start));
+        assertEquals(time(2024, 4, 1, 0, 0), next("@monthly", start));
+        assertEquals(time(2024, 3, 3, 0, 0), next("@weekly", start));
+        assertEquals(time(2024, 3, 2, 0, 0), next("@daily", start));
+        assertEquals(time(2024, 3, 2, 0, 0), next("@MIDNIGHT", start));
+        assertEquals(time(2024, 3, 1, 13, 0), next("@hourly", start));
+    }
+
+    @Test
+    void daylightSavingTime() {
+        // 2024-03-10 02:30 doesn't exist in New York (clocks skip from 02:00 to 03:00), so that day is skipped
+        assertEquals(time(2024, 3, 11, 2, 30), next("30 2 * * *", time(2024, 3, 10, 0, 0)));
+        assertEquals(time(2024, 3, 10, 3, 30), next("30 3 * * *", time(2024, 3, 10, 0, 0)));
+
+        // 2024-11-03 01:00 to 02:00 happens twice, every hour still runs in order
+        ZonedDateTime time = time(2024, 11, 3, 0, 0);
+        for (int i = 0; i < 4; i++) {
+            final ZonedDateTime next = next("0 * * * *", time);
+            assertTrue(next.isAfter(time));
+            time = next;
+        }
+        assertEquals(time(2024, 11, 3, 3, 0), time);
+    }
+
+    @Test
+    void neverMatches() {
+        final LazyCron cron = new LazyCron("0 0 30 2 *");
+        assertThrows(IllegalArgumentException.class, () -> cron.next(time(2024, 3, 1, 0, 0)));
+    }
+
+    @Test
+    void invalidExpressions() {
+        for (final String expression : new String[]{"", "* * * *", "* * * * * *", "60 * * * *", "* 24 * * *", "* * 0 * *", "* * * 13 *", "* * * * 8", "5-1 * * * *", "*/0 * * * *", "a * * * *", "* * * FOO *", "@often", "1,,2 * * * *"}) {
+            assertThrows(IllegalArgumentException.class, () -> new LazyCron(expression), expression);
+        }
+    }
+}
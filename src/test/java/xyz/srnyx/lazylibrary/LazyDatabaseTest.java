@@ -0,0 +1,94 @@
+package xyz.srnyx.lazylibrary;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+
+import xyz.srnyx.lazylibrary.settings.DatabasePoolSettings;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the {@link LazyDatabase#getMetrics() metrics} of {@link LazyDatabase} with a fake {@link DataSource}
+ */
+class LazyDatabaseTest {
+    /**
+     * Creates a fake {@link Connection} that is always valid
+     *
+     * @return  the {@link Connection}
+     */
+    @NotNull
+    private static Connection connection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "isValid", "getAutoCommit" -> true;
+            case "isClosed", "isReadOnly" -> false;
+            case "getTransactionIsolation" -> Connection.TRANSACTION_READ_COMMITTED;
+            case "getNetworkTimeout" -> 0;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "FakeConnection";
+            default -> null;
+        });
+    }
+
+    /**
+     * Creates a {@link LazyDatabase} with a fake {@link DataSource}
+     *
+     * @param   configurer  another {@link Consumer} for the {@link HikariConfig}
+     *
+     * @return              the {@link LazyDatabase}
+     */
+    @NotNull
+    private static LazyDatabase database(@NotNull Consumer<HikariConfig> configurer) {
+        final DataSource dataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getConnection" -> connection();
+            case "getLoginTimeout" -> 0;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "FakeDataSource";
+            default -> null;
+        });
+        final DatabasePoolSettings settings = new DatabasePoolSettings(4, 1, 1000, 600000, 1800000, 0, false, 0);
+        return new LazyDatabase("jdbc:fake:test", settings, config -> {
+            config.setDataSource(dataSource);
+            configurer.accept(config);
+        });
+    }
+
+    @Test
+    void countsBorrowedConnections() throws SQLException {
+        try (final LazyDatabase database = database(config -> {})) {
+            try (final Connection ignored = database.getConnection()) {
+                final LazyDatabase.Metrics metrics = database.getMetrics();
+                assertEquals(1, metrics.active());
+                assertTrue(metrics.total() >= 1);
+                assertEquals(1, metrics.acquireNanos().count());
+            }
+            assertEquals(0, database.getMetrics().active());
+            assertEquals(1, database.getMetrics().usageMillis().count());
+        }
+    }
+
+    @Test
+    void countsConnectionsWithOtherTrackerFactory() throws SQLException {
+        try (final LazyDatabase database = database(config -> config.setMetricsTrackerFactory((poolName, stats) -> new IMetricsTracker() {}))) {
+            try (final Connection ignored = database.getConnection()) {
+                final LazyDatabase.Metrics metrics = database.getMetrics();
+                assertEquals(1, metrics.active());
+                assertTrue(metrics.total() >= 1);
+                // The histograms need the tracker of LazyDatabase
+                assertEquals(0, metrics.acquireNanos().count());
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package xyz.srnyx.lazylibrary;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the LRU eviction, size limits, and thread safety of {@link LazyEmbedCache}
+ */
+class LazyEmbedCacheTest {
+    /**
+     * An embed to cache
+     */
+    @NotNull private static final MessageEmbed EMBED = new EmbedBuilder().setDescription("cached").build();
+
+    /**
+     * Creates a cache key
+     *
+     * @param   template    the cache key of the embed
+     *
+     * @return              the key
+     */
+    @NotNull
+    private static LazyEmbedCache.Key key(@NotNull Object template) {
+        return new LazyEmbedCache.Key(template, Map.of(), 0, LazyEmbedDefaults.EMPTY);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        final LazyEmbedCache cache = new LazyEmbedCache(1);
+        cache.put(key("a"), EMBED);
+        cache.put(key("b"), EMBED);
+        assertNull(cache.get(key("a")));
+        assertSame(EMBED, cache.get(key("b")));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void neverExceedsMaxSize() {
+        final LazyEmbedCache cache = new LazyEmbedCache(50);
+        for (int i = 0; i < 1000; i++) cache.put(key(i), EMBED);
+        assertTrue(cache.size() <= 50);
+        final long evictions = cache.getEvictions();
+        assertEquals(1000 - cache.size(), evictions);
+
+        // Shrinking keeps the most recently used ones and doesn't count as evictions
+        cache.setMaxSize(5);
+        assertTrue(cache.size() <= 5);
+        assertEquals(evictions, cache.getEvictions());
+        cache.setMaxSize(0);
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.size());
+        cache.put(key("a"), EMBED);
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> cache.setMaxSize(-1));
+    }
+
+    @Test
+    void keepsEntriesWhenGrowing() {
+        final LazyEmbedCache cache = new LazyEmbedCache(4);
+        cache.put(key("a"), EMBED);
+        cache.setMaxSize(100);
+        assertSame(EMBED, cache.get(key("a")));
+    }
+
+    @Test
+    void keysAllowNullReplacementValues() {
+        final Map<String, String> replacements = new HashMap<>();
+        replacements.put("{a}", null);
+        final LazyEmbedCache cache = new LazyEmbedCache(10);
+        cache.put(new LazyEmbedCache.Key("t", Collections.unmodifiableMap(new HashMap<>(replacements)), 0, LazyEmbedDefaults.EMPTY), EMBED);
+        assertSame(EMBED, cache.get(new LazyEmbedCache.Key("t", replacements, 0, LazyEmbedDefaults.EMPTY)));
+    }
+
+    @Test
+    void concurrentAccess() throws Exception {
+        final LazyEmbedCache cache = new LazyEmbedCache(64);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int seed = thread;
+                futures.add(executor.submit(() -> {
+                    final Random random = new Random(seed);
+                    for (int i = 0; i < 20000; i++) {
+                        final LazyEmbedCache.Key key = key(random.nextInt(200));
+                        if (cache.get(key) == null) cache.put(key, EMBED);
+                        if (i % 5000 == 0 && seed == 0) cache.setMaxSize(32 + random.nextInt(64));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.size() <= cache.getMaxSize());
+        assertEquals(8 * 20000, cache.getHits() + cache.getMisses());
+    }
+}
@@ -0,0 +1,68 @@
+package xyz.srnyx.lazylibrary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.spongepowered.configurate.ConfigurateException;
+import org.spongepowered.configurate.yaml.NodeStyle;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that {@link LazyFileLoader} loads all files and reports failures per file
+ */
+class LazyFileLoaderTest {
+    /**
+     * The temporary directory of the test
+     */
+    @TempDir Path directory;
+
+    @Test
+    void loadsAllFiles() throws IOException {
+        final LazyFileLoader loader = new LazyFileLoader().parallelism(3);
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(directory.resolve(i + ".yml"), "value: " + i + "\n");
+            loader.add(directory.resolve(String.valueOf(i)).toString(), NodeStyle.BLOCK, false);
+        }
+        final LazyFileLoader.Result result = loader.load();
+        assertTrue(result.isSuccessful());
+        assertEquals(20, result.files().size());
+        for (int i = 0; i < 20; i++) {
+            final LazyFile file = result.get(directory.resolve(String.valueOf(i)).toString());
+            assertNotNull(file);
+            assertEquals(i, file.yaml.node("value").getInt());
+        }
+    }
+
+    @Test
+    void reportsFailuresPerFile() throws IOException {
+        final String good = directory.resolve("good").toString();
+        final String malformed = directory.resolve("malformed").toString();
+        final String missingResource = directory.resolve("missing").toString();
+        Files.writeString(directory.resolve("good.yml"), "a: 1\n");
+        Files.writeString(directory.resolve("malformed.yml"), "a: [1\n");
+
+        final LazyFileLoader.Result result = new LazyFileLoader()
+                .add(good, NodeStyle.BLOCK, false)
+                .add(malformed, NodeStyle.BLOCK, false)
+                .add(missingResource, NodeStyle.BLOCK, true)
+                .load();
+        assertFalse(result.isSuccessful());
+        assertEquals(List.of(good), List.copyOf(result.files().keySet()));
+        assertEquals(List.of(malformed, missingResource), List.copyOf(result.failures().keySet()));
+        assertInstanceOf(ConfigurateException.class, result.failures().get(malformed));
+        assertInstanceOf(NoSuchFileException.class, result.failures().get(missingResource));
+    }
+
+    @Test
+    void rejectsInvalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new LazyFileLoader().parallelism(0));
+    }
+}
@@ -0,0 +1,167 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.spongepowered.configurate.serialize.SerializationException;
+import org.spongepowered.configurate.yaml.NodeStyle;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the LRU eviction and write-back of {@link LazyFileStore}
+ */
+class LazyFileStoreTest {
+    /**
+     * The temporary directory of the test
+     */
+    @TempDir Path directory;
+
+    /**
+     * Creates a store in {@link #directory} that only writes files when they're unloaded or flushed
+     *
+     * @param   maxLoaded   the maximum amount of loaded files
+     *
+     * @return              the store
+     */
+    @NotNull
+    private LazyFileStore<String> store(int maxLoaded) {
+        return new LazyFileStore<>(directory.toString(), NodeStyle.BLOCK, maxLoaded, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads a value from a file in {@link #directory}
+     *
+     * @param   key     the key of the file
+     * @param   path    the path to the value
+     *
+     * @return          the value, or {@code null} if it isn't set
+     */
+    private Object read(@NotNull String key, @NotNull Object... path) {
+        return new LazyFile(directory.resolve(key).toString(), NodeStyle.BLOCK, false).yaml.node(path).raw();
+    }
+
+    /**
+     * Sets a value, rethrowing {@link SerializationException} unchecked
+     *
+     * @param   file    the file
+     * @param   value   the value
+     * @param   path    the path to the value
+     */
+    private static void set(@NotNull LazyFile file, @NotNull Object value, @NotNull Object... path) {
+        try {
+            file.set(value, path);
+        } catch (final SerializationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndWritesItBack() {
+        final LazyFileStore<String> store = store(1);
+        store.withFile("a", file -> set(file, 1, "value"));
+        assertFalse(Files.exists(directory.resolve("a.yml")));
+
+        store.withFile("b", file -> set(file, 2, "value"));
+        assertNull(store.getIfLoaded("a"));
+        assertEquals(1, read("a", "value"));
+        assertEquals(1, store.getEvictions());
+
+        // Loaded again with the written value
+        store.withFile("a", file -> assertEquals(1, file.yaml.node("value").getInt()));
+        assertEquals(3, store.getLoads());
+        assertEquals(2, read("b", "value"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void accessKeepsFilesLoaded() {
+        // 16 stripes that fit 2 files each, and keys 16 apart are in the same stripe
+        final LazyFileStore<Integer> store = new LazyFileStore<>(directory.toString(), NodeStyle.BLOCK, 32, Long.MAX_VALUE);
+        final LazyFile first = store.get(0);
+        store.get(16);
+        assertSame(first, store.get(0));
+        store.get(32);
+        assertSame(first, store.getIfLoaded(0));
+        assertNull(store.getIfLoaded(16));
+        assertEquals(1, store.getEvictions());
+    }
+
+    @Test
+    void unloadWritesBack() {
+        final LazyFileStore<String> store = store(8);
+        store.withFile("a", file -> set(file, "x", "value"));
+        store.withFile("b", file -> set(file, "y", "value"));
+        store.flushAll();
+        assertEquals("x", read("a", "value"));
+        assertEquals(2, store.size());
+
+        store.withFile("a", file -> set(file, "z", "value"));
+        store.unload("a");
+        assertNull(store.getIfLoaded("a"));
+        assertEquals("z", read("a", "value"));
+        store.unloadAll();
+        assertEquals(0, store.size());
+        assertThrows(IllegalArgumentException.class, () -> store(0));
+    }
+
+    @Test
+    void unloadedFilesRefuseWrites() {
+        final LazyFileStore<String> store = store(8);
+        final LazyFile stale = store.get("a");
+        store.unload("a");
+        store.withFile("a", file -> set(file, "new", "value"));
+        store.flushAll();
+
+        // The old instance can't overwrite the newer file
+        assertThrows(IllegalStateException.class, () -> set(stale, "old", "value"));
+        assertThrows(IllegalStateException.class, () -> stale.edit(node -> node.node("value").raw("old")));
+        assertThrows(IllegalStateException.class, () -> stale.remove("value"));
+        assertThrows(IllegalStateException.class, stale::save);
+        assertEquals("new", read("a", "value"));
+    }
+
+    @Test
+    void evictionWaitsForInFlightChange() throws Exception {
+        final LazyFileStore<String> store = store(1);
+        final CountDownLatch changing = new CountDownLatch(1);
+        final Thread evicting = new Thread(() -> {
+            try {
+                changing.await();
+            } catch (final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            store.get("b");
+        });
+        evicting.start();
+
+        store.withFile("a", file -> {
+            set(file, 1, "first");
+            changing.countDown();
+
+            // Loading another file evicts this one, which has to wait until the change is done
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (evicting.getState() != Thread.State.BLOCKED) {
+                if (System.nanoTime() > deadline) fail("The evicting thread never blocked");
+                Thread.onSpinWait();
+            }
+            assertEquals(0, store.getEvictions());
+            set(file, 2, "second");
+        });
+        evicting.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(evicting.isAlive());
+
+        // Both changes were written back
+        assertEquals(1, store.getEvictions());
+        assertEquals(1, read("a", "first"));
+        assertEquals(2, read("a", "second"));
+    }
+}
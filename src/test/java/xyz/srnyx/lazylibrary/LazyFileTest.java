@@ -0,0 +1,331 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.spongepowered.configurate.yaml.NodeStyle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+/**
+ * Tests that {@link LazyFile} saves atomically without losing data or file attributes
+ */
+class LazyFileTest {
+    /**
+     * The temporary directory of the test
+     */
+    @TempDir Path directory;
+
+    /**
+     * Creates a {@link LazyFile} in {@link #directory}
+     *
+     * @param   name    the name of the file (without {@code .yml})
+     *
+     * @return          the loaded {@link LazyFile}
+     */
+    @NotNull
+    private LazyFile file(@NotNull String name) {
+        return new LazyFile(directory.resolve(name).toString(), NodeStyle.BLOCK, false);
+    }
+
+    /**
+     * Lists the files in {@link #directory}
+     *
+     * @return              the file names
+     *
+     * @throws  IOException if the directory couldn't be listed
+     */
+    @NotNull
+    private List<String> files() throws IOException {
+        try (final Stream<Path> stream = Files.list(directory)) {
+            return stream.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void savesAndLoads() throws IOException {
+        final LazyFile file = file("data");
+        file.set("value", "a", "b");
+        file.edit(node -> node.node("list").raw(List.of(1, 2)));
+        assertEquals(List.of("data.yml"), files());
+
+        final LazyFile loaded = file("data");
+        assertEquals("value", loaded.yaml.node("a", "b").getString());
+        assertEquals(2, loaded.yaml.node("list").childrenList().size());
+    }
+
+    @Test
+    void keepsPermissionsOfExistingFile() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        final Path path = directory.resolve("perms.yml");
+        Files.writeString(path, "a: 1\n");
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-r-----"));
+
+        file("perms").set(2, "a");
+        assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+        assertEquals(2, file("perms").yaml.node("a").getInt());
+    }
+
+    @Test
+    void newFilesGetDefaultPermissions() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        final Path reference = Files.createFile(directory.resolve("reference"));
+        file("new").set(1, "a");
+        assertEquals(Files.getPosixFilePermissions(reference), Files.getPosixFilePermissions(directory.resolve("new.yml")));
+    }
+
+    @Test
+    void savingKeepsSymlinks() throws IOException {
+        final Path real = Files.createDirectory(directory.resolve("real")).resolve("linked.yml");
+        Files.writeString(real, "a: 1\n");
+        final Path link = directory.resolve("linked.yml");
+        try {
+            Files.createSymbolicLink(link, real);
+        } catch (final UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "Symbolic links aren't supported");
+        }
+
+        file("linked").set(2, "a");
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals(2, new LazyFile(real.toString().replace(".yml", ""), NodeStyle.BLOCK, false).yaml.node("a").getInt());
+        try (final Stream<Path> stream = Files.list(real.getParent())) {
+            assertEquals(List.of(real), stream.toList());
+        }
+    }
+
+    @Test
+    void emptyFileIsDeleted() throws IOException {
+        final LazyFile file = file("empty");
+        file.set(1, "a");
+        assertTrue(Files.exists(directory.resolve("empty.yml")));
+        file.remove("a");
+        assertFalse(Files.exists(directory.resolve("empty.yml")));
+    }
+
+    @Test
+    void concurrentSavesKeepEveryValue() throws Exception {
+        final LazyFile file = file("concurrent");
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int id = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        final int value = i;
+                        file.edit(node -> node.node("thread" + id).raw(value));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        // The last save of every thread is on disk, without leftover temporary files
+        final LazyFile loaded = file("concurrent");
+        for (int thread = 0; thread < 8; thread++) assertEquals(49, loaded.yaml.node("thread" + thread).getInt());
+        assertEquals(List.of("concurrent.yml"), files());
+    }
+
+    @Test
+    void loadingMissingResourceUsesCreate() throws IOException {
+        final Path path = directory.resolve("custom.yml");
+        final LazyFile file = new LazyFile(directory.resolve("custom").toString(), NodeStyle.BLOCK, true) {
+            @Override
+            public void create() {
+                try {
+                    Files.writeString(path, "created: true\n");
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        assertTrue(file.yaml.node("created").getBoolean());
+    }
+
+    @Test
+    void snapshotsMatchParsedFile() throws IOException {
+        final Path path = directory.resolve("snap.yml");
+        final Path snapshot = directory.resolve("snap.yml.snapshot");
+        Files.writeString(path, "a:\n  b: [1, 2]\n  c: text\nd: 1.5\ne: true\n");
+        final Object expected = file("snap").yaml.raw();
+        final LazyFileLoader loader = new LazyFileLoader().snapshots(true).add(directory.resolve("snap").toString(), NodeStyle.BLOCK, false);
+
+        // Parsed and written, then read from the snapshot
+        assertEquals(expected, loaded(loader).yaml.raw());
+        assertTrue(Files.exists(snapshot));
+        assertEquals(expected, loaded(loader).yaml.raw());
+
+        // An invalid snapshot is ignored and replaced
+        Files.write(snapshot, new byte[]{1, 2, 3});
+        assertEquals(expected, loaded(loader).yaml.raw());
+        assertTrue(Files.size(snapshot) > 3);
+
+        // A changed file isn't read from the old snapshot
+        Files.writeString(path, "d: 2\n");
+        assertEquals(2, loaded(loader).yaml.node("d").getInt());
+        assertEquals(List.of("snap.yml", "snap.yml.snapshot"), files());
+    }
+
+    @Test
+    void concurrentSnapshotLoads() throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) builder.append("key").append(i).append(": value ").append(i).append('\n');
+        Files.writeString(directory.resolve("shared.yml"), builder);
+        final String pathString = directory.resolve("shared").toString();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<LazyFile>> futures = new ArrayList<>();
+            for (int round = 0; round < 5; round++) for (int i = 0; i < 8; i++) futures.add(executor.submit(() -> {
+                final LazyFile file = new LazyFile(pathString, NodeStyle.BLOCK, false, false).snapshots(true);
+                file.tryLoad();
+                return file;
+            }));
+            for (final Future<LazyFile> future : futures) assertEquals(2000, future.get().yaml.childrenMap().size());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(List.of("shared.yml", "shared.yml.snapshot"), files());
+    }
+
+    @Test
+    void replaysJournal() throws IOException {
+        final LazyFile file = file("journaled").journal(1 << 20);
+        file.set("a", "first");
+        file.set(List.of(1, 2), "nested", "list");
+        file.remove("first");
+        file.set("b", "second");
+        assertEquals(List.of("journaled.yml.journal"), files());
+
+        final LazyFile loaded = file("journaled");
+        assertEquals("b", loaded.yaml.node("second").getString());
+        assertEquals(List.of(1, 2), loaded.yaml.node("nested", "list").getList(Integer.class));
+        assertTrue(loaded.yaml.node("first").virtual());
+
+        // Compacted into the file
+        file.save();
+        assertEquals(List.of("journaled.yml"), files());
+        assertEquals("b", file("journaled").yaml.node("second").getString());
+    }
+
+    @Test
+    void appendsDuringCompactionAreKept() throws Exception {
+        final LazyFile file = file("compacting").journal(256);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                final int id = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) file.set(i, "thread" + id, "value" + i);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        // Wait for the compactions on the writer thread (a write-behind save queued after them)
+        final LazyFile barrier = file("barrier").writeBehind(1);
+        barrier.set(true, "done");
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Files.exists(directory.resolve("barrier.yml"))) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(1);
+        }
+
+        // Every entry is either in the file or still in the journal
+        final LazyFile loaded = file("compacting");
+        for (int thread = 0; thread < 4; thread++) for (int i = 0; i < 200; i++) assertEquals(i, loaded.yaml.node("thread" + thread, "value" + i).getInt());
+    }
+
+    @Test
+    void staleJournalDoesNotOverwriteSavedValues() throws IOException {
+        final LazyFile file = file("crash").journal(1 << 20);
+        file.set("old", "value");
+        final Path journal = directory.resolve("crash.yml.journal");
+        final byte[] leftover = Files.readAllBytes(journal);
+
+        // Saved with a newer value, then the journal comes back as if the bot crashed before deleting it
+        file.edit(node -> node.node("value").raw("new"));
+        assertFalse(Files.exists(journal));
+        Files.write(journal, leftover);
+
+        final LazyFile loaded = file("crash").journal(1 << 20);
+        assertEquals("new", loaded.yaml.node("value").getString());
+        assertFalse(Files.exists(journal));
+
+        // New entries continue after the saved ones
+        loaded.set("newer", "value");
+        assertEquals("newer", file("crash").yaml.node("value").getString());
+    }
+
+    @Test
+    void tornJournalTailIsDropped() throws IOException {
+        final LazyFile file = file("torn").journal(1 << 20);
+        file.set(1, "a");
+        file.set(2, "b");
+        final Path journal = directory.resolve("torn.yml.journal");
+        file.set(3, "c");
+
+        // Incomplete last entry
+        try (final FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(journal) - 3);
+        }
+        final LazyFile torn = file("torn").journal(1 << 20);
+        assertEquals(2, torn.yaml.node("b").getInt());
+        assertTrue(torn.yaml.node("c").virtual());
+
+        // Corrupted last entry
+        torn.set(4, "d");
+        final byte[] bytes = Files.readAllBytes(journal);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(journal, bytes);
+        final LazyFile corrupted = file("torn").journal(1 << 20);
+        assertEquals(1, corrupted.yaml.node("a").getInt());
+        assertEquals(2, corrupted.yaml.node("b").getInt());
+        assertTrue(corrupted.yaml.node("d").virtual());
+
+        // Appending overwrites the dropped entry
+        corrupted.set(5, "e");
+        final LazyFile appended = file("torn");
+        assertEquals(5, appended.yaml.node("e").getInt());
+        assertTrue(appended.yaml.node("d").virtual());
+    }
+
+    /**
+     * Loads the only file of a {@link LazyFileLoader}
+     *
+     * @param   loader  the {@link LazyFileLoader}
+     *
+     * @return          the loaded file
+     */
+    @NotNull
+    private static LazyFile loaded(@NotNull LazyFileLoader loader) {
+        final LazyFileLoader.Result result = loader.load();
+        assertTrue(result.isSuccessful(), result.failures()::toString);
+        return result.files().values().iterator().next();
+    }
+}
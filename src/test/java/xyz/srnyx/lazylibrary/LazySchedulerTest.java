@@ -0,0 +1,139 @@
+package xyz.srnyx.lazylibrary;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that {@link LazyScheduler} runs, repeats, cancels, and measures jobs
+ */
+class LazySchedulerTest {
+    /**
+     * The scheduler of the test
+     */
+    @NotNull private final LazyScheduler scheduler = new LazyScheduler(false);
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Waits until a condition is true
+     *
+     * @param   condition   the condition
+     */
+    private static void await(@NotNull BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void runsOnce() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        final LazyScheduler.Job job = scheduler.schedule("once", latch::countDown, 50, TimeUnit.MILLISECONDS);
+        assertEquals(List.of(job), scheduler.getJobs());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        // Removed once done
+        await(() -> scheduler.getJobs().isEmpty());
+        assertEquals(1, job.getStats().runs());
+        assertEquals(0, job.getStats().failures());
+    }
+
+    @Test
+    void repeatsAtFixedRate() {
+        final AtomicInteger runs = new AtomicInteger();
+        final LazyScheduler.Job job = scheduler.scheduleAtFixedRate("rate", runs::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+        await(() -> runs.get() >= 5);
+        job.cancel();
+        assertTrue(job.isCancelled());
+        await(() -> scheduler.getJobs().isEmpty());
+        assertTrue(job.getStats().runs() >= 5);
+    }
+
+    @Test
+    void repeatsWithFixedDelay() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final LazyScheduler.Job job = scheduler.scheduleWithFixedDelay("delay", () -> {
+            if (running.incrementAndGet() > 1) overlaps.incrementAndGet();
+            try {
+                Thread.sleep(5);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        }, 0, 1, TimeUnit.MILLISECONDS);
+        await(() -> job.getStats().runs() >= 5);
+        job.cancel();
+
+        // Each run starts after the previous one ends
+        assertEquals(0, overlaps.get());
+        final LazyScheduler.Stats stats = job.getStats();
+        assertTrue(stats.maxNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(stats.meanNanos() <= stats.maxNanos());
+    }
+
+    @Test
+    void repeatsWithJitter() {
+        final AtomicInteger runs = new AtomicInteger();
+        final LazyScheduler.Job job = scheduler.scheduleWithJitter("jitter", runs::incrementAndGet, 0, 1, 5, TimeUnit.MILLISECONDS);
+        await(() -> runs.get() >= 3);
+        job.cancel();
+    }
+
+    @Test
+    void cancelledJobsDontRun() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger();
+        final LazyScheduler.Job job = scheduler.schedule("cancelled", runs::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+        job.cancel();
+        Thread.sleep(200);
+        assertEquals(0, runs.get());
+        assertTrue(scheduler.getJobs().isEmpty());
+    }
+
+    @Test
+    void failuresKeepRepeating() {
+        final LazyScheduler.Job job = scheduler.scheduleAtFixedRate("failing", () -> {
+            throw new IllegalStateException("Expected");
+        }, 0, 5, TimeUnit.MILLISECONDS);
+        await(() -> job.getStats().failures() >= 3);
+        job.cancel();
+        final LazyScheduler.Stats stats = job.getStats();
+        assertTrue(stats.runs() >= stats.failures());
+    }
+
+    @Test
+    void cronJobsAreScheduled() {
+        final LazyScheduler.Job job = scheduler.scheduleCron("cron", () -> {}, new LazyCron("@yearly"), ZoneId.of("UTC"));
+        assertEquals(List.of(job), scheduler.getJobs());
+        assertEquals(0, job.getStats().runs());
+        assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleCron("invalid", () -> {}, "* * *"));
+    }
+
+    @Test
+    void shutdownRejectsNewJobs() {
+        final LazyScheduler.Job job = scheduler.scheduleAtFixedRate("running", () -> {}, 1, 1, TimeUnit.HOURS);
+        assertTrue(scheduler.shutdown(5, TimeUnit.SECONDS));
+        assertTrue(job.isCancelled());
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule("late", () -> {}, 0, TimeUnit.MILLISECONDS));
+    }
+}
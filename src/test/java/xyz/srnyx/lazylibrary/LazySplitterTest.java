@@ -0,0 +1,173 @@
+package xyz.srnyx.lazylibrary;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that {@link LazySplitter} keeps everything within Discord's limits without losing any content
+ */
+class LazySplitterTest {
+    /**
+     * Creates fields with numbered names and values
+     *
+     * @param   amount      the amount of fields
+     * @param   valueLength the length of each value
+     *
+     * @return              the fields
+     */
+    @NotNull
+    private static List<MessageEmbed.Field> fields(int amount, int valueLength) {
+        final List<MessageEmbed.Field> fields = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) fields.add(new MessageEmbed.Field("name " + i, String.valueOf((char) ('a' + i % 26)).repeat(valueLength), false));
+        return fields;
+    }
+
+    /**
+     * Splits an embed with a title and description
+     *
+     * @param   fields  the fields of the embed
+     *
+     * @return          the split embeds
+     */
+    @NotNull
+    private static List<MessageEmbed> split(@NotNull List<MessageEmbed.Field> fields) {
+        final LazyEmbed.Draft header = new LazyEmbed.Draft();
+        header.titleText = "title";
+        header.description = "description";
+        final List<MessageEmbed> embeds = new ArrayList<>();
+        LazySplitter.embeds(header, fields.iterator()).forEachRemaining(embeds::add);
+        return embeds;
+    }
+
+    @Test
+    void splitTextKeepsContent() {
+        final Random random = new Random(1);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            final StringBuilder builder = new StringBuilder();
+            final int length = random.nextInt(10000);
+            for (int i = 0; i < length; i++) builder.append(switch (random.nextInt(20)) {
+                case 0 -> '\n';
+                case 1, 2 -> ' ';
+                case 3 -> "😀";
+                default -> (char) ('a' + random.nextInt(26));
+            });
+            final String text = builder.toString();
+            final List<String> chunks = LazySplitter.splitText(text, 100);
+            assertEquals(text, String.join("", chunks));
+            for (final String chunk : chunks) {
+                assertTrue(chunk.length() <= 100);
+                assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)), "Split a surrogate pair");
+            }
+        }
+    }
+
+    @Test
+    void splitTextPrefersLineBreaks() {
+        final String text = "a".repeat(70) + "\n" + "b".repeat(70);
+        assertEquals(List.of("a".repeat(70) + "\n", "b".repeat(70)), LazySplitter.splitText(text, 100));
+        assertEquals(List.of("short"), LazySplitter.splitText("short", 100));
+    }
+
+    @Test
+    void embedsWithoutFields() {
+        final List<MessageEmbed> embeds = split(List.of());
+        assertEquals(1, embeds.size());
+        assertEquals("description", embeds.get(0).getDescription());
+    }
+
+    @Test
+    void embedsStayWithinLimits() {
+        final List<MessageEmbed.Field> fields = fields(60, 500);
+        final List<MessageEmbed> embeds = split(fields);
+        assertTrue(embeds.size() > 1);
+        final List<MessageEmbed.Field> joined = new ArrayList<>();
+        for (int i = 0; i < embeds.size(); i++) {
+            final MessageEmbed embed = embeds.get(i);
+            assertTrue(embed.getFields().size() <= MessageEmbed.MAX_FIELD_AMOUNT);
+            assertTrue(embed.getLength() <= MessageEmbed.EMBED_MAX_LENGTH_BOT);
+            assertEquals("title", embed.getTitle());
+            // Only the first embed has the description
+            assertEquals(i == 0 ? "description" : null, embed.getDescription());
+            joined.addAll(embed.getFields());
+        }
+        assertEquals(fields, joined);
+    }
+
+    @Test
+    void longValuesContinueInExtraFields() {
+        final MessageEmbed.Field field = new MessageEmbed.Field("long", "x".repeat(MessageEmbed.VALUE_MAX_LENGTH * 2 + 10), true, false);
+        final List<MessageEmbed.Field> fields = split(List.of(field)).stream()
+                .flatMap(embed -> embed.getFields().stream())
+                .toList();
+        assertEquals(3, fields.size());
+        assertEquals("long", fields.get(0).getName());
+        assertEquals(LazySplitter.CONTINUATION_NAME, fields.get(1).getName());
+        assertEquals(field.getValue(), fields.stream().map(MessageEmbed.Field::getValue).reduce("", String::concat));
+    }
+
+    @Test
+    void messagesGroupEmbeds() {
+        final List<MessageEmbed> embeds = split(fields(200, 900));
+        final List<MessageCreateData> messages = new ArrayList<>();
+        LazySplitter.messages("c".repeat(Message.MAX_CONTENT_LENGTH + 1), embeds.iterator()).forEachRemaining(messages::add);
+
+        // The content continues in a second message that also has the first embeds
+        assertEquals(Message.MAX_CONTENT_LENGTH, messages.get(0).getContent().length());
+        assertTrue(messages.get(0).getEmbeds().isEmpty());
+        assertEquals("c", messages.get(1).getContent());
+        final List<MessageEmbed> joined = new ArrayList<>();
+        for (final MessageCreateData message : messages) {
+            assertTrue(message.getEmbeds().size() <= Message.MAX_EMBED_COUNT);
+            assertTrue(message.getEmbeds().stream().mapToInt(MessageEmbed::getLength).sum() <= MessageEmbed.EMBED_MAX_LENGTH_BOT);
+            joined.addAll(message.getEmbeds());
+        }
+        assertEquals(embeds, joined);
+    }
+
+    @Test
+    void pagesAreCountedLazily() {
+        final List<MessageEmbed> embeds = split(fields(100, 500));
+        final AtomicInteger supplied = new AtomicInteger();
+        final Supplier<Iterator<MessageEmbed>> source = () -> {
+            supplied.incrementAndGet();
+            return embeds.iterator();
+        };
+
+        // Not counted until the size is needed
+        final LazySplitter.Pages pages = new LazySplitter.Pages(source);
+        assertEquals(1, supplied.get());
+        assertEquals(embeds.get(1), pages.get(1));
+        assertEquals(1, supplied.get());
+        assertEquals(embeds.size(), pages.size());
+        assertEquals(2, supplied.get());
+        assertEquals(embeds.size(), pages.size());
+        assertEquals(2, supplied.get());
+
+        // Building the last page gives the size without counting
+        final LazySplitter.Pages built = new LazySplitter.Pages(source);
+        assertEquals(embeds.get(embeds.size() - 1), built.get(embeds.size() - 1));
+        assertEquals(embeds.size(), built.size());
+        assertEquals(3, supplied.get());
+        assertThrows(IndexOutOfBoundsException.class, () -> built.get(embeds.size()));
+    }
+
+    @Test
+    void pagesWithKnownSize() {
+        final List<MessageEmbed> embeds = split(fields(100, 500));
+        final LazySplitter.Pages pages = new LazySplitter.Pages(embeds.iterator(), embeds.size());
+        assertEquals(embeds.size(), pages.size());
+        assertEquals(embeds.get(0), pages.get(0));
+    }
+}
@@ -0,0 +1,138 @@
+package xyz.srnyx.lazylibrary.codec;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+
+import xyz.srnyx.lazylibrary.LazyEmbed;
+import xyz.srnyx.lazylibrary.LazyMessage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.*;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that {@link LazyBinary} round-trips {@link LazyEmbed LazyEmbeds} and {@link LazyMessage LazyMessages} and rejects malformed input
+ */
+class LazyBinaryTest {
+    @Test
+    void roundTripsEmbeds() {
+        final LazyEmbed full = LazyJsonTest.fullEmbed()
+                .addEmptyField(true)
+                .replace("{user}", "srnyx")
+                .disableDefaults(LazyEmbed.Key.COLOR, LazyEmbed.Key.FOOTER_TEXT);
+        for (final LazyEmbed embed : List.of(full, new LazyEmbed())) {
+            final ByteBuffer buffer = LazyBinary.encodeEmbed(embed);
+            assertEquals(1 + LazyBinary.embedSize(embed), buffer.remaining());
+            final LazyEmbed read = LazyBinary.readEmbed(buffer);
+            assertEquals(embed, read);
+            assertEquals(embed.replacements, read.replacements);
+            assertEquals(embed.disabledDefaults, read.disabledDefaults);
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    void roundTripsMessages() {
+        final LazyMessage message = new LazyMessage("content é😀", List.of(LazyJsonTest.fullEmbed(), new LazyEmbed().setDescription("second")));
+        assertEquals(message, LazyBinary.readMessage(LazyBinary.encodeMessage(message)));
+        final LazyMessage empty = new LazyMessage(null, null);
+        assertEquals(empty, LazyBinary.readMessage(LazyBinary.encodeMessage(empty)));
+    }
+
+    @Test
+    void keepsTimestampOffsets() {
+        final Instant instant = Instant.ofEpochSecond(-1234567890L, 987654321);
+        assertInstanceOf(Instant.class, roundTripTimestamp(instant));
+
+        final OffsetDateTime offset = OffsetDateTime.ofInstant(instant, ZoneOffset.ofHoursMinutes(5, 30));
+        final OffsetDateTime readOffset = assertInstanceOf(OffsetDateTime.class, roundTripTimestamp(offset));
+        assertEquals(offset, readOffset);
+
+        final ZonedDateTime zoned = ZonedDateTime.ofInstant(instant, ZoneId.of("America/New_York"));
+        final OffsetDateTime readZoned = assertInstanceOf(OffsetDateTime.class, roundTripTimestamp(zoned));
+        assertEquals(zoned.toOffsetDateTime(), readZoned);
+
+        final OffsetDateTime max = OffsetDateTime.ofInstant(instant, ZoneOffset.MIN);
+        assertEquals(max, roundTripTimestamp(max));
+    }
+
+    @Test
+    void readsVersion1() {
+        // Version 1 had no timestamp offset
+        final ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.put((byte) 1);
+        putVarInt(buffer, LazyEmbed.Key.TIMESTAMP.bit);
+        buffer.put((byte) 20).put((byte) 0); // 10 seconds, 0 nanoseconds
+        buffer.put((byte) 0).put((byte) 0).put((byte) 0); // fields, disabled defaults, replacements
+        final LazyEmbed embed = LazyBinary.readEmbed(buffer.flip());
+        assertEquals(Instant.ofEpochSecond(10), embed.getTimestamp());
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        // Unsupported version
+        assertThrows(IllegalArgumentException.class, () -> LazyBinary.readEmbed(ByteBuffer.wrap(new byte[]{99, 0, 0, 0, 0})));
+        // Field count far larger than the input
+        assertThrows(IllegalArgumentException.class, () -> LazyBinary.readEmbed(ByteBuffer.wrap(new byte[]{LazyBinary.VERSION, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07})));
+        // Negative embed count
+        assertThrows(IllegalArgumentException.class, () -> LazyBinary.readMessage(ByteBuffer.wrap(new byte[]{LazyBinary.VERSION, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F})));
+        // String length longer than the input
+        assertThrows(IllegalArgumentException.class, () -> LazyBinary.readMessage(ByteBuffer.wrap(new byte[]{LazyBinary.VERSION, 1, 100, 'a'})));
+        // Offset out of range
+        final ByteBuffer offset = ByteBuffer.allocate(16).put(LazyBinary.VERSION);
+        putVarInt(offset, LazyEmbed.Key.TIMESTAMP.bit);
+        offset.put((byte) 0).put((byte) 0); // 0 seconds, 0 nanoseconds
+        putVarInt(offset, 1000000);
+        offset.put((byte) 0).put((byte) 0).put((byte) 0); // fields, disabled defaults, replacements
+        assertThrows(IllegalArgumentException.class, () -> LazyBinary.readEmbed(offset.flip()));
+        // Truncated
+        final ByteBuffer full = LazyBinary.encodeEmbed(LazyJsonTest.fullEmbed());
+        for (int length = 0; length < full.remaining(); length++) {
+            final ByteBuffer truncated = full.duplicate().limit(length);
+            assertThrows(RuntimeException.class, () -> LazyBinary.readEmbed(truncated));
+        }
+    }
+
+    @Test
+    void truncatedInputUnderflows() {
+        final ByteBuffer full = LazyBinary.encodeEmbed(new LazyEmbed().setColor(0x123456));
+        assertThrows(BufferUnderflowException.class, () -> LazyBinary.readEmbed(full.limit(3)));
+    }
+
+    /**
+     * Writes an unsigned varint (the same encoding as {@link LazyBinary})
+     *
+     * @param   buffer  the {@link ByteBuffer} to write to
+     * @param   value   the value
+     */
+    private static void putVarInt(@NotNull ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Round-trips an embed with only a timestamp
+     *
+     * @param   timestamp   the timestamp
+     *
+     * @return              the timestamp that was read back
+     */
+    @NotNull
+    private static TemporalAccessor roundTripTimestamp(@NotNull TemporalAccessor timestamp) {
+        final TemporalAccessor read = LazyBinary.readEmbed(LazyBinary.encodeEmbed(new LazyEmbed().setTimestamp(timestamp))).getTimestamp();
+        assertNotNull(read);
+        assertEquals(timestamp.getLong(ChronoField.INSTANT_SECONDS), read.getLong(ChronoField.INSTANT_SECONDS));
+        assertEquals(timestamp.get(ChronoField.NANO_OF_SECOND), read.get(ChronoField.NANO_OF_SECOND));
+        return read;
+    }
+}
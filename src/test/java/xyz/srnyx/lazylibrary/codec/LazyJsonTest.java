@@ -0,0 +1,104 @@
+package xyz.srnyx.lazylibrary.codec;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import xyz.srnyx.lazylibrary.LazyEmbed;
+import xyz.srnyx.lazylibrary.LazyMessage;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that {@link LazyJson} round-trips {@link LazyEmbed LazyEmbeds} and {@link LazyMessage LazyMessages} in both {@link LazyJson.Format formats}
+ */
+class LazyJsonTest {
+    /**
+     * Creates an embed with every value set
+     *
+     * @return  the embed
+     */
+    @NotNull
+    static LazyEmbed fullEmbed() {
+        return new LazyEmbed()
+                .setColor(0x123456)
+                .setAuthor("author", "https://example.com/author", "https://example.com/author.png")
+                .setTitle("title \"quoted\" é😀", "https://example.com/title")
+                .setDescription("line 1\nline 2")
+                .addField("name 1", "value 1", true)
+                .addField("name 2", "value 2", false)
+                .setThumbnail("https://example.com/thumbnail.png")
+                .setImage("https://example.com/image.png")
+                .setFooter("footer", "https://example.com/footer.png")
+                .setTimestamp(Instant.ofEpochMilli(1700000000123L));
+    }
+
+    @ParameterizedTest
+    @EnumSource(LazyJson.Format.class)
+    void roundTripsFullEmbed(@NotNull LazyJson.Format format) throws IOException {
+        final LazyEmbed embed = fullEmbed();
+        assertEquals(embed, LazyJson.decodeEmbed(LazyJson.encodeEmbed(embed, format)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(LazyJson.Format.class)
+    void roundTripsEmptyEmbed(@NotNull LazyJson.Format format) throws IOException {
+        final LazyEmbed embed = new LazyEmbed();
+        assertEquals(embed, LazyJson.decodeEmbed(LazyJson.encodeEmbed(embed, format)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(LazyJson.Format.class)
+    void roundTripsMessage(@NotNull LazyJson.Format format) throws IOException {
+        final LazyMessage message = new LazyMessage("content", List.of(fullEmbed(), new LazyEmbed().setDescription("second")));
+        assertEquals(message, LazyJson.decodeMessage(LazyJson.encodeMessage(message, format)));
+        final LazyMessage empty = new LazyMessage(null, null);
+        assertEquals(empty, LazyJson.decodeMessage(LazyJson.encodeMessage(empty, format)));
+    }
+
+    @Test
+    void readsDiscordData() throws IOException {
+        final MessageEmbed built = new EmbedBuilder()
+                .setTitle("title", "https://example.com")
+                .setDescription("description")
+                .addField("name", "value", true)
+                .setFooter("footer")
+                .setColor(0xABCDEF)
+                .setTimestamp(Instant.ofEpochSecond(1700000000))
+                .build();
+        final LazyEmbed expected = new LazyEmbed(built);
+        final LazyEmbed read = LazyJson.readEmbed(new StringReader(built.toData().toString()));
+        // The data has no alpha channel, the MessageEmbed color does
+        assertEquals(expected.getColor() & 0xFFFFFF, read.getColor());
+        assertEquals(Set.of(LazyEmbed.Key.COLOR), expected.diff(read).keys());
+        assertFalse(expected.diff(read).fields());
+    }
+
+    @Test
+    void skipsUnknownAndNullValues() throws IOException {
+        final LazyEmbed embed = LazyJson.readEmbed(new StringReader("{\"unknown\": {\"a\": [1, 2]}, \"description\": \"d\", \"title\": null, \"fields\": [1, {\"name\": \"n\", \"value\": \"v\", \"inline\": null}]}"));
+        assertEquals("d", embed.getDescription());
+        assertNull(embed.getTitleText());
+        assertEquals(1, embed.getFields().size());
+        assertFalse(embed.getFields().get(0).isInline());
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertThrows(IOException.class, () -> LazyJson.readEmbed(new StringReader("{\"description\": ")));
+        assertThrows(IOException.class, () -> LazyJson.readEmbed(new StringReader("[]")));
+        assertThrows(IOException.class, () -> LazyJson.readMessage(new StringReader("{\"embeds\": [{\"color\": \"red\"}]}")));
+    }
+}
@@ -0,0 +1,173 @@
+package xyz.srnyx.lazylibrary.utility;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that {@link LazyReplacer} always gives the same result as calling {@link String#replace(CharSequence, CharSequence)} for each entry one after another
+ */
+class LazyReplacerTest {
+    /**
+     * Replaces each entry one after another (the behavior {@link LazyReplacer} must match)
+     *
+     * @param   replacements    the replacements
+     * @param   text            the text
+     *
+     * @return                  the replaced text
+     */
+    @NotNull
+    private static String sequential(@NotNull Map<String, String> replacements, @NotNull String text) {
+        for (final Map.Entry<String, String> entry : replacements.entrySet()) text = text.replace(entry.getKey(), entry.getValue());
+        return text;
+    }
+
+    /**
+     * Creates a random string
+     *
+     * @param   random      the {@link Random}
+     * @param   alphabet    the characters to use
+     * @param   length      the length
+     *
+     * @return              the string
+     */
+    @NotNull
+    private static String randomString(@NotNull Random random, @NotNull String alphabet, int length) {
+        final StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return builder.toString();
+    }
+
+    /**
+     * Asserts that {@link LazyReplacer#replace(String)} matches {@link #sequential(Map, String)}
+     *
+     * @param   replacements    the replacements
+     * @param   text            the text
+     */
+    private static void assertSame(@NotNull Map<String, String> replacements, @NotNull String text) {
+        assertEquals(sequential(replacements, text), new LazyReplacer(replacements).replace(text), () -> replacements + " in \"" + text + "\"");
+    }
+
+    @Test
+    void replacesPlaceholders() {
+        final Map<String, String> replacements = new LinkedHashMap<>();
+        replacements.put("{user}", "srnyx");
+        replacements.put("{count}", "3");
+        assertEquals("srnyx has 3 items (srnyx)", new LazyReplacer(replacements).replace("{user} has {count} items ({user})"));
+    }
+
+    @Test
+    void handlesEmptyAndNull() {
+        final LazyReplacer replacer = new LazyReplacer(Map.of("{a}", "b"));
+        assertNull(replacer.replace(null));
+        assertEquals("", replacer.replace(""));
+        assertEquals("nothing", replacer.replace("nothing"));
+        assertTrue(new LazyReplacer(Map.<String, String>of()).isEmpty());
+    }
+
+    @Test
+    void valueFormingKeyFallsBack() {
+        // "{" + "a}" forms "{a}" after the first replacement, which the sequential loop then replaces
+        final Map<String, String> replacements = new LinkedHashMap<>();
+        replacements.put("{b}", "a}");
+        replacements.put("{a}", "X");
+        assertSame(replacements, "{{b}");
+        assertEquals("X", new LazyReplacer(replacements).replace("{{b}"));
+    }
+
+    @Test
+    void emptyValueJoiningKeyFallsBack() {
+        // Removing "{x}" joins "{" and "a}" into "{a}"
+        final Map<String, String> replacements = new LinkedHashMap<>();
+        replacements.put("{x}", "");
+        replacements.put("{a}", "Y");
+        assertSame(replacements, "{{x}a}");
+    }
+
+    @Test
+    void overlappingKeysFallBack() {
+        final Map<String, String> replacements = new LinkedHashMap<>();
+        replacements.put("ab", "1");
+        replacements.put("bc", "2");
+        replacements.put("abc", "3");
+        assertSame(replacements, "abcabc");
+        assertSame(replacements, "aabbcc");
+    }
+
+    @Test
+    void laterKeyNotReplacedInEarlierValue() {
+        // The value of a later key can contain an earlier key, which must not be replaced again
+        final Map<String, String> replacements = new LinkedHashMap<>();
+        replacements.put("{a}", "1");
+        replacements.put("{b}", "{a}");
+        assertSame(replacements, "{a} {b}");
+        assertEquals("1 {a}", new LazyReplacer(replacements).replace("{a} {b}"));
+    }
+
+    @Test
+    void findReturnsMatches() {
+        final LazyReplacer replacer = new LazyReplacer(List.of("{a}", "{bb}"));
+        assertArrayEquals(new int[]{0, 3, 0, 4, 8, 1}, replacer.find("{a} {bb} x"));
+        assertArrayEquals(new int[0], replacer.find("none"));
+    }
+
+    @Test
+    void matchesSequentialOnRandomInput() {
+        final Random random = new Random(1);
+        for (int iteration = 0; iteration < 50000; iteration++) {
+            final Map<String, String> replacements = new LinkedHashMap<>();
+            final int size = random.nextInt(5);
+            for (int i = 0; i < size; i++) replacements.put(randomString(random, "ab{}c", 1 + random.nextInt(4)), randomString(random, "ab{}c", random.nextInt(4)));
+            assertSame(replacements, randomString(random, "ab{}c", random.nextInt(20)));
+        }
+    }
+
+    @Test
+    void lookupMatchesCompiledValues() {
+        // One replacer compiled from keys only, reused with different values
+        final Random random = new Random(3);
+        final List<String> keys = List.of("{a}", "{b}", "{ab}", "b}");
+        final LazyReplacer finder = new LazyReplacer(keys);
+        for (int iteration = 0; iteration < 20000; iteration++) {
+            final Map<String, String> replacements = new LinkedHashMap<>();
+            for (final String key : keys) replacements.put(key, randomString(random, "ab{}", random.nextInt(4)));
+            final String[] values = replacements.values().toArray(new String[0]);
+            final String text = randomString(random, "ab{} ", random.nextInt(20));
+            assertEquals(sequential(replacements, text), finder.replace(text, id -> values[id]), () -> replacements + " in \"" + text + "\"");
+        }
+    }
+
+    @Test
+    void lookupOnlyCalledForFoundKeys() {
+        final LazyReplacer finder = new LazyReplacer(List.of("{used}", "{unused}"));
+        final boolean[] called = new boolean[2];
+        assertEquals("x 1", finder.replace("x {used}", id -> {
+            called[id] = true;
+            return "1";
+        }));
+        assertTrue(called[0]);
+        assertFalse(called[1]);
+    }
+
+    @Test
+    void matchesSequentialOnRandomPlaceholders() {
+        final Random random = new Random(2);
+        for (int iteration = 0; iteration < 20000; iteration++) {
+            final Map<String, String> replacements = new LinkedHashMap<>();
+            final int size = random.nextInt(30);
+            for (int i = 0; i < size; i++) replacements.put("{" + randomString(random, "abcdef", 1 + random.nextInt(5)) + "}", randomString(random, "abcdef {}0123", random.nextInt(6)));
+            final List<String> keys = new ArrayList<>(replacements.keySet());
+            final StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                text.append(randomString(random, "ab {}x", random.nextInt(4)));
+                if (!keys.isEmpty()) text.append(keys.get(random.nextInt(keys.size())));
+            }
+            assertSame(replacements, text.toString());
+        }
+    }
+}
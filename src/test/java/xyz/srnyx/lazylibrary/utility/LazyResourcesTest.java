@@ -0,0 +1,61 @@
+package xyz.srnyx.lazylibrary.utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+/**
+ * Tests that {@link LazyResources} replaces files atomically without changing their permissions
+ */
+class LazyResourcesTest {
+    /**
+     * The temporary directory of the test
+     */
+    @TempDir Path directory;
+
+    @Test
+    void extractsOnlyWhenMissingOrReplacing() throws IOException {
+        final Path target = directory.resolve("config.yml");
+        assertTrue(LazyResources.extract("config.yml", target, false));
+        final String content = Files.readString(target);
+        assertFalse(content.isEmpty());
+
+        Files.writeString(target, "changed");
+        assertFalse(LazyResources.extract("config.yml", target, false));
+        assertEquals("changed", Files.readString(target));
+        assertTrue(LazyResources.extract("config.yml", target, true));
+        assertEquals(content, Files.readString(target));
+        try (final Stream<Path> stream = Files.list(directory)) {
+            assertEquals(List.of(target), stream.toList());
+        }
+        assertThrows(NoSuchFileException.class, () -> LazyResources.extract("missing.yml", directory.resolve("missing.yml"), true));
+    }
+
+    @Test
+    void replacingKeepsPermissions() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        final Path target = directory.resolve("config.yml");
+        Files.writeString(target, "old");
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rw-r-----"));
+        assertTrue(LazyResources.extract("config.yml", target, true));
+        assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(target)));
+
+        // New files aren't owner-only like temporary files
+        final Path created = directory.resolve("created.yml");
+        Files.writeString(directory.resolve("reference"), "");
+        LazyResources.extract("config.yml", created, false);
+        assertEquals(Files.getPosixFilePermissions(directory.resolve("reference")), Files.getPosixFilePermissions(created));
+    }
+}